@@ -0,0 +1,141 @@
+package crawler.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a JMH CSV result file with a baseline and prints a markdown table of the changes.
+ * Usage: {@code BenchmarkReport <baseline.csv> <current.csv> [report.md] [thresholdPercent]}.
+ * Exits with status 1 when any benchmark got slower than the threshold allows (20% by default).
+ */
+public final class BenchmarkReport {
+
+    private BenchmarkReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkReport <baseline.csv> <current.csv> [report.md] [thresholdPercent]");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+        double threshold = args.length > 3 ? Double.parseDouble(args[3]) : 20.0;
+
+        StringBuilder report = new StringBuilder();
+        report.append("| Benchmark | Unit | Baseline | Current | Change | |\n");
+        report.append("|---|---|---:|---:|---:|---|\n");
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null || !before.unit().equals(now.unit())) {
+                report.append(row(entry.getKey(), now.unit(), "-", format(now.score()), "-", "new"));
+                continue;
+            }
+            double change = (now.score() - before.score()) / before.score() * 100;
+            // for throughput a higher score is better, for times a lower one
+            double slowdown = now.higherIsBetter() ? -change : change;
+            String verdict = slowdown > threshold ? "REGRESSION" : slowdown < -threshold ? "faster" : "";
+            if (slowdown > threshold) {
+                regressions++;
+            }
+            report.append(row(entry.getKey(), now.unit(), format(before.score()), format(now.score()),
+                    String.format(Locale.ROOT, "%+.1f%%", change), verdict));
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                report.append(row(missing, baseline.get(missing).unit(), format(baseline.get(missing).score()), "-", "-", "not run"));
+            }
+        }
+        report.append("\n").append(regressions).append(" regression(s) beyond ")
+                .append(String.format(Locale.ROOT, "%.0f%%", threshold)).append("\n");
+
+        System.out.print(report);
+        if (args.length > 2) {
+            Files.writeString(Path.of(args[2]), report, StandardCharsets.UTF_8);
+        }
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a JMH CSV result file, keyed by benchmark name and parameter values.
+     */
+    static Map<String, Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return results;
+        }
+        List<String> header = split(lines.getFirst());
+        int name = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = split(line);
+            StringBuilder key = new StringBuilder(fields.get(name).replaceFirst("^crawler\\.bench\\.", ""));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(fields.get(i));
+                }
+            }
+            double value = Double.parseDouble(fields.get(score).replace(',', '.'));
+            results.put(key.toString(), new Result(fields.get(mode), value, fields.get(unit)));
+        }
+        return results;
+    }
+
+    /**
+     * Splits one line of CSV, removing the quotes around fields.
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String row(String name, String unit, String baseline, String current, String change, String verdict) {
+        return "| " + name + " | " + unit + " | " + baseline + " | " + current + " | " + change + " | " + verdict + " |\n";
+    }
+
+    private static String format(double score) {
+        return String.format(Locale.ROOT, "%.3f", score);
+    }
+
+    record Result(String mode, double score, String unit) {
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package crawler.bench;
+
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.store.DuplicateIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding one listing to a full near-duplicate index, which compares it with the listings sharing a band.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DuplicateIndexBenchmark {
+    private static final int CAPACITY = 100_000;
+    private static final String[] TITLES = {"Шофьор", "Продавач-консултант", "Java Developer", "Счетоводител", "Куриер"};
+    private static final String[] CITIES = {"София", "Пловдив", "Варна", "Бургас", "Русе", "Стара Загора", "Плевен"};
+    private static final String[] SITES = {"JOBS.BG", "OLX", "RabotniMesta"};
+
+    private DuplicateIndex index;
+    private JobListing[] listings;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        listings = new JobListing[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            listings[i] = new JobListing(TITLES[i % TITLES.length] + " " + CITIES[i % CITIES.length] + " " + (i / 35),
+                    "https://example.com/job/" + i);
+        }
+        index = new DuplicateIndex(CAPACITY, 3);
+        for (int i = 0; i < CAPACITY; i++) {
+            index.add(SITES[i % SITES.length], listings[i]);
+        }
+    }
+
+    @Benchmark
+    public String addListing() {
+        int i = next;
+        next = (i + 1) % CAPACITY;
+        return index.add(SITES[(i + 1) % SITES.length], listings[i]);
+    }
+}
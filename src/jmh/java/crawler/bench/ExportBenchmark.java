@@ -0,0 +1,67 @@
+package crawler.bench;
+
+import org.magistraturaSGI.crawler.Crawler;
+import org.magistraturaSGI.crawler.MenuController;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.export.JobExporters;
+import org.magistraturaSGI.crawler.interfaces.IJobExporter;
+import org.magistraturaSGI.crawler.store.ResultStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporting the result store, through MenuController.export and through each exporter format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportBenchmark {
+
+    private ResultStore store;
+
+    @Setup
+    public void setUp() {
+        store = new ResultStore();
+        for (JobListing listing : ResultStoreBenchmark.listings()) {
+            store.add("JOBS.BG", listing);
+        }
+        MenuController.setCrawler(new Crawler());
+    }
+
+    @Benchmark
+    public File menuExport() {
+        return MenuController.export(store);
+    }
+
+    @Benchmark
+    public long exportFormat(Format format) throws IOException {
+        Path file = format.directory.resolve(format.fileName);
+        try (IJobExporter exporter = JobExporters.create(file, 100)) {
+            for (JobListing listing : store) {
+                exporter.write(listing);
+            }
+        }
+        return Files.size(file);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Format {
+        @Param({"jobs.txt", "jobs.csv", "jobs.jsonl", "jobs.jsonl.gz"})
+        public String fileName;
+
+        Path directory;
+
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("export-bench");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package crawler.bench;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+import org.magistraturaSGI.crawler.Crawler;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.dataobjects.SiteProfile;
+import org.magistraturaSGI.crawler.extract.LinkScanner;
+import org.magistraturaSGI.crawler.extract.TitleExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selector lookup, link extraction and title extraction on the listing and job page fixtures of each board.
+ * Link extraction is measured both ways: parsing the listing page and selecting, and scanning its HTML.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({"JOBS.BG", "OLX", "Yox", "RabotniMesta"})
+    public String siteName;
+
+    private Crawler crawler;
+    private Site site;
+    private SiteProfile profile;
+    private FetchedPage listingPage;
+    private FetchedPage detailPage;
+    private Document listing;
+    private TitleExtractor titleExtractor;
+
+    @Setup
+    public void setUp() throws IOException {
+        crawler = new Crawler();
+        site = crawler.getConfig().getSiteList().stream()
+                .filter(s -> s.getName().equals(siteName))
+                .findFirst()
+                .orElseThrow();
+        profile = crawler.profileFor(site);
+        listingPage = Fixtures.page(siteName, "listing", site.getUrl());
+        detailPage = Fixtures.page(siteName, "detail", site.getUrl());
+        listing = listingPage.toDocument();
+        titleExtractor = new TitleExtractor(crawler.getConfig().getTitleScanMaxBytes());
+    }
+
+    @Benchmark
+    public String setSiteSelectors() {
+        crawler.setSiteSelectors(site);
+        return crawler.getJobPageSelector();
+    }
+
+    @Benchmark
+    public Elements selectJobLinksBySelectorString() {
+        crawler.setSiteSelectors(site);
+        return listing.select(crawler.getJobPageSelector());
+    }
+
+    @Benchmark
+    public List<String> findJobLinks() {
+        return crawler.findJobLinks(site, listing);
+    }
+
+    @Benchmark
+    public List<Site> findPageLinks() {
+        return crawler.findPageLinks(site, listing);
+    }
+
+    @Benchmark
+    public List<String> parseAndFindJobLinks() throws IOException {
+        return crawler.findJobLinks(site, listingPage.toDocument());
+    }
+
+    @Benchmark
+    public List<String> scanJobLinks() {
+        return crawler.findJobLinks(site, LinkScanner.decode(listingPage), listingPage.getUrl());
+    }
+
+    @Benchmark
+    public Document parseListingPage() throws IOException {
+        return listingPage.toDocument();
+    }
+
+    @Benchmark
+    public String selectTitleFromDocument() throws IOException {
+        return detailPage.toDocument().select(profile.getJobTitle()).text();
+    }
+
+    @Benchmark
+    public String extractTitle() throws IOException {
+        return titleExtractor.extract(detailPage, profile.getJobTitle());
+    }
+}
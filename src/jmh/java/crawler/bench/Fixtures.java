@@ -0,0 +1,33 @@
+package crawler.bench;
+
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the HTML fixtures of the configured boards from src/jmh/resources/fixtures.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param siteName The name of the site, as in config.xml.
+     * @param kind     "listing" or "detail".
+     * @param url      The URL the page is served from.
+     * @return The fixture as a fetched page.
+     */
+    static FetchedPage page(String siteName, String kind, String url) throws IOException {
+        String resource = "/fixtures/" + siteName.toLowerCase().replace(".", "") + "-" + kind + ".html";
+        try (InputStream in = Fixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Missing fixture " + resource);
+            }
+            return new FetchedPage(url, 200, Map.of("Content-Type", List.of("text/html; charset=utf-8")), in.readAllBytes());
+        }
+    }
+}
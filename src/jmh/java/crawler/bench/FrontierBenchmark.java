@@ -0,0 +1,47 @@
+package crawler.bench;
+
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.frontier.BloomSeenSet;
+import org.magistraturaSGI.crawler.frontier.ConcurrentSeenSet;
+import org.magistraturaSGI.crawler.frontier.Frontier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushing pagination links into the frontier, half of them already seen in another form.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontierBenchmark {
+    private static final int URLS = 10_000;
+
+    @Param({"exact", "bloom"})
+    public String seenSet;
+
+    private List<Site> sites;
+
+    @Setup
+    public void setUp() {
+        sites = new ArrayList<>(URLS);
+        for (int i = 0; i < URLS / 2; i++) {
+            sites.add(new Site("OLX", "https://www.olx.bg/rabota/?page=" + i, true));
+            sites.add(new Site("OLX", "HTTPS://WWW.OLX.BG:443/rabota/?page=" + i + "&utm_source=feed#top", true));
+        }
+    }
+
+    @Benchmark
+    public int pushAndDedup() {
+        Frontier frontier = new Frontier(seenSet.equals("bloom") ? new BloomSeenSet(URLS, 0.001) : new ConcurrentSeenSet());
+        for (Site site : sites) {
+            frontier.push(site);
+        }
+        return frontier.size();
+    }
+}
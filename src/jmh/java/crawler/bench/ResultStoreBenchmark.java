@@ -0,0 +1,78 @@
+package crawler.bench;
+
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.store.ResultStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appending listings to the result store, against the synchronized linked list it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultStoreBenchmark {
+    static final int LISTINGS = 10_000;
+    private static final String[] TITLES = {"Шофьор", "Продавач-консултант", "Java Developer", "Счетоводител", "Куриер"};
+
+    private List<JobListing> listings;
+
+    @Setup
+    public void setUp() {
+        listings = listings();
+    }
+
+    static List<JobListing> listings() {
+        List<JobListing> listings = new ArrayList<>(LISTINGS);
+        for (int i = 0; i < LISTINGS; i++) {
+            listings.add(new JobListing(TITLES[i % TITLES.length], "https://www.jobs.bg/job/" + (7_000_000 + i)));
+        }
+        return listings;
+    }
+
+    @Benchmark
+    public ResultStore appendResultStore() {
+        ResultStore store = new ResultStore();
+        for (JobListing listing : listings) {
+            store.add("JOBS.BG", listing);
+        }
+        return store;
+    }
+
+    @Benchmark
+    public List<JobListing> appendSynchronizedLinkedList() {
+        List<JobListing> list = Collections.synchronizedList(new LinkedList<>());
+        list.addAll(listings);
+        return list;
+    }
+
+    @Benchmark
+    public int iterateResultStore(StoreState state) {
+        int length = 0;
+        for (JobListing listing : state.store) {
+            length += listing.getUrl().length();
+        }
+        return length;
+    }
+
+    @State(Scope.Benchmark)
+    public static class StoreState {
+        ResultStore store;
+
+        @Setup
+        public void setUp() {
+            store = new ResultStore();
+            for (JobListing listing : listings()) {
+                store.add("JOBS.BG", listing);
+            }
+        }
+    }
+}
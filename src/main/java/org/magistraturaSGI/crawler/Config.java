@@ -1,10 +1,13 @@
 
 package org.magistraturaSGI.crawler;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import org.magistraturaSGI.crawler.dataobjects.ListingCard;
 import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.dataobjects.SiteProfile;
 import org.magistraturaSGI.crawler.interfaces.IConfigurable;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -14,28 +17,84 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import java.io.File;
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.net.URL;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Configuration class for the crawler, with getters and setters for various settings.
+ * Settings that a running crawl picks up are volatile, as the file they come from may be reloaded while crawling.
  */
 @Getter
 public class Config implements IConfigurable {
     private static final Logger logger = Logger.getLogger(Config.class.getName());
 
     @Setter
-    private int threadCount = 1;
+    private volatile int threadCount = 1;
     @Setter
-    private int deathTimer = 10;
+    private int deathTimer = 10; // seconds until the crawl stops fetching and drains
+    private int drainSeconds = 5; // seconds the fetches in flight get to finish after the deadline
+    @Setter
+    private volatile int maxInFlight = 16;
+    private volatile int detailFetchWorkers = 16;
+    private volatile int extractWorkers = 2;
+    private int stageQueueCapacity = 64;
+    private int connectTimeout = 10_000; // milliseconds
+    private int readTimeout = 30_000; // milliseconds
+    private int maxBodySize = 2 * 1024 * 1024; // bytes, 0 for no limit
+    private String userAgent = "Mozilla 5.0";
+    private String cacheDirectory = "cache/http";
+    private int cacheMaxSizeMB = 0; // 0 disables the HTTP cache
+    private boolean incrementalCrawl = false;
+    private String jobStoreFile = "data/jobs.tsv";
+    private int bloomFilterCapacity = 0; // 0 keeps an exact seen-set
+    private double bloomFilterFalsePositiveRate = 0.001;
+    private int titleScanMaxBytes = 64 * 1024; // bytes of a job page scanned for its title before parsing it whole, 0 for no limit
+    private String archiveMode = "off"; // off, record or replay
+    private String archiveDirectory = "archive";
+    private int archiveSegmentSizeMB = 128;
+    private int metricsIntervalSeconds = 0; // seconds between console metrics summaries, 0 for none
+    private boolean jmxEnabled = true;
+    private String exportFile = "output/jobs.jsonl"; // format from the extension: .csv, .jsonl or .txt, optionally .gz
+    private int exportBatchSize = 100; // listings written between flushes
+    private boolean streamExport = false; // write listings to the export file while crawling, their copies on other sites at the end
+    private double hostRequestsPerSecond = 2.0; // starting request rate of every host, 0 for no rate limit
+    private double hostMinRequestsPerSecond = 0.2;
+    private double hostMaxRequestsPerSecond = 10.0;
+    private int hostBurst = 4; // requests an idle host may get at once
+    private int latencyTargetMillis = 2000; // slower responses lower the host's rate
+    private int maxRetries = 2; // attempts after a fetch fails transiently
+    private int retryBaseDelayMillis = 500;
+    private int retryMaxDelayMillis = 8000;
+    private int circuitFailureThreshold = 5; // transient failures in a row that pause a host, 0 to never pause one
+    private int circuitOpenSeconds = 30;
+    private String clusterCoordinator = "localhost"; // host of the coordinator that nodes of a multi-node crawl join
+    private int clusterPort = 7070;
+    private int clusterMinNodes = 1; // nodes that must join before the coordinator starts the crawl
+    private int clusterNodeTimeoutSeconds = 10; // seconds without a heartbeat before a node's hosts are reassigned
+    private int duplicateIndexCapacity = 100_000; // recent listings compared with new ones to find copies on other sites, 0 to keep copies
+    private int duplicateMaxDistance = 3; // bits two listing fingerprints (title, company, location) may differ in, at most 3
+    private String checkpointFile = "data/crawl.journal"; // journal an interrupted crawl is resumed from, empty for none
+    private int checkpointIntervalSeconds = 5; // seconds between writes of the journal to disk
+    private boolean sitemapDiscovery = false; // find the job pages of sites with a job URL pattern in their sitemaps
+    private int maxSitemapSize = 50 * 1024 * 1024; // bytes read from each sitemap, the sitemap protocol's limit; 0 for no limit
+    private volatile boolean fastLinkScan = true; // find the links of listing pages by scanning their HTML when the selectors allow it
+    private int recrawlMinSeconds = 300; // shortest time between two visits to a listing page when recrawling
+    private int recrawlMaxSeconds = 86_400; // longest time between two visits to a listing page when recrawling
+
+    private String externalConfigFile = ""; // file watched for changes whose settings override these, empty for none
 
-    private final List<Site> siteList = new ArrayList<>();
+    private final List<Site> siteList = new CopyOnWriteArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, SiteProfile> siteProfiles = new ConcurrentHashMap<>(); // site name -> profile
 
     /**
      * Default constructor for Config, loads configuration settings from the config.xml file.
@@ -58,30 +117,63 @@ public class Config implements IConfigurable {
     }
 
     /***
-     * Finds the config.xml file located in the resources folder and loads the settings for the crawler
+     * Finds the config.xml file located in the resources folder and loads the settings for the crawler,
+     * then the settings of the external config file, if it names one that exists.
      */
-    private void loadFromFile() {
-        try {
-            // Find the "config.xml" file and load it
-            URL path = this.getClass().getClassLoader().getResource("config.xml");
-            if (path == null) {
+    public void loadFromFile() {
+        // Find the "config.xml" file and load it
+        try (InputStream in = this.getClass().getClassLoader().getResourceAsStream("config.xml")) {
+            if (in == null) {
                 logger.log(Level.SEVERE, "Could not find config.xml file.");
                 return;
             }
-            File file = new File(path.toURI());
+            load(in);
+            logger.log(Level.INFO,"Loaded the default configuration from file {0}","config.xml");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error loading config.xml file.", e);
+            return;
+        }
+        if (!externalConfigFile.isBlank() && Files.exists(Path.of(externalConfigFile))) {
+            try {
+                loadFromFile(Path.of(externalConfigFile));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error loading config file " + externalConfigFile, e);
+            }
+        }
+    }
 
+    /**
+     * Loads the settings of a config file over the current ones. Settings the file leaves out keep their values;
+     * if the file lists any sites, they replace the site list.
+     * @param file The config file, laid out like config.xml.
+     * @throws IOException If the file cannot be read or is not well-formed XML, in which case no setting is changed.
+     */
+    public void loadFromFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            load(in);
+        }
+        logger.log(Level.INFO, "Loaded the configuration from file {0}", file);
+    }
+
+    private synchronized void load(InputStream in) throws IOException {
+        Document doc;
+        try {
             // Create a DocumentBuilder and parse the XML file
             DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
             DocumentBuilder db = dbf.newDocumentBuilder();
-            Document doc = db.parse(file);
-
-            // Normalize the XML document
-            Element root = doc.getDocumentElement();
-            root.normalize();
-            getAllChildElements(root);
-            logger.log(Level.INFO,"Loaded the default configuration from file {0}",file.getName());
-        } catch (URISyntaxException | ParserConfigurationException | IOException | SAXException e) {
-            logger.log(Level.SEVERE, "Error loading config.xml file.", e);
+            doc = db.parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Malformed config file", e);
+        }
+
+        // Normalize the XML document
+        Element root = doc.getDocumentElement();
+        root.normalize();
+        List<Site> sites = new ArrayList<>();
+        getAllChildElements(root, sites);
+        if (!sites.isEmpty()) {
+            siteList.clear();
+            siteList.addAll(sites);
         }
     }
 
@@ -89,12 +181,14 @@ public class Config implements IConfigurable {
      * Recursively traverses all child nodes of the provided DOM tree node and extracts relevant application settings.
      * If the node is an ELEMENT_NODE and has child nodes, it processes the node's name and value.
      * If the name matches predefined settings, updates the corresponding configuration values.
-     * For "DeathTimer" and "ThreadCount," it parses the value to an integer.
-     * For "Site," extracts child elements "Name" and "URL" to create a new Site object and adds it to the siteList.
+     * For "DeathTimer", "ThreadCount", "MaxInFlight" and the pipeline settings, it parses the value to a number.
+     * For "Site," extracts child elements "Name", "URL" and "Enabled" to create a new Site object and adds it to sites,
+     * and compiles its selectors and limits into the site's profile.
      *
-     * @param node The starting node of the DOM tree traversal.
+     * @param node  The starting node of the DOM tree traversal.
+     * @param sites The list the sites found are added to.
      */
-    private void getAllChildElements(Node node) {
+    private void getAllChildElements(Node node, List<Site> sites) {
         try {
             if (node.getNodeType() == Node.ELEMENT_NODE && node.hasChildNodes()) {
                 // Extract node name and value and process them
@@ -104,14 +198,183 @@ public class Config implements IConfigurable {
                     case "DeathTimer":
                         deathTimer = Integer.parseInt(value);
                         break;
+                    case "DrainSeconds":
+                        drainSeconds = Integer.parseInt(value);
+                        break;
                     case "ThreadCount":
                         threadCount = Integer.parseInt(value);
                         break;
+                    case "MaxInFlight":
+                        maxInFlight = Integer.parseInt(value);
+                        break;
+                    case "DetailFetchWorkers":
+                        detailFetchWorkers = Integer.parseInt(value);
+                        break;
+                    case "ExtractWorkers":
+                        extractWorkers = Integer.parseInt(value);
+                        break;
+                    case "StageQueueCapacity":
+                        stageQueueCapacity = Integer.parseInt(value);
+                        break;
+                    case "ConnectTimeout":
+                        connectTimeout = Integer.parseInt(value);
+                        break;
+                    case "ReadTimeout":
+                        readTimeout = Integer.parseInt(value);
+                        break;
+                    case "MaxBodySize":
+                        maxBodySize = Integer.parseInt(value);
+                        break;
+                    case "UserAgent":
+                        userAgent = value.trim();
+                        break;
+                    case "CacheDirectory":
+                        cacheDirectory = value.trim();
+                        break;
+                    case "CacheMaxSizeMB":
+                        cacheMaxSizeMB = Integer.parseInt(value);
+                        break;
+                    case "IncrementalCrawl":
+                        incrementalCrawl = Boolean.parseBoolean(value.trim());
+                        break;
+                    case "JobStoreFile":
+                        jobStoreFile = value.trim();
+                        break;
+                    case "BloomFilterCapacity":
+                        bloomFilterCapacity = Integer.parseInt(value);
+                        break;
+                    case "BloomFilterFalsePositiveRate":
+                        bloomFilterFalsePositiveRate = Double.parseDouble(value);
+                        break;
+                    case "TitleScanMaxBytes":
+                        titleScanMaxBytes = Integer.parseInt(value);
+                        break;
+                    case "ArchiveMode":
+                        archiveMode = value.trim().toLowerCase();
+                        break;
+                    case "ArchiveDirectory":
+                        archiveDirectory = value.trim();
+                        break;
+                    case "ArchiveSegmentSizeMB":
+                        archiveSegmentSizeMB = Integer.parseInt(value);
+                        break;
+                    case "MetricsIntervalSeconds":
+                        metricsIntervalSeconds = Integer.parseInt(value);
+                        break;
+                    case "JmxEnabled":
+                        jmxEnabled = Boolean.parseBoolean(value.trim());
+                        break;
+                    case "ExportFile":
+                        exportFile = value.trim();
+                        break;
+                    case "ExportBatchSize":
+                        exportBatchSize = Integer.parseInt(value);
+                        break;
+                    case "StreamExport":
+                        streamExport = Boolean.parseBoolean(value.trim());
+                        break;
+                    case "HostRequestsPerSecond":
+                        hostRequestsPerSecond = Double.parseDouble(value);
+                        break;
+                    case "HostMinRequestsPerSecond":
+                        hostMinRequestsPerSecond = Double.parseDouble(value);
+                        break;
+                    case "HostMaxRequestsPerSecond":
+                        hostMaxRequestsPerSecond = Double.parseDouble(value);
+                        break;
+                    case "HostBurst":
+                        hostBurst = Integer.parseInt(value);
+                        break;
+                    case "LatencyTargetMillis":
+                        latencyTargetMillis = Integer.parseInt(value);
+                        break;
+                    case "MaxRetries":
+                        maxRetries = Integer.parseInt(value);
+                        break;
+                    case "RetryBaseDelayMillis":
+                        retryBaseDelayMillis = Integer.parseInt(value);
+                        break;
+                    case "RetryMaxDelayMillis":
+                        retryMaxDelayMillis = Integer.parseInt(value);
+                        break;
+                    case "CircuitFailureThreshold":
+                        circuitFailureThreshold = Integer.parseInt(value);
+                        break;
+                    case "CircuitOpenSeconds":
+                        circuitOpenSeconds = Integer.parseInt(value);
+                        break;
+                    case "ClusterCoordinator":
+                        clusterCoordinator = value.trim();
+                        break;
+                    case "ClusterPort":
+                        clusterPort = Integer.parseInt(value);
+                        break;
+                    case "ClusterMinNodes":
+                        clusterMinNodes = Integer.parseInt(value);
+                        break;
+                    case "ClusterNodeTimeoutSeconds":
+                        clusterNodeTimeoutSeconds = Integer.parseInt(value);
+                        break;
+                    case "DuplicateIndexCapacity":
+                        duplicateIndexCapacity = Integer.parseInt(value);
+                        break;
+                    case "DuplicateMaxDistance":
+                        duplicateMaxDistance = Integer.parseInt(value);
+                        break;
+                    case "CheckpointFile":
+                        checkpointFile = value.trim();
+                        break;
+                    case "CheckpointIntervalSeconds":
+                        checkpointIntervalSeconds = Integer.parseInt(value);
+                        break;
+                    case "SitemapDiscovery":
+                        sitemapDiscovery = Boolean.parseBoolean(value.trim());
+                        break;
+                    case "MaxSitemapSize":
+                        maxSitemapSize = Integer.parseInt(value);
+                        break;
+                    case "FastLinkScan":
+                        fastLinkScan = Boolean.parseBoolean(value.trim());
+                        break;
+                    case "RecrawlMinSeconds":
+                        recrawlMinSeconds = Integer.parseInt(value);
+                        break;
+                    case "RecrawlMaxSeconds":
+                        recrawlMaxSeconds = Integer.parseInt(value);
+                        break;
+                    case "ExternalConfigFile":
+                        externalConfigFile = value.trim();
+                        break;
                     case "Site":
                         Element element = (Element) node;
                         String siteName = element.getElementsByTagName("Name").item(0).getTextContent();
                         String siteURL = element.getElementsByTagName("URL").item(0).getTextContent();
-                        siteList.add(new Site(siteName, siteURL, true));
+                        sites.add(new Site(siteName, siteURL, !childText(element, "Enabled").equalsIgnoreCase("false")));
+                        String maxPages = childText(element, "MaxPages");
+                        String maxListings = childText(element, "MaxListings");
+                        String maxSizeMB = childText(element, "MaxSizeMB");
+                        String maxSeconds = childText(element, "MaxSeconds");
+                        String requestsPerSecond = childText(element, "RequestsPerSecond");
+                        String crawlDelay = childText(element, "CrawlDelay");
+                        String cardSelector = childText(element, "CardSelector");
+                        siteProfiles.put(siteName, SiteProfile.builder()
+                                .name(siteName)
+                                .jobTitleSelector(childText(element, "JobTitleSelector"))
+                                .jobPageSelector(childText(element, "JobPageSelector"))
+                                .nextPageSelector(childText(element, "NextPageSelector"))
+                                .jobUrlPattern(childText(element, "JobUrlPattern"))
+                                .listingCard(cardSelector.isEmpty() ? null : new ListingCard(cardSelector,
+                                        childText(element, "CardTitleSelector"),
+                                        childText(element, "CardCompanySelector"),
+                                        childText(element, "CardLocationSelector"),
+                                        childText(element, "CardPostedSelector")))
+                                .maxPages(maxPages.isEmpty() ? 0 : Integer.parseInt(maxPages))
+                                .maxListings(maxListings.isEmpty() ? 0 : Integer.parseInt(maxListings))
+                                .maxSizeMB(maxSizeMB.isEmpty() ? 0 : Integer.parseInt(maxSizeMB))
+                                .maxSeconds(maxSeconds.isEmpty() ? 0 : Integer.parseInt(maxSeconds))
+                                .requestsPerSecond(requestsPerSecond.isEmpty() ? 0 : Double.parseDouble(requestsPerSecond))
+                                .crawlDelaySeconds(crawlDelay.isEmpty() ? 0 : Double.parseDouble(crawlDelay))
+                                .build());
                         break;
                 }
                 // Get the child nodes of the current node
@@ -119,11 +382,48 @@ public class Config implements IConfigurable {
                 // Recursively process each child node
                 for (int i = 0; i < children.getLength(); i++) {
                     Node childNode = children.item(i);
-                    getAllChildElements(childNode);
+                    getAllChildElements(childNode, sites);
                 }
             }
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Error processing XML node: " + node.getNodeName(), e);
         }
     }
+
+    /**
+     * @return The trimmed text of the first child element with the given tag, or an empty string if there is none.
+     */
+    private static String childText(Element element, String tag) {
+        NodeList nodes = element.getElementsByTagName(tag);
+        return nodes.getLength() == 0 ? "" : nodes.item(0).getTextContent().trim();
+    }
+
+    /**
+     * @param siteName The name of a site.
+     * @return true if the site is in the site list and marked to be searched.
+     */
+    public boolean isSiteEnabled(String siteName) {
+        for (Site site : siteList) {
+            if (site.getName().equals(siteName)) {
+                return site.isSearched();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param siteName The name of a site.
+     * @return The profile of the site, or an empty profile if the configuration has none.
+     */
+    public SiteProfile getSiteProfile(String siteName) {
+        return siteProfiles.getOrDefault(siteName, SiteProfile.EMPTY);
+    }
+
+    /**
+     * Sets the profile of a site, replacing the one from the configuration file.
+     * @param profile The profile, named after its site.
+     */
+    public void setSiteProfile(SiteProfile profile) {
+        siteProfiles.put(profile.getName(), profile);
+    }
 }
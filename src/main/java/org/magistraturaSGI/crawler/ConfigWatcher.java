@@ -0,0 +1,101 @@
+package org.magistraturaSGI.crawler;
+
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a config file and loads it into the configuration whenever it changes, then tells the crawler.
+ * Editors often write a file in several steps, so the file is loaded once it has been quiet for a moment.
+ * A file that cannot be loaded leaves the current settings in place.
+ */
+public class ConfigWatcher implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ConfigWatcher.class.getName());
+    private static final long QUIET_MILLIS = 200;
+
+    private final IConfigurable config;
+    private final Path file;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching the file on a daemon thread.
+     * @param config   The configuration the file is loaded into.
+     * @param file     The config file; its directory must exist, the file itself may be created later.
+     * @param onChange Run after each load, to apply the new settings.
+     * @throws IOException If the directory of the file cannot be watched.
+     */
+    public ConfigWatcher(IConfigurable config, Path file, Runnable onChange) throws IOException {
+        this.config = config;
+        this.file = file.toAbsolutePath();
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.log(Level.INFO, "Watching config file {0} for changes", this.file);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!changed(watchService.take())) {
+                    continue;
+                }
+                WatchKey key;
+                while ((key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed(key);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped by close()
+        }
+    }
+
+    /**
+     * @return true if the events of the key include the watched file.
+     */
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path name && name.equals(file.getFileName())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            config.loadFromFile(file);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not load changed config file " + file + ", keeping the current settings", e);
+            return;
+        }
+        try {
+            onChange.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Could not apply changed config file " + file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -2,19 +2,59 @@
 package org.magistraturaSGI.crawler;
 
 import lombok.Getter;
-import org.jsoup.Jsoup;
+import org.jsoup.HttpStatusException;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-import org.jsoup.select.Selector;
+import org.jsoup.select.Evaluator;
+import org.magistraturaSGI.crawler.cluster.ClusterNode;
+import org.magistraturaSGI.crawler.dataobjects.CrawlDelta;
+import org.magistraturaSGI.crawler.dataobjects.CrawlWork;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
 import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.dataobjects.ListingCard;
 import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.dataobjects.SiteProfile;
+import org.magistraturaSGI.crawler.engine.CrawlEngine;
+import org.magistraturaSGI.crawler.engine.SiteBudget;
+import org.magistraturaSGI.crawler.engine.Stage;
+import org.magistraturaSGI.crawler.export.JobExporters;
+import org.magistraturaSGI.crawler.extract.LinkScanner;
+import org.magistraturaSGI.crawler.extract.TitleExtractor;
+import org.magistraturaSGI.crawler.fetch.HostCircuitBreaker;
+import org.magistraturaSGI.crawler.fetch.HostRateLimiter;
+import org.magistraturaSGI.crawler.fetch.HttpResponseException;
+import org.magistraturaSGI.crawler.fetch.PageFetchers;
+import org.magistraturaSGI.crawler.fetch.RetryPolicy;
+import org.magistraturaSGI.crawler.frontier.Frontier;
+import org.magistraturaSGI.crawler.frontier.RecrawlSchedule;
+import org.magistraturaSGI.crawler.frontier.RobotsTxt;
+import org.magistraturaSGI.crawler.frontier.SitemapReader;
+import org.magistraturaSGI.crawler.frontier.UrlNormalizer;
+import org.magistraturaSGI.crawler.interfaces.IClusterWorker;
+import org.magistraturaSGI.crawler.interfaces.IJobExporter;
+import org.magistraturaSGI.crawler.metrics.CrawlMetrics;
+import org.magistraturaSGI.crawler.metrics.MetricsReporter;
+import org.magistraturaSGI.crawler.metrics.SiteMetrics;
+import org.magistraturaSGI.crawler.interfaces.IPageFetcher;
 import org.magistraturaSGI.crawler.interfaces.ISiteHandler;
+import org.magistraturaSGI.crawler.interfaces.ISitemapListener;
+import org.magistraturaSGI.crawler.store.CrawlJournal;
+import org.magistraturaSGI.crawler.store.DuplicateIndex;
+import org.magistraturaSGI.crawler.store.JobIndex;
+import org.magistraturaSGI.crawler.store.JobStore;
+import org.magistraturaSGI.crawler.store.ResultStore;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,10 +64,31 @@ import java.util.logging.Logger;
 @Getter
 public class Crawler implements Runnable, ISiteHandler {
     private static final Logger logger = Logger.getLogger(Crawler.class.getName());
+    private static final int MAX_SITEMAP_DEPTH = 3; // levels of sitemap indexes followed below robots.txt
     private final Config config; // Configuration settings for the crawler
-    private  final List<JobListing> jobListings = new LinkedList<>(); // List to store job listings
-    private  final ConcurrentLinkedDeque<Site> sitesForSearching = new ConcurrentLinkedDeque<>(); // Queue of sites to be searched
-    private final ReentrantLock lock = new ReentrantLock();
+    private  final ResultStore jobListings = new ResultStore(); // Job listings found by every crawl so far
+    private final JobIndex jobIndex = new JobIndex(jobListings); // Search index over the same listings
+    private  final Frontier sitesForSearching; // Queue of sites to be searched, with every URL seen so far
+    private final List<Site> sitemapSites = new CopyOnWriteArrayList<>(); // Sites the next crawl finds the job pages of in their sitemaps
+    @Getter
+    private final RecrawlSchedule recrawlSchedule; // How often each listing page shows new jobs, which ranks it in the frontier
+    private volatile boolean recrawling; // the next run revisits the pages due, keeping the URLs seen by earlier runs
+    private final IPageFetcher fetcher; // Shared fetch layer used by every stage
+    private final TitleExtractor titleExtractor; // Reads job titles without parsing whole job pages
+    private final DuplicateIndex duplicates; // Finds copies of a job posted on other sites, null if copies are kept
+    private final CrawlMetrics metrics; // Per-site fetch, parse and listing counters, also exposed over JMX
+    private final HostRateLimiter rateLimiter; // Paces the requests to each host by how fast it answers
+    private final RetryPolicy retryPolicy; // Which failed fetches are tried again, and after how long
+    private final HostCircuitBreaker circuitBreaker; // Pauses hosts that keep failing
+    private final ConfigWatcher configWatcher; // Reloads the external config file when it changes, null if there is none
+    private volatile ClusterNode clusterNode; // Connection to the coordinator of a multi-node crawl, null when crawling alone
+    private volatile CrawlEngine engine; // Engine of the crawl in progress, null when not crawling
+    private volatile CrawlJournal journal; // Journal of the crawl in progress, null when not crawling or not checkpointing
+    private CrawlJournal.State resumeState; // Interrupted crawl the next run continues, null to start a new crawl
+    private final Map<String, SiteBudget> budgets = new ConcurrentHashMap<>(); // Limits left to each site in the crawl in progress
+    private volatile long crawlStart; // nanoTime at which the crawl in progress started
+    private JobStore jobStore; // Listings found by earlier crawls, null unless crawling incrementally
+    private CrawlDelta lastDelta; // New, removed and unchanged listings of the last incremental crawl
 
     private String jobTitleSelector = "";
     private String jobPageSelector = "";
@@ -38,186 +99,985 @@ public class Crawler implements Runnable, ISiteHandler {
      */
     public Crawler() {
         config = new Config();
+        sitesForSearching = Frontier.create(config);
+        recrawlSchedule = RecrawlSchedule.create(config);
+        sitesForSearching.setPriority(recrawlSchedule);
+        fetcher = PageFetchers.create(config);
+        titleExtractor = new TitleExtractor(config.getTitleScanMaxBytes());
+        metrics = new CrawlMetrics(config.isJmxEnabled());
+        duplicates = config.getDuplicateIndexCapacity() > 0
+                ? new DuplicateIndex(config.getDuplicateIndexCapacity(), config.getDuplicateMaxDistance()) : null;
+        rateLimiter = HostRateLimiter.create(config);
+        retryPolicy = RetryPolicy.create(config);
+        circuitBreaker = HostCircuitBreaker.create(config);
+        configureHosts();
+        configWatcher = watchConfig();
     }
 
     /**
-     * Queues the sites to be searched from the configuration settings.
+     * Sets the rate limit of each site's host from its profile.
      */
-    public void addSitesToSearch() {
-        lock.lock();
+    private void configureHosts() {
+        for (Site site : config.getSiteList()) {
+            SiteProfile profile = profileFor(site);
+            rateLimiter.configureHost(HostRateLimiter.host(site.getUrl()), profile.getRequestsPerSecond(),
+                    Duration.ofMillis((long) (profile.getCrawlDelaySeconds() * 1000)));
+        }
+    }
+
+    /**
+     * Starts watching the external config file, if one is set.
+     * @return The watcher, or null if there is no external config file or its directory cannot be watched.
+     */
+    private ConfigWatcher watchConfig() {
+        if (config.getExternalConfigFile().isBlank()) {
+            return null;
+        }
         try {
-            for (Site site : config.getSiteList()) {
-                if (site.isSearched()) {
-                    sitesForSearching.push(site);
-                    logger.log(Level.INFO, "Added site to search queue: {0}", site.getUrl());
+            return new ConfigWatcher(config, Path.of(config.getExternalConfigFile()), this::applyConfig);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Could not watch config file " + config.getExternalConfigFile(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Applies changed settings to the crawl in progress: the in-flight limit, the workers of each stage,
+     * the rate limit of each host and the sites to search. Selectors and budgets are read from the site
+     * profiles as pages are handled, so they apply to the next page. Disabled sites are no longer fetched,
+     * and enabled sites that were not searched yet are queued. The frontier and the fetches in flight are kept.
+     */
+    public void applyConfig() {
+        configureHosts();
+        CrawlEngine crawlEngine = engine;
+        if (crawlEngine == null) {
+            return;
+        }
+        crawlEngine.setMaxInFlight(config.getMaxInFlight());
+        setWorkers(crawlEngine, "listing-fetch", config.getThreadCount());
+        setWorkers(crawlEngine, "link-extract", config.getExtractWorkers());
+        setWorkers(crawlEngine, "detail-fetch", config.getDetailFetchWorkers());
+        setWorkers(crawlEngine, "title-extract", config.getExtractWorkers());
+        if (clusterNode != null) {
+            return; // the coordinator seeds the sites of a multi-node crawl
+        }
+        CrawlJournal crawlJournal = journal;
+        for (Site site : config.getSiteList()) {
+            if (site.isSearched() && crawlEngine.enqueue(sitesForSearching, site)) {
+                if (crawlJournal != null) {
+                    crawlJournal.queued(site);
                 }
+                logger.log(Level.INFO, "Added site to search queue: {0}", site.getUrl());
             }
-        } finally {
-            logger.log(Level.INFO,"Loaded sites to search from the config.");
-            lock.unlock();
+        }
+    }
+
+    private static void setWorkers(CrawlEngine crawlEngine, String stageName, int workers) {
+        Stage<?> stage = crawlEngine.getStage(stageName);
+        if (stage != null) {
+            stage.setWorkers(workers);
+        }
+    }
+
+    /**
+     * Opens the job store the first time an incremental crawl runs.
+     * @return The job store, or null if incremental crawling is off or the store cannot be opened.
+     */
+    private JobStore openJobStore() {
+        if (jobStore == null && config.isIncrementalCrawl()) {
+            try {
+                jobStore = new JobStore(Path.of(config.getJobStoreFile()));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not open the job store, crawling every job page", e);
+            }
+        }
+        return config.isIncrementalCrawl() ? jobStore : null;
+    }
+
+    /**
+     * Opens the export file that listings are streamed to during the crawl.
+     * @return The exporter, or null if streaming export is off or the file cannot be created.
+     */
+    private IJobExporter openExporter() {
+        if (!config.isStreamExport()) {
+            return null;
+        }
+        try {
+            return JobExporters.create(Path.of(config.getExportFile()), config.getExportBatchSize());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not open the export file " + config.getExportFile(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Queues the sites to be searched from the configuration settings, forgetting the URLs seen by an earlier crawl.
+     * When sitemap discovery is on, sites with a job URL pattern are read from their sitemaps instead,
+     * and their listing pages are only crawled if the sitemaps list no job pages.
+     */
+    public void addSitesToSearch() {
+        resumeState = null;
+        recrawling = false;
+        sitesForSearching.clear();
+        sitemapSites.clear();
+        for (Site site : config.getSiteList()) {
+            if (site.isSearched()) {
+                recrawlSchedule.addFirstPage(site);
+            }
+            if (site.isSearched() && isSitemapSite(site)) {
+                sitemapSites.add(site);
+                logger.log(Level.INFO, "Added site to sitemap discovery: {0}", site.getUrl());
+            } else if (site.isSearched()) {
+                sitesForSearching.push(site);
+                logger.log(Level.INFO, "Added site to search queue: {0}", site.getUrl());
+            }
+        }
+        logger.log(Level.INFO,"Loaded sites to search from the config.");
+    }
+
+    /**
+     * @return true if the job pages of the site are found in its sitemaps rather than on its listing pages.
+     */
+    private boolean isSitemapSite(Site site) {
+        return config.isSitemapDiscovery() && profileFor(site).getJobUrl() != null;
+    }
+
+    /**
+     * Queues the listing pages that are due to be crawled again by the recrawl schedule, and the sitemaps of sites
+     * found by sitemap discovery when they are due. The URLs seen by earlier crawls stay seen, so the next
+     * {@link #run()} only fetches the job pages that are new since then. Pages are queued by rank: first pages,
+     * then the pages expected to show the most new jobs.
+     * @return The number of pages queued.
+     */
+    public int queueRecrawl() {
+        resumeState = null;
+        recrawling = true;
+        sitemapSites.clear();
+        int queued = 0;
+        for (Site page : recrawlSchedule.due(Instant.now())) {
+            if (!config.isSiteEnabled(page.getName())) {
+                continue;
+            }
+            Site site = config.getSiteList().stream().filter(s -> s.getName().equals(page.getName())).findFirst().orElse(null);
+            if (site != null && isSitemapSite(site) && UrlNormalizer.normalize(site.getUrl()).equals(page.getUrl())) {
+                sitemapSites.add(site);
+                queued++;
+            } else if (sitesForSearching.revisit(page)) {
+                queued++;
+            }
+        }
+        logger.log(Level.INFO, "Queued {0} pages due to be crawled again", queued);
+        return queued;
+    }
+
+    /**
+     * Queues the pages an interrupted crawl had not handled, replayed from its journal, instead of the sites
+     * from the configuration. Every URL the interrupted crawl saw stays seen and its listings are kept,
+     * so the next {@link #run()} continues that crawl rather than starting over.
+     * @return false if checkpointing is off or there is no journal to resume from.
+     */
+    public boolean resumeCrawl() {
+        if (config.getCheckpointFile().isBlank()) {
+            return false;
+        }
+        CrawlJournal.State state;
+        try {
+            state = CrawlJournal.replay(Path.of(config.getCheckpointFile()));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read the crawl journal " + config.getCheckpointFile(), e);
+            return false;
+        }
+        if (state == null) {
+            return false;
+        }
+        sitesForSearching.clear();
+        sitemapSites.clear(); // the job pages found in sitemaps are in the journal
+        state.getPendingPages().forEach(sitesForSearching::push);
+        state.getSeen().forEach(sitesForSearching::markSeen);
+        if (jobListings.size() == 0) { // a new process has lost the listings of the interrupted crawl
+            state.getListings().forEach((site, listings) -> listings.forEach(listing -> collect(site, listing)));
+        }
+        resumeState = state;
+        recrawling = false;
+        logger.log(Level.INFO, "Resuming crawl with {0} pages and {1} job pages left",
+                new Object[]{state.getPendingPages().size(), state.getPendingJobs().size()});
+        return true;
+    }
+
+    /**
+     * Starts the journal of the crawl about to run, continuing the journal of a resumed crawl.
+     * @return The journal, or null if checkpointing is off or the journal cannot be written.
+     */
+    private CrawlJournal openJournal(CrawlJournal.State resumed) {
+        if (config.getCheckpointFile().isBlank()) {
+            return null;
+        }
+        Path file = Path.of(config.getCheckpointFile());
+        Duration interval = Duration.ofSeconds(Math.max(1, config.getCheckpointIntervalSeconds()));
+        try {
+            return resumed != null ? CrawlJournal.resume(file, interval, resumed)
+                    : CrawlJournal.create(file, interval, sitesForSearching.pending());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not write the crawl journal, the crawl cannot be resumed", e);
+            return null;
         }
     }
 
+    /**
+     * Closes the journal; it is deleted once the crawl is complete, as there is nothing left to resume.
+     */
+    private void closeJournal(CrawlJournal crawlJournal, boolean complete) {
+        if (crawlJournal == null) {
+            return;
+        }
+        try {
+            if (complete) {
+                crawlJournal.discard();
+            } else {
+                crawlJournal.close();
+                logger.log(Level.INFO, "Crawl can be resumed from {0}", crawlJournal.getFile());
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not close the crawl journal " + crawlJournal.getFile(), e);
+        }
+    }
+
+    /**
+     * Charges the budgets of the crawl with the pages and listings of the interrupted crawl it continues.
+     */
+    private void restoreBudgets(CrawlJournal.State resumed) {
+        resumed.getPagesQueued().forEach((name, pages) -> {
+            SiteBudget budget = budgetFor(new Site(name, "", true));
+            for (int i = 0; i < pages; i++) {
+                budget.tryQueuePage();
+            }
+        });
+        resumed.getListings().forEach((name, listings) -> {
+            SiteBudget budget = budgetFor(new Site(name, "", true));
+            listings.forEach(listing -> budget.listingFound());
+        });
+    }
+
+    /**
+     * Returns the profile of the provided site, with the compiled selectors used to extract job titles,
+     * job page links and next page links.
+     *
+     * @param site The site for which the profile is looked up.
+     * @return The profile of the site from the configuration, or an empty profile for unknown sites.
+     */
+    public SiteProfile profileFor(Site site) {
+        return config.getSiteProfile(site.getName());
+    }
+
     /**
      * Sets selectors based on the provided site, specifying how to extract job titles, job page links, and next page links.
+     * Crawl tasks use {@link #profileFor(Site)} instead, so they never share these fields.
      *
      * @param site The site for which selectors are being set.
      */
     public void setSiteSelectors(Site site) {
-        switch (site.getName()) {
-            case "JOBS.BG":
-                jobTitleSelector = "h2[class*=job-view-title]";
-                jobPageSelector = "a[href^=https://www.jobs.bg/job/]";
-                nextPageSelector = "";
-                break;
-            case "OLX":
-                jobTitleSelector = "h1[class*=css-tcqyb]";
-                jobPageSelector = "a[href^=https://www.olx.bg/ad/job/]";
-                nextPageSelector = "li > a[href*=/rabota/?page=";
-                break;
-            case "Yox":
-                jobTitleSelector = "h1[data-job-component*=title]";
-                jobPageSelector = "a[href^=https://yox.bg/jobs/]";
-                nextPageSelector = "a[href*=/search?o=]";
-                break;
-            case "RabotniMesta":
-                jobTitleSelector = "h3[class*=title]";
-                jobPageSelector = "a[href*=/обява/]";
-                nextPageSelector = "a[href*=/работа/?&p=]";
-                break;
-        }
-    }
-
-    /**
-     * Finds and adds links to other pages in the queue of sites for searching.
-     * @param site The site from which to find page links.
-     */
-    public void findPageLinks(Site site) {
-        lock.lock();
-        try {
-            if (site.isSearched()) {
-                setSiteSelectors(site);
-                Document document;
-                Elements pageLinks;
-                try {
-                    document = Jsoup.connect(site.getUrl()).userAgent("Mozilla 5.0").get();
-                } catch (IOException e) {
-                    logger.log(Level.SEVERE, "Error connecting to site: " + site.getUrl(), e);
-                    return;
-                }
-                try {
-                    pageLinks = document.select(nextPageSelector);
-                } catch (Selector.SelectorParseException e) {
-                    logger.log(Level.WARNING, "Error parsing selector on site: " + site.getUrl(), e);
-                    return;
-                }
-                // add all links to other pages
-                for (Element link : pageLinks) {
-                    Site newSite = new Site(site.getName(), link.attr("abs:href"), true);
-                    if (!sitesForSearching.contains(newSite)) {
-                        sitesForSearching.push(newSite);
-                        logger.log(Level.INFO, "Added site for searching: {0}", newSite.getUrl());
+        SiteProfile profile = profileFor(site);
+        jobTitleSelector = profile.getJobTitleSelector();
+        jobPageSelector = profile.getJobPageSelector();
+        nextPageSelector = profile.getNextPageSelector();
+    }
+
+    /**
+     * Finds the links to other pages of the site on a fetched listing page.
+     * @param site     The site the page belongs to.
+     * @param document The fetched listing page.
+     * @return The pages linked by the site's next page selector.
+     */
+    public List<Site> findPageLinks(Site site, Document document) {
+        Evaluator nextPage = profileFor(site).getNextPage();
+        if (nextPage == null) {
+            return List.of();
+        }
+        List<Site> pages = new ArrayList<>();
+        for (Element link : document.select(nextPage)) {
+            pages.add(new Site(site.getName(), link.attr("abs:href"), true));
+        }
+        return pages;
+    }
+
+    /**
+     * Finds the links to other pages of the site in the HTML of a listing page, without parsing it.
+     * @param site    The site the page belongs to.
+     * @param html    The HTML of the listing page.
+     * @param pageUrl The URL of the page.
+     * @return The pages linked by the site's next page selector, if it only matches hrefs.
+     */
+    public List<Site> findPageLinks(Site site, String html, String pageUrl) {
+        LinkScanner nextPage = profileFor(site).getNextPageLinks();
+        if (nextPage == null) {
+            return List.of();
+        }
+        List<Site> pages = new ArrayList<>();
+        for (String url : nextPage.scan(html, pageUrl)) {
+            pages.add(new Site(site.getName(), url, true));
+        }
+        return pages;
+    }
+
+    /**
+     * Finds the links to job pages in the HTML of a listing page, without parsing it.
+     * @param site    The site the page belongs to.
+     * @param html    The HTML of the listing page.
+     * @param pageUrl The URL of the page.
+     * @return The normalized URLs of the job pages, if the site's job page selector only matches hrefs.
+     */
+    public List<String> findJobLinks(Site site, String html, String pageUrl) {
+        LinkScanner jobPage = profileFor(site).getJobPageLinks();
+        if (jobPage == null) {
+            return List.of();
+        }
+        List<String> jobUrls = new ArrayList<>();
+        for (String url : jobPage.scan(html, pageUrl)) {
+            jobUrls.add(UrlNormalizer.normalize(url));
+        }
+        return jobUrls;
+    }
+
+    /**
+     * Finds the links to job pages on a fetched listing page.
+     * @param site     The site the page belongs to.
+     * @param document The fetched listing page.
+     * @return The normalized URLs of the job pages.
+     */
+    public List<String> findJobLinks(Site site, Document document) {
+        Evaluator jobPage = profileFor(site).getJobPage();
+        if (jobPage == null) {
+            return List.of();
+        }
+        List<String> jobUrls = new ArrayList<>();
+        for (Element link : document.select(jobPage)) {
+            jobUrls.add(UrlNormalizer.normalize(link.attr("abs:href")));
+        }
+        return jobUrls;
+    }
+
+    /**
+     * Reads the job listings from the cards of a fetched listing page, for a site whose profile has card selectors.
+     * @param site     The site the page belongs to.
+     * @param document The fetched listing page.
+     * @return The listings, with normalized URLs; a listing's title is empty if its card shows none.
+     * Empty if the site has no card selectors or none of its cards are on the page.
+     */
+    public List<JobListing> findJobCards(Site site, Document document) {
+        SiteProfile profile = profileFor(site);
+        ListingCard listingCard = profile.getListingCard();
+        if (listingCard == null) {
+            return List.of();
+        }
+        List<JobListing> cards = new ArrayList<>();
+        for (Element card : document.select(listingCard.getCard())) {
+            JobListing listing = listingCard.read(card, profile.getJobPage());
+            if (listing != null) {
+                cards.add(new JobListing(listing.getTitle(), UrlNormalizer.normalize(listing.getUrl()),
+                        listing.getCompany(), listing.getLocation(), listing.getPosted()));
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Reads the job listing from a fetched job page.
+     * @param site     The site the job page was found on.
+     * @param jobUrl   The absolute URL of the job page.
+     * @param document The fetched job page.
+     * @return The job listing, or null if the site has no title selector.
+     */
+    public JobListing findJobListing(Site site, String jobUrl, Document document) {
+        Evaluator jobTitle = profileFor(site).getJobTitle();
+        if (jobTitle == null) {
+            logger.log(Level.WARNING, "No job title selector configured for site: {0}", site.getName());
+            return null;
+        }
+        return new JobListing(document.select(jobTitle).text(), jobUrl);
+    }
+
+    /**
+     * Reads the job listing from a fetched job page, parsing only as much of the page as needed to find the title.
+     * @param site   The site the job page was found on.
+     * @param jobUrl The absolute URL of the job page.
+     * @param page   The fetched job page.
+     * @return The job listing.
+     * @throws IOException If the page cannot be decoded.
+     */
+    public JobListing findJobListing(Site site, String jobUrl, FetchedPage page) throws IOException {
+        return new JobListing(titleExtractor.extract(page, profileFor(site).getJobTitle()), jobUrl);
+    }
+
+    /**
+     * @param site A site being crawled.
+     * @return What the site may still use of the crawl in progress.
+     */
+    public SiteBudget budgetFor(Site site) {
+        return budgets.computeIfAbsent(site.getName(), name -> new SiteBudget(profileFor(site), crawlStart));
+    }
+
+    /**
+     * Fetches a page through the shared fetcher once its host's rate limit allows it and the engine has a free
+     * in-flight permit, recording its latency, status and size in the site's metrics.
+     * The host's rate is adapted to the response: waiting for the host does not hold a permit.
+     * Transient failures are retried after a jittered, growing backoff; pages of a host whose circuit is open
+     * are skipped at once.
+     * No fetch is started once the crawl is draining, or the site is disabled or its budget is used up.
+     * @return The fetched page, or null if it could not or must not be fetched.
+     */
+    private FetchedPage fetchPage(CrawlEngine crawlEngine, Site site, String url) throws Exception {
+        return fetchPage(crawlEngine, site, url, 0);
+    }
+
+    /**
+     * Fetches a page as {@link #fetchPage(CrawlEngine, Site, String)} does, reading at most the given body size.
+     * @param maxBodySize The most bytes of the body read, 0 for MaxBodySize.
+     */
+    private FetchedPage fetchPage(CrawlEngine crawlEngine, Site site, String url, int maxBodySize) throws Exception {
+        SiteMetrics siteMetrics = metrics.site(site.getName());
+        SiteBudget budget = budgetFor(site);
+        for (int retry = 1; ; retry++) {
+            if (!circuitBreaker.allow(url)) {
+                siteMetrics.skipped();
+                logger.log(Level.FINE, "Skipped fetching {0}, its host is paused after failing", url);
+                return null;
+            }
+            if (!rateLimiter.acquire(url, () -> crawlEngine.isDraining() || budget.isExhausted()
+                    || !config.isSiteEnabled(site.getName()))) {
+                logger.log(Level.FINE, "Skipped fetching {0}, the crawl is draining or the site is disabled or out of budget", url);
+                return null;
+            }
+            try {
+                FetchedPage page = crawlEngine.fetch(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        FetchedPage fetched = fetcher.fetch(url, Map.of(), maxBodySize);
+                        long latency = System.nanoTime() - start;
+                        long downloaded = fetched.isFromCache() ? 0 : fetched.getBody().length; // a 304 downloads no body
+                        siteMetrics.fetched(latency, fetched.getStatusCode(), downloaded);
+                        budget.fetched(downloaded);
+                        rateLimiter.onResponse(url, latency, fetched.getStatusCode(), null);
+                        return fetched;
+                    } catch (HttpStatusException e) {
+                        long latency = System.nanoTime() - start;
+                        siteMetrics.failed(latency, e.getStatusCode());
+                        rateLimiter.onResponse(url, latency, e.getStatusCode(),
+                                e instanceof HttpResponseException response ? response.retryAfter() : null);
+                        throw e;
+                    } catch (IOException e) {
+                        siteMetrics.failed(System.nanoTime() - start);
+                        throw e;
                     }
+                });
+                circuitBreaker.onSuccess(url);
+                return page;
+            } catch (CancellationException e) {
+                logger.log(Level.FINE, "Skipped fetching {0}, the crawl is draining", url);
+                return null;
+            } catch (IOException e) {
+                boolean transientFailure = RetryPolicy.isTransient(e);
+                if (transientFailure) {
+                    circuitBreaker.onFailure(url);
+                } else if (e instanceof HttpStatusException) {
+                    circuitBreaker.onSuccess(url); // the host answered, only the page is bad
                 }
-                site.setSearched(false);
-                logger.log(Level.INFO,"Finished searching site: {0}", site.getUrl());
+                if (!transientFailure || retry > retryPolicy.getMaxRetries() || crawlEngine.isDraining()) {
+                    logger.log(Level.SEVERE, "Error connecting to site: " + url, e);
+                    return null;
+                }
+                Duration backoff = retryPolicy.backoff(retry);
+                siteMetrics.retried();
+                logger.log(Level.INFO, "Retrying {0} in {1} ms after: {2}", new Object[]{url, backoff.toMillis(), e.toString()});
+                Thread.sleep(backoff);
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Fetches a page like {@link #fetchPage(CrawlEngine, Site, String)}, then parses it.
+     * @return The parsed page, or null if it could not be fetched.
+     */
+    private Document fetchDocument(CrawlEngine crawlEngine, Site site, String url) throws Exception {
+        FetchedPage page = fetchPage(crawlEngine, site, url);
+        if (page == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            return page.toDocument();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error parsing site: " + url, e);
+            return null;
         } finally {
-            lock.unlock();
+            metrics.site(site.getName()).parsed(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Fetches a listing page. Its HTML is only parsed if the site's selectors need a DOM;
+     * otherwise its links are found by scanning the HTML.
+     * @return The page, or null if it could not be fetched or parsed.
+     */
+    private ListingPage fetchListingPage(CrawlEngine crawlEngine, Site site) throws Exception {
+        if (!config.isFastLinkScan() || !profileFor(site).isLinkScannable()) {
+            Document document = fetchDocument(crawlEngine, site, site.getUrl());
+            return document == null ? null : new ListingPage(site, document, null, site.getUrl());
+        }
+        FetchedPage page = fetchPage(crawlEngine, site, site.getUrl());
+        if (page == null) {
+            return null;
         }
+        long start = System.nanoTime();
+        String html = LinkScanner.decode(page);
+        metrics.site(site.getName()).parsed(System.nanoTime() - start);
+        return new ListingPage(site, null, html, page.getUrl());
     }
 
     /**
-     * Finds and adds job listings from the site queue to the jobs list.
+     * Finds the job pages of a site in its sitemaps: those listed in its robots.txt, or /sitemap.xml if it lists none.
+     * Sitemap indexes are followed down to {@value #MAX_SITEMAP_DEPTH} levels. Each sitemap is parsed as a stream,
+     * so a large gzipped sitemap is never held decompressed. The crawl-delay of robots.txt applies to the site's host
+     * when it is longer than the configured one.
+     * @param jobs Queues the job pages that match the site's job URL pattern.
+     * @return The number of job pages found, 0 if the site has no readable sitemap.
      */
-    public void findJobListings() {
-        lock.lock();
+    private int readSitemaps(CrawlEngine crawlEngine, Site site, JobQueue jobs) throws Exception {
+        SiteProfile profile = profileFor(site);
+        String root;
         try {
-            Site site;
-            Document document;
-            final boolean[] stop = {false};
-            Timer timer = new Timer("ListingTimer");
-            TimerTask stopThread = new TimerTask()  {
-                public void run()  {
-                    stop[0] = true;
-                    notifyAll();
-                }
-            };
-            long delay = config.getDeathTimer()* 1000L;
-            timer.schedule(stopThread, delay);
-            do {
-                site = sitesForSearching.poll();
-                if (site != null) {
-                    try {
-                        document = Jsoup.connect(site.getUrl()).userAgent("Mozilla 5.0").get();
-                    } catch (IOException e) {
-                        logger.log(Level.SEVERE, "Error connecting to site: " + site.getUrl(), e);
-                        return;
+            URI uri = URI.create(site.getUrl());
+            root = uri.getScheme() + "://" + uri.getRawAuthority();
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.WARNING, "Cannot read the sitemaps of site {0}, its URL is invalid", site.getName());
+            return 0;
+        }
+        List<String> roots = List.of(root + "/sitemap.xml");
+        FetchedPage robotsPage = fetchPage(crawlEngine, site, root + "/robots.txt");
+        if (robotsPage != null) {
+            RobotsTxt robots = RobotsTxt.parse(new String(robotsPage.getBody(), StandardCharsets.UTF_8), config.getUserAgent());
+            if (!robots.getSitemaps().isEmpty()) {
+                roots = robots.getSitemaps();
+            }
+            if (robots.getCrawlDelay().toMillis() > profile.getCrawlDelaySeconds() * 1000) {
+                rateLimiter.setCrawlDelay(HostRateLimiter.host(site.getUrl()), robots.getCrawlDelay());
+            }
+        }
+        SiteBudget budget = budgetFor(site);
+        int maxSitemapSize = config.getMaxSitemapSize() > 0 ? config.getMaxSitemapSize() : Integer.MAX_VALUE;
+        Deque<String> sitemaps = new ArrayDeque<>(roots);
+        Map<String, Integer> depths = new HashMap<>(); // sitemap URL -> levels below robots.txt
+        roots.forEach(url -> depths.put(url, 0));
+        int[] found = new int[2]; // job pages, and those not seen before
+        boolean read = false;
+        while (!sitemaps.isEmpty() && !budget.isExhausted() && !crawlEngine.isDraining()) {
+            String url = sitemaps.poll();
+            int depth = depths.get(url);
+            FetchedPage page = fetchPage(crawlEngine, site, url, maxSitemapSize);
+            if (page == null) {
+                continue;
+            }
+            if (page.isTruncated()) { // a partial sitemap fails to parse at its cut, losing the rest of it
+                logger.log(Level.WARNING, "Skipped sitemap {0}, it is larger than MaxSitemapSize ({1} bytes)",
+                        new Object[]{url, maxSitemapSize});
+                continue;
+            }
+            try {
+                int pages = SitemapReader.read(new ByteArrayInputStream(page.getBody()), new ISitemapListener() {
+                    @Override
+                    public void sitemap(String sitemap) {
+                        if (depth < MAX_SITEMAP_DEPTH && depths.putIfAbsent(sitemap, depth + 1) == null) {
+                            sitemaps.add(sitemap);
+                        }
                     }
-                    Elements jobLinks;
-                    setSiteSelectors(site);
-                    try {
-                        jobLinks = document.select(jobPageSelector);
-                    } catch (Selector.SelectorParseException e) {
-                        logger.log(Level.WARNING, "Error parsing selector on site: " + site.getUrl(), e);
-                        return;
+
+                    @Override
+                    public boolean page(String pageUrl, Instant lastModified) throws InterruptedException {
+                        String jobUrl = UrlNormalizer.normalize(pageUrl);
+                        if (profile.isJobUrl(jobUrl)) {
+                            found[0]++;
+                            if (jobs.offer(site, jobUrl, lastModified)) {
+                                found[1]++;
+                            }
+                        }
+                        return !budget.isExhausted() && !crawlEngine.isDraining();
                     }
-                    // add all links to other pages
-                    for (Element link : jobLinks) {
-                        try {
-                            document = Jsoup.connect(link.attr("abs:href")).get();
-                        } catch (IOException e) {
-                            logger.log(Level.SEVERE, "Error connecting to site: " + site.getUrl(), e);
-                            return;
+                });
+                read = true;
+                logger.log(Level.INFO, "Read {0} pages from sitemap {1}", new Object[]{pages, url});
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not read sitemap " + url, e);
+            }
+        }
+        if (read) {
+            recrawlSchedule.visited(new Site(site.getName(), UrlNormalizer.normalize(site.getUrl()), true), found[1], Instant.now());
+        }
+        return found[0];
+    }
+
+    /**
+     * Crawls every site in the queue through a pipeline of stages:
+     * listing-page fetch, link extraction, detail fetch, title extraction and the jobs list.
+     * Job pages are not parsed whole: title extraction stops at the title element. Listing pages are not parsed
+     * at all when the site's link selectors only match hrefs; their HTML is scanned for the links instead.
+     * Each stage has its own bounded queue and workers, so job pages are fetched as soon as the first listing page
+     * is parsed. Returns when all stages have run dry, or when the DeathTimer expires: then no new fetches are started,
+     * and the fetches in flight get DrainSeconds to finish and pass their listings on to the jobs list.
+     * Each site's profile sets its selectors and its budget: how many listing pages, listings, megabytes and seconds
+     * it may use. A site whose budget is used up is no longer fetched.
+     * A site with card selectors has its listings read from the cards of its listing pages, and a job page is
+     * only fetched for a card that shows no title; a listing page without cards falls back to the job page links.
+     * When crawling incrementally, job pages already in the job store are not fetched again.
+     * When streaming export is on, every listing is also written to the export file as it reaches the jobs list.
+     * While the crawl runs, a metrics summary is printed every MetricsIntervalSeconds.
+     * Requests to each host are paced by its adaptive rate limit rather than by a fixed pause.
+     * Sites found by sitemap discovery start in a stage of their own that reads their sitemaps; a job page
+     * the job store knows is fetched again only if its sitemap dates it after the last complete crawl.
+     * Listing pages are taken from the frontier by rank, each site in turn; every visit teaches the recrawl schedule
+     * how often the page shows new jobs.
+     */
+    @Override
+    public void run() {
+        ClusterNode cluster = clusterNode;
+        CrawlJournal.State resumed = cluster == null ? resumeState : null;
+        resumeState = null;
+        List<Site> discovered = cluster == null ? List.copyOf(sitemapSites) : List.of();
+        sitemapSites.clear();
+        boolean recrawl = recrawling;
+        recrawling = false;
+        JobStore store = cluster == null ? openJobStore() : null;
+        IJobExporter exporter = cluster == null ? openExporter() : null;
+        CrawlJournal crawlJournal = cluster == null ? openJournal(resumed) : null;
+        journal = crawlJournal;
+        Set<String> crawledSites = ConcurrentHashMap.newKeySet(); // sites with at least one listing page fetched
+        Set<String> copied = ConcurrentHashMap.newKeySet(); // listings this crawl found copies of on other sites
+        boolean complete = false;
+        budgets.clear();
+        crawlStart = System.nanoTime();
+        if (resumed != null) {
+            restoreBudgets(resumed);
+        }
+        try (CrawlEngine crawlEngine = new CrawlEngine(config.getMaxInFlight());
+             MetricsReporter reporter = new MetricsReporter(metrics, Duration.ofSeconds(config.getMetricsIntervalSeconds()), System.out)) {
+            engine = crawlEngine;
+            metrics.beginCrawl(sitesForSearching, crawlEngine);
+            if (store != null) {
+                store.beginCrawl();
+            }
+            int capacity = config.getStageQueueCapacity();
+            Stage<FoundJob> sink = crawlEngine.addStage("sink", capacity, 1, found -> {
+                String copyOf = collect(found.site().getName(), found.listing());
+                if (copyOf != null) {
+                    copied.add(copyOf);
+                }
+                metrics.site(found.site().getName()).listingFound();
+                budgetFor(found.site()).listingFound();
+                if (cluster != null) {
+                    cluster.result(found.site().getName(), found.listing());
+                }
+                if (crawlJournal != null) {
+                    crawlJournal.listingFound(found.site().getName(), found.listing());
+                }
+                if (exporter != null && copyOf == null) {
+                    exporter.write(found.listing());
+                }
+                logger.log(Level.INFO, "Added job listing: {0}", found.listing().getUrl());
+            });
+            Stage<DetailPage> titles = crawlEngine.addStage("title-extract", capacity, config.getExtractWorkers(), page -> {
+                long start = System.nanoTime();
+                JobListing listing = findJobListing(page.site(), page.url(), page.page());
+                metrics.site(page.site().getName()).parsed(System.nanoTime() - start);
+                if (store != null) {
+                    store.add(page.site().getName(), listing);
+                }
+                sink.put(new FoundJob(page.site(), listing));
+            });
+            Stage<JobLink> details = crawlEngine.addStage("detail-fetch", capacity, config.getDetailFetchWorkers(), link -> {
+                FetchedPage page = fetchPage(crawlEngine, link.site(), link.url());
+                if (page != null) {
+                    titles.put(new DetailPage(link.site(), link.url(), page));
+                } else if (crawlJournal != null && !crawlEngine.isDraining()) {
+                    crawlJournal.handled(link.url());
+                }
+            });
+            JobQueue jobs = new JobQueue(sink, details, store, crawlJournal);
+            Stage<ListingPage> links = crawlEngine.addStage("link-extract", capacity, config.getExtractWorkers(), page -> {
+                SiteBudget budget = budgetFor(page.site());
+                List<Site> pageLinks = page.document() != null ? findPageLinks(page.site(), page.document())
+                        : findPageLinks(page.site(), page.html(), page.url());
+                for (Site newSite : pageLinks) {
+                    if (!budget.tryQueuePage()) {
+                        logger.log(Level.FINE, "Reached MaxPages for site: {0}", page.site().getName());
+                        break;
+                    }
+                    if (cluster != null) {
+                        route(cluster, CrawlWork.Kind.LISTING, newSite.getName(), newSite.getUrl());
+                    } else if (crawlEngine.enqueue(sitesForSearching, newSite)) {
+                        if (crawlJournal != null) {
+                            crawlJournal.queued(newSite);
+                        }
+                        logger.log(Level.INFO, "Added site for searching: {0}", newSite.getUrl());
+                    } else {
+                        budget.unqueuePage();
+                    }
+                }
+                int newJobs = 0;
+                List<JobListing> cards = page.document() != null ? findJobCards(page.site(), page.document()) : List.of();
+                for (JobListing card : cards) {
+                    if (budget.isExhausted()) {
+                        break;
+                    }
+                    if (card.getTitle().isEmpty()) { // the card lacks the listing, so its job page is fetched
+                        if (cluster != null) {
+                            route(cluster, CrawlWork.Kind.JOB, page.site().getName(), card.getUrl());
+                        } else if (jobs.offer(page.site(), card.getUrl(), null)) {
+                            newJobs++;
                         }
-                        String title;
-                        try {
-                            title = document.select(jobTitleSelector).text();
-                        } catch (Selector.SelectorParseException e) {
-                            logger.log(Level.WARNING, "Error parsing selector on site: " + site.getUrl(), e);
-                            return;
+                    } else if (sitesForSearching.markSeen(card.getUrl())) {
+                        newJobs++;
+                        if (store != null) {
+                            store.markSeen(card.getUrl());
+                            store.add(page.site().getName(), card);
                         }
-                        JobListing newListing = new JobListing(title, link.attr("abs:href"));
-                        jobListings.add(newListing);
-                        logger.log(Level.INFO, "Added job listing: {0}", newListing.getUrl());
+                        sink.put(new FoundJob(page.site(), card));
+                    }
+                }
+                List<String> jobLinks = !cards.isEmpty() ? List.of() : page.document() != null
+                        ? findJobLinks(page.site(), page.document()) : findJobLinks(page.site(), page.html(), page.url());
+                for (String jobUrl : jobLinks) {
+                    if (budget.isExhausted()) {
+                        break;
                     }
+                    if (cluster != null) {
+                        route(cluster, CrawlWork.Kind.JOB, page.site().getName(), jobUrl);
+                        continue;
+                    }
+                    if (jobs.offer(page.site(), jobUrl, null)) {
+                        newJobs++;
+                    }
+                }
+                if (cluster == null) { // a node does not see which jobs the other nodes found first
+                    recrawlSchedule.visited(page.site(), newJobs, Instant.now());
+                }
+                if (crawlJournal != null) {
+                    crawlJournal.handled(page.site().getUrl());
                 }
-            } while (!sitesForSearching.isEmpty() && !stop[0]);
+                logger.log(Level.INFO, "Finished searching site: {0}", page.site().getUrl());
+            });
+            Stage<Site> listings = crawlEngine.addStage("listing-fetch", capacity, config.getThreadCount(), site -> {
+                ListingPage page = fetchListingPage(crawlEngine, site);
+                if (page != null) {
+                    crawledSites.add(site.getName());
+                    links.put(page);
+                } else if (crawlJournal != null && !crawlEngine.isDraining()) {
+                    crawlJournal.handled(site.getUrl());
+                }
+            });
+            Stage<Site> sitemaps = crawlEngine.addStage("sitemap-read", capacity, config.getThreadCount(), site -> {
+                int found = readSitemaps(crawlEngine, site, jobs);
+                if (found > 0) {
+                    crawledSites.add(site.getName());
+                    logger.log(Level.INFO, "Found {0} job pages in the sitemaps of site {1}", new Object[]{found, site.getName()});
+                } else if (!crawlEngine.isDraining() && crawlEngine.enqueue(sitesForSearching, site)) {
+                    if (crawlJournal != null) {
+                        crawlJournal.queued(site);
+                    }
+                    logger.log(Level.INFO, "No job pages in the sitemaps of site {0}, searching its listing pages", site.getName());
+                }
+            });
+            if (cluster != null) {
+                sitesForSearching.clear(); // the coordinator routes the seed sites to the nodes that own them
+            }
+            crawlEngine.feed(sitesForSearching, listings);
+            crawlEngine.start();
+            for (Site site : discovered) {
+                sitemaps.put(site);
+            }
+            if (resumed != null) {
+                for (Site job : resumed.getPendingJobs()) {
+                    details.put(new JobLink(job, job.getUrl()));
+                }
+            }
+            if (cluster != null) {
+                cluster.connect(clusterWorker(crawlEngine, details));
+                complete = cluster.awaitStop(Duration.ofSeconds(config.getDeathTimer())) && crawlEngine.awaitCompletion(Duration.ZERO);
+            } else {
+                complete = crawlEngine.awaitCompletion(Duration.ofSeconds(config.getDeathTimer()));
+            }
+            if (!complete) {
+                logger.log(Level.INFO, "DeathTimer expired with {0} crawl items unfinished", crawlEngine.getPendingTasks());
+                crawlEngine.drain();
+                if (!crawlEngine.awaitCompletion(Duration.ofSeconds(config.getDrainSeconds()))) {
+                    logger.log(Level.WARNING, "Crawl did not drain within {0} seconds, {1} crawl items are dropped",
+                            new Object[]{config.getDrainSeconds(), crawlEngine.getPendingTasks()});
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.log(Level.WARNING, "Crawl interrupted", e);
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             logger.log(Level.SEVERE, "An unexpected error occurred", e);
         } finally {
-            lock.unlock();
+            engine = null;
+            journal = null;
+            metrics.endCrawl();
+            closeJournal(crawlJournal, complete);
+            closeExporter(exporter, copied);
+            leaveCluster(cluster);
+        }
+        logger.log(Level.INFO, "Crawl metrics: {0}", metrics.getSummary());
+        if (store != null) {
+            // a site stopped by its budget was not searched fully, so its unseen listings are not gone
+            budgets.values().stream().filter(budget -> budget.getExhaustedBy() != null)
+                    .forEach(budget -> crawledSites.remove(budget.getSite()));
+            // a recrawl visits only the pages due, so listings it did not see again are not gone
+            lastDelta = store.finishCrawl(recrawl ? Set.of() : crawledSites, complete);
+            logger.log(Level.INFO, "Incremental crawl finished: {0}", lastDelta);
         }
     }
 
     /**
-     * Continuously waits for a random period of time, then searches for page links and fetches job listings
-     * until all sites in the queue are searched.
-     * While there are sites in the queue.
+     * Adds a found listing to the results, or, if it copies a listing found on another site,
+     * to the alternate URLs of that listing.
+     * @return The URL of the listing it copies, or null if the listing is new.
      */
-    @SuppressWarnings("BusyWait")
-    @Override
-    public void run() {
-        try {
-            Random random = new Random();
-            while (!sitesForSearching.isEmpty()) {
-                // Wait for a random period to prevent sites from IP blocking
-                try {
-                    Thread.sleep(random.nextInt(1000));
-                } catch (InterruptedException e) {
-                    logger.log(Level.WARNING, "Thread sleep interrupted", e);
-                    Thread.currentThread().interrupt();
-                }
-                // Iterate through sites in the queue and find page links
-                for (Site site : sitesForSearching){
-                    findPageLinks(site);
-                    logger.log(Level.INFO, "Found page links for site: {0}", site.getUrl());
+    private String collect(String site, JobListing listing) {
+        String canonical = duplicates == null ? null : duplicates.add(site, listing);
+        if (canonical == null) {
+            jobIndex.add(jobListings.add(site, listing));
+            return null;
+        }
+        jobListings.addAlternate(canonical, listing.getUrl());
+        logger.log(Level.FINE, "Job listing {0} is a copy of {1}", new Object[]{listing.getUrl(), canonical});
+        return canonical;
+    }
+
+    /**
+     * Sends a page found by this node to the coordinator, unless the node owns its host and has already seen it.
+     */
+    private void route(ClusterNode cluster, CrawlWork.Kind kind, String site, String url) {
+        if (!cluster.owns(url) || !sitesForSearching.isSeen(url)) {
+            cluster.discover(new CrawlWork(kind, site, url));
+        }
+    }
+
+    /**
+     * @return The worker that queues the pages the coordinator routes to this node: listing pages in the frontier,
+     * job pages not seen before in the detail-fetch stage.
+     */
+    private IClusterWorker clusterWorker(CrawlEngine crawlEngine, Stage<JobLink> details) {
+        return new IClusterWorker() {
+            @Override
+            public void accept(CrawlWork work) throws InterruptedException {
+                Site site = new Site(work.getSite(), work.getUrl(), true);
+                if (work.getKind() == CrawlWork.Kind.LISTING) {
+                    crawlEngine.enqueue(sitesForSearching, site);
+                } else if (sitesForSearching.markSeen(work.getUrl())) {
+                    details.put(new JobLink(site, work.getUrl()));
                 }
             }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "An unexpected error occurred", e);
+
+            @Override
+            public long getPendingTasks() {
+                return crawlEngine.getPendingTasks();
+            }
+        };
+    }
+
+    /**
+     * Makes the following crawls run as a node of a multi-node crawl: the node crawls the pages the coordinator
+     * routes to it and sends the pages and listings it finds back to the coordinator. The job store and the
+     * export file are not used, the coordinator merges the listings of every node.
+     * @param node The connection to the coordinator, made when the next crawl starts.
+     */
+    public void joinCluster(ClusterNode node) {
+        clusterNode = node;
+    }
+
+    private void leaveCluster(ClusterNode cluster) {
+        if (cluster == null) {
+            return;
+        }
+        try {
+            cluster.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not leave the cluster", e);
+        }
+        clusterNode = null;
+    }
+
+    /**
+     * Adds the copies found on other sites to the listings already streamed to the export, then closes it.
+     */
+    private void closeExporter(IJobExporter exporter, Set<String> copied) {
+        if (exporter == null) {
+            return;
         }
+        try {
+            for (String url : copied) {
+                exporter.writeAlternates(url, jobListings.getAlternates(url));
+            }
+            exporter.close();
+            logger.log(Level.INFO, "Job listings exported to {0}", config.getExportFile());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not finish the export file " + config.getExportFile(), e);
+        }
+    }
+
+    /**
+     * Passes the job pages found on a site down the pipeline, each once per crawl.
+     */
+    private final class JobQueue {
+        private final Stage<FoundJob> sink;
+        private final Stage<JobLink> details;
+        private final JobStore store; // null unless crawling incrementally
+        private final CrawlJournal crawlJournal; // null unless checkpointing
+
+        private JobQueue(Stage<FoundJob> sink, Stage<JobLink> details, JobStore store, CrawlJournal crawlJournal) {
+            this.sink = sink;
+            this.details = details;
+            this.store = store;
+            this.crawlJournal = crawlJournal;
+        }
+
+        /**
+         * Queues a job page that was not seen before in this crawl. A page the job store knows is passed to the jobs
+         * list without being fetched, unless it changed after the last complete crawl started.
+         * @param site         The site the job page was found on.
+         * @param jobUrl       The normalized URL of the job page.
+         * @param lastModified When the page last changed, null if unknown.
+         * @return true if the job page was not seen before.
+         */
+        private boolean offer(Site site, String jobUrl, Instant lastModified) throws InterruptedException {
+            if (!sitesForSearching.markSeen(jobUrl)) {
+                return false;
+            }
+            if (crawlJournal != null) {
+                crawlJournal.jobQueued(site.getName(), jobUrl);
+            }
+            JobListing known = store == null ? null : store.markSeen(jobUrl);
+            Instant lastCrawl = store == null ? null : store.getLastCrawlStart();
+            boolean changed = lastModified != null && lastCrawl != null && lastModified.isAfter(lastCrawl);
+            if (known != null && !changed) {
+                sink.put(new FoundJob(site, known));
+            } else {
+                details.put(new JobLink(site, jobUrl));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A fetched listing page: parsed, or only decoded when its links can be found by scanning its HTML.
+     */
+    private record ListingPage(Site site, Document document, String html, String url) {
+    }
+
+    private record JobLink(Site site, String url) {
+    }
+
+    private record DetailPage(Site site, String url, FetchedPage page) {
+    }
+
+    private record FoundJob(Site site, JobListing listing) {
     }
 }
@@ -2,16 +2,23 @@
 package org.magistraturaSGI.crawler;
 
 import lombok.Getter;
+import lombok.Setter;
+import org.magistraturaSGI.crawler.cluster.ClusterNode;
+import org.magistraturaSGI.crawler.cluster.Coordinator;
+import org.magistraturaSGI.crawler.dataobjects.CrawlWork;
 import org.magistraturaSGI.crawler.dataobjects.JobListing;
 import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.export.JobExporters;
 import org.magistraturaSGI.crawler.interfaces.IJobExporter;
 import org.magistraturaSGI.crawler.interfaces.INavigableConsoleMenu;
+import org.magistraturaSGI.crawler.store.JobIndex;
+import org.magistraturaSGI.crawler.store.ResultStore;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -19,14 +26,33 @@ import java.util.logging.Logger;
 /**
  * Controller class for managing the menu and user interactions in the Crawler application.
  */
-public class MenuController implements INavigableConsoleMenu, IJobExporter {
+public class MenuController implements INavigableConsoleMenu {
     private static final Logger logger = Logger.getLogger(MenuController.class.getName());
     @Getter
     private static String menu = ""; // String to store the menu text
-    private static final Crawler crawler = new Crawler(); // Crawler instance for fetching job listings
+    @Setter
+    private static Crawler crawler = new Crawler(); // Crawler instance for fetching job listings
+    private static final int JOBS_PAGE_SIZE = 20; // job listings shown per page of the jobs menu
 
+    /**
+     * Runs the console menu, or with the argument {@code coordinator} or {@code node [id]} one process of a
+     * multi-node crawl, see {@link #startCoordinator()} and {@link #startNode(String)}, or with the argument
+     * {@code recrawl} a crawler that keeps its listings fresh, see {@link #startRecrawling()}.
+     */
     public static void main(String[] args) {
         logger.log(Level.INFO, "Program started.");
+        if (args.length > 0 && args[0].equals("coordinator")) {
+            startCoordinator();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("node")) {
+            startNode(args.length > 1 ? args[1] : "node-" + ProcessHandle.current().pid());
+            return;
+        }
+        if (args.length > 0 && args[0].equals("recrawl")) {
+            startRecrawling();
+            return;
+        }
         char key;
         System.out.println("\nNavigate through menus by typing the corresponding option number and pressing enter.\n");
         do {
@@ -54,59 +80,114 @@ public class MenuController implements INavigableConsoleMenu, IJobExporter {
             case '2': viewConfig(); break;
             case '3': viewSites(); break;
             case '4': viewJobs(); break;
+            case '5': resumeCrawler(); break;
         }
         return true;
     }
 
     /**
      * Starts the crawler to fetch job listings from configured sites.
+     * The crawl runs on the crawler's engine and returns once it has finished, or drained after the DeathTimer expired.
      */
     public static void startCrawler() {
         logger.log(Level.INFO, "User selected menu option - Start Crawler");
         try {
             crawler.addSitesToSearch();
-            // Number of threads to run (adjust as needed)
-            int numberOfThreads = crawler.getConfig().getThreadCount();
-            // Create multiple threads
-            List<Thread> threads = new ArrayList<>();
-            for (int i = 0; i < numberOfThreads; i++) {
-                Thread thread = new Thread(crawler);
-                threads.add(thread);
-            }
-            // Start all threads
-            for (Thread thread : threads) {
-                thread.start();
-                logger.log(Level.INFO, "Started Crawler thread {0}", thread.threadId());
+            crawler.run();
+            logger.log(Level.INFO, "Finished processing job listings.");
+            if (crawler.getLastDelta() != null) {
+                System.out.println("Job listings since the last crawl: " + crawler.getLastDelta());
             }
-            // Stop threads after death
-            Timer timer = new Timer("MenuTimer");
-            TimerTask stopThreads = new TimerTask() {
-                public void run() {
-                    threads.forEach(Thread::interrupt);
-                }
-            };
-            long delay = crawler.getConfig().getDeathTimer()* 1000L;
-            timer.schedule(stopThreads, delay);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An unexpected error occurred in startCrawler", e);
+        }
+    }
+
+    /**
+     * Continues the crawl that was interrupted by its deadline or by the program stopping, from its journal.
+     * Starts a new crawl if there is nothing to resume.
+     */
+    public static void resumeCrawler() {
+        logger.log(Level.INFO, "User selected menu option - Resume Crawler");
+        if (!crawler.resumeCrawl()) {
+            System.out.println("No interrupted crawl to resume, starting a new one.");
+            startCrawler();
+            return;
+        }
+        try {
+            crawler.run();
+            logger.log(Level.INFO, "Finished processing job listings.");
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "An unexpected error occurred in resumeCrawler", e);
+        }
+    }
 
-            // Wait for all threads to finish
-            for (Thread thread : threads) {
-                try {
-                    thread.join();
-                    logger.log(Level.INFO, "Crawler thread {0} finished", thread.threadId());
-                } catch (InterruptedException e) {
-                    logger.log(Level.SEVERE, "Error waiting for Crawler thread to finish", e);
+    /**
+     * Crawls every searched site, then keeps crawling the listing pages again as they fall due by the recrawl
+     * schedule, until the program is stopped. Pages that often show new jobs are visited often, pages that do not
+     * are left for up to RecrawlMaxSeconds.
+     */
+    public static void startRecrawling() {
+        startCrawler();
+        try {
+            while (true) {
+                Instant due = crawler.getRecrawlSchedule().nextDue();
+                long millis = due == null ? 1000 : Math.max(1000, Duration.between(Instant.now(), due).toMillis());
+                Thread.sleep(millis);
+                if (crawler.queueRecrawl() > 0) {
+                    crawler.run();
+                    if (crawler.getLastDelta() != null) {
+                        logger.log(Level.INFO, "Job listings since the last recrawl: {0}", crawler.getLastDelta());
+                    }
                 }
             }
-            logger.log(Level.INFO, "All Crawler threads have finished.");
-            // Fetch all job listings from the sites in the queue
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            crawler.findJobListings();
-            logger.log(Level.INFO, "Finished processing job listings.");
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "An unexpected error occurred in startCrawler", e);
+    /**
+     * Runs the coordinator of a multi-node crawl on ClusterPort. Once ClusterMinNodes nodes have joined,
+     * the sites to be searched are routed to the nodes owning their hosts; the listings of every node are
+     * merged and written to the export file.
+     */
+    public static void startCoordinator() {
+        Config config = crawler.getConfig();
+        List<CrawlWork> seeds = new ArrayList<>();
+        for (Site site : config.getSiteList()) {
+            if (site.isSearched()) {
+                seeds.add(new CrawlWork(CrawlWork.Kind.LISTING, site.getName(), site.getUrl()));
+            }
+        }
+        Duration timeout = Duration.ofSeconds(config.getDeathTimer() + config.getDrainSeconds() + config.getClusterNodeTimeoutSeconds());
+        try (IJobExporter exporter = JobExporters.create(Path.of(config.getExportFile()), config.getExportBatchSize());
+             Coordinator coordinator = new Coordinator(config.getClusterPort(), config.getClusterMinNodes(),
+                     Duration.ofSeconds(config.getClusterNodeTimeoutSeconds()), seeds, exporter)) {
+            coordinator.start();
+            System.out.println("Coordinator listening on port " + coordinator.getPort());
+            while (!coordinator.awaitFinished(timeout)) {
+                logger.log(Level.INFO, "Crawl still running on {0} nodes", coordinator.getNodeCount());
+            }
+            System.out.println("Merged " + coordinator.getResults().size() + " job listings into " + config.getExportFile());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not run the coordinator", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Runs one node of a multi-node crawl, joining the coordinator at ClusterCoordinator and ClusterPort.
+     * @param nodeId The name of the node, unique in the cluster.
+     */
+    public static void startNode(String nodeId) {
+        Config config = crawler.getConfig();
+        Duration heartbeat = Duration.ofMillis(Math.max(100, config.getClusterNodeTimeoutSeconds() * 1000L / 5));
+        crawler.joinCluster(new ClusterNode(config.getClusterCoordinator(), config.getClusterPort(), nodeId, heartbeat));
+        crawler.run();
+        logger.log(Level.INFO, "Node {0} finished crawling", nodeId);
+    }
+
     /**
      * Displays and allows modification of configuration settings.
      */
@@ -139,6 +220,14 @@ public class MenuController implements INavigableConsoleMenu, IJobExporter {
                     logger.log(Level.INFO,"DeathTimer set to {0}",t);
                 }
                 break;
+                case '3': {
+                    System.out.print("MaxInFlight = ");
+                    System.out.flush();
+                    int m = Integer.parseInt(new Scanner(System.in).next());
+                    config.setMaxInFlight(m);
+                    logger.log(Level.INFO,"MaxInFlight set to {0}",m);
+                }
+                break;
             }
         } while (key != '0');
         logger.log(Level.INFO,"Exited View Config menu");
@@ -169,70 +258,82 @@ public class MenuController implements INavigableConsoleMenu, IJobExporter {
         } while (key != '0');
         logger.log(Level.INFO,"Exited View Sites menu");
     }
+    /**
+     * Displays the job listings a page at a time, and allows searching and exporting them.
+     * A search matches words, prefixes ending in *, "quoted phrases" and site:NAME against the listing titles.
+     */
     public static void viewJobs() {
         logger.log(Level.INFO, "User selected menu option - View Jobs");
+        Scanner input = new Scanner(System.in);
+        String query = "";
+        JobIndex.SearchResult result = crawler.getJobIndex().search(query);
+        int page = 0;
         char key;
-        boolean showAll = false;
         do {
             System.out.flush();
             System.out.print("\033[H\033[2J");
 
             var jobs = crawler.getJobListings();
-            setJobsMenuText(jobs, showAll);
+            if (query.isEmpty()) {
+                result = crawler.getJobIndex().search(query); // takes in listings found since, without a lookup
+            }
+            setJobsMenuText(jobs, result, query, page);
             System.out.println(menu);
             System.out.flush();
-            key = new Scanner(System.in).next().charAt(0);
+            key = input.next().charAt(0);
             switch (key) {
                 case '1': {
-                    showAll = !showAll;
-                    logger.log(Level.INFO, "ShowAllJobs set to {0}", showAll);
+                    System.out.print("Search (empty for all) = ");
+                    System.out.flush();
+                    input.nextLine();
+                    query = input.hasNextLine() ? input.nextLine().trim() : "";
+                    result = crawler.getJobIndex().search(query);
+                    page = 0;
+                    logger.log(Level.INFO, "Searched jobs for \"{0}\", {1} found", new Object[]{query, result.getTotal()});
                 }
                 break;
                 case '2': {
-                    System.out.println("Export jobs as txt");
+                    System.out.println("Export jobs to " + crawler.getConfig().getExportFile());
                     File file = export(jobs);
                     if (file != null) {
                         logger.log(Level.INFO, "Jobs exported to: {0}", file.getAbsolutePath());
                     }
                 }
                 break;
+                case 'n': {
+                    if ((page + 1) * JOBS_PAGE_SIZE < result.getTotal()) {
+                        page++;
+                    }
+                }
+                break;
+                case 'p': {
+                    if (page > 0) {
+                        page--;
+                    }
+                }
+                break;
             }
         } while (key != '0');
         logger.log(Level.INFO, "Exited View Jobs menu");
     }
 
     /**
-     *
+     * Writes the jobs to the export file from the configuration, in the format given by its extension.
      * @param list - the jobs to be exported
-     * @return the created file
+     * @return the created file, or null if it could not be written
      */
-    public static File export(List<JobListing> list) {
-        // Create new file
-        URL path = Config.class.getClassLoader().getResource("config.xml");
-        if (path == null) {
-            logger.log(Level.SEVERE, "Could not find config.xml file.");
-            return null;
-        }
-        String newPath = path.getPath().replace("config.xml","jobOutput.txt");
-        File file = new File(newPath);
-        try {
-            if (!file.exists()) {
-                //noinspection ResultOfMethodCallIgnored
-                file.createNewFile();
-            }
-            // Write to file and close it
-            FileWriter fw = new FileWriter(file.getAbsoluteFile());
-            BufferedWriter bw = new BufferedWriter(fw);
-            String line;
+    public static File export(Iterable<JobListing> list) {
+        Config config = crawler.getConfig();
+        Path path = Path.of(config.getExportFile());
+        try (IJobExporter exporter = JobExporters.create(path, config.getExportBatchSize())) {
             for (JobListing job : list) {
-                line = "Title: " + job.getTitle() + " | Found at: " + job.getUrl()+"\n";
-                bw.write(line);
+                exporter.write(job);
             }
-            bw.close();
-        } catch (IOException e){
+        } catch (IOException e) {
             logger.log(Level.SEVERE, "An error occurred while writing to the file.", e);
+            return null;
         }
-        return file;
+        return path.toFile();
     }
 
     /**
@@ -245,6 +346,7 @@ public class MenuController implements INavigableConsoleMenu, IJobExporter {
         menu += ("\n2 - View Settings");
         menu += ("\n3 - View Sites");
         menu += ("\n4 - View Jobs");
+        menu += ("\n5 - Resume Crawler");
         menu += ("\n----------------------");
         menu += ("\n0 - Quit application");
         logger.log(Level.INFO,"Set menu shown to be Start menu");
@@ -258,10 +360,12 @@ public class MenuController implements INavigableConsoleMenu, IJobExporter {
         menu  = ("\nConfig");
         menu += ("\n--------------------------------");
         menu += ("\n\tNumber of threads to run = " + config.getThreadCount());
-        menu += ("\n\tTime for thread to die = " + config.getDeathTimer());
+        menu += ("\n\tCrawl deadline in seconds = " + config.getDeathTimer());
+        menu += ("\n\tMax requests in flight = " + config.getMaxInFlight());
         menu += ("\n--------------------------------");
         menu += ("\n1 - Change number of threads");
         menu += ("\n2 - Change how long to run");
+        menu += ("\n3 - Change max requests in flight");
         menu += ("\n--------------------------------");
         menu += ("\n0 - Back to Start Menu");
         logger.log(Level.INFO,"Set menu shown to be Config menu");
@@ -284,21 +388,40 @@ public class MenuController implements INavigableConsoleMenu, IJobExporter {
         logger.log(Level.INFO,"Set menu shown to be Sites menu");
     }
 
-    private static void setJobsMenuText(List<JobListing> jobs, boolean showAll){
-        menu  = ("\nJobs found");
-        menu += ("\n--------------------------");
-        menu += ("\nNumber of jobs = " + jobs.size());
-        menu += ("\n--------------------------");
-        menu += ("\n1 - Show all job listings");
-        menu += ("\n2 - Export job listings");
-        menu += ("\n0 - Back to Start Menu");
-        menu += ("\n--------------------------");
-        // Will print all jobs
-        if (showAll){
-            for (JobListing job : jobs) {
-                menu = menu.concat("Title: " + job.getTitle() + ", URL: " + job.getUrl());
+    private static void setJobsMenuText(ResultStore jobs, JobIndex.SearchResult result, String query, int page){
+        int pages = Math.max(1, (result.getTotal() + JOBS_PAGE_SIZE - 1) / JOBS_PAGE_SIZE);
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("\nJobs found");
+        sb.append("\n--------------------------");
+        sb.append("\nNumber of jobs = ").append(jobs.size());
+        if (jobs.getAlternateCount() > 0) {
+            sb.append("\nCopies on other sites merged = ").append(jobs.getAlternateCount());
+        }
+        if (!query.isEmpty()) {
+            sb.append("\nSearch \"").append(query).append("\" = ").append(result.getTotal()).append(" jobs");
+        }
+        sb.append("\n--------------------------");
+        // Only the jobs of the current page are printed
+        for (JobListing job : result.page(page, JOBS_PAGE_SIZE)) {
+            sb.append("\nTitle: ").append(job.getTitle()).append(", URL: ").append(job.getUrl());
+            if (!job.getCompany().isEmpty()) {
+                sb.append(", company: ").append(job.getCompany());
+            }
+            if (!job.getLocation().isEmpty()) {
+                sb.append(", location: ").append(job.getLocation());
+            }
+            List<String> alternates = jobs.getAlternates(job.getUrl());
+            if (!alternates.isEmpty()) {
+                sb.append(", also at: ").append(String.join(", ", alternates));
             }
         }
-        logger.log(Level.INFO,"Set menu shown to be Jobs menu, allJobs = {0}",showAll);
+        sb.append("\n-------------------------- page ").append(page + 1).append(" of ").append(pages);
+        sb.append("\n1 - Search job listings");
+        sb.append("\n2 - Export job listings");
+        sb.append("\nn - Next page, p - Previous page");
+        sb.append("\n0 - Back to Start Menu");
+        sb.append("\n--------------------------");
+        menu = sb.toString();
+        logger.log(Level.INFO, "Set menu shown to be Jobs menu, page {0} of {1}", new Object[]{page + 1, pages});
     }
 }
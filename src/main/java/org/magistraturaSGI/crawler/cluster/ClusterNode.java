@@ -0,0 +1,203 @@
+package org.magistraturaSGI.crawler.cluster;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.CrawlWork;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.interfaces.IClusterWorker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One crawler process of a multi-node crawl, connected to the {@link Coordinator}.
+ * It hands the pages routed to it to its crawl, sends back the pages and listings the crawl finds,
+ * and reports with every heartbeat how much work it has taken and how much is still unfinished.
+ */
+public class ClusterNode implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ClusterNode.class.getName());
+
+    private final String coordinatorHost;
+    private final int coordinatorPort;
+    @Getter
+    private final String nodeId;
+    private final Duration heartbeatInterval;
+    private final AtomicLong received = new AtomicLong();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile Set<Integer> partitions = Set.of();
+    private Socket socket;
+    private DataOutputStream out; // guarded by this, null once closed
+    private ScheduledExecutorService heartbeats;
+
+    /**
+     * @param coordinatorHost   The host of the coordinator.
+     * @param coordinatorPort   The port of the coordinator.
+     * @param nodeId            The name of this node, unique in the cluster.
+     * @param heartbeatInterval The time between heartbeats, well below the coordinator's node timeout.
+     */
+    public ClusterNode(String coordinatorHost, int coordinatorPort, String nodeId, Duration heartbeatInterval) {
+        this.coordinatorHost = coordinatorHost;
+        this.coordinatorPort = coordinatorPort;
+        this.nodeId = nodeId;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    /**
+     * Joins the cluster and starts taking work.
+     * @param worker The crawl the routed pages are handed to.
+     * @throws IOException If the coordinator cannot be reached.
+     */
+    public void connect(IClusterWorker worker) throws IOException {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(coordinatorHost, coordinatorPort), 10_000);
+        socket.setTcpNoDelay(true);
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        send(Protocol.HELLO, () -> out.writeUTF(nodeId));
+        Thread reader = new Thread(() -> read(in, worker), "cluster-node-" + nodeId);
+        reader.setDaemon(true);
+        reader.start();
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(() -> heartbeat(worker), 0, heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.log(Level.INFO, "Node {0} joined the coordinator at {1}:{2}",
+                new Object[]{nodeId, coordinatorHost, String.valueOf(coordinatorPort)});
+    }
+
+    private void read(DataInputStream in, IClusterWorker worker) {
+        try {
+            while (true) {
+                byte type = in.readByte();
+                switch (type) {
+                    case Protocol.ASSIGN -> {
+                        Set<Integer> owned = new HashSet<>();
+                        for (int i = in.readInt(); i > 0; i--) {
+                            owned.add(in.readInt());
+                        }
+                        partitions = owned;
+                        logger.log(Level.INFO, "Node {0} owns {1} partitions", new Object[]{nodeId, owned.size()});
+                    }
+                    case Protocol.WORK -> {
+                        worker.accept(Protocol.readWork(in));
+                        received.incrementAndGet();
+                    }
+                    case Protocol.STOP -> {
+                        logger.log(Level.INFO, "Coordinator ended the crawl");
+                        stopped.countDown();
+                    }
+                    default -> throw new IOException("Unknown message type " + type);
+                }
+            }
+        } catch (IOException e) {
+            if (stopped.getCount() > 0) {
+                logger.log(Level.WARNING, "Lost the connection to the coordinator", e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    private void heartbeat(IClusterWorker worker) {
+        // taken before pending: a page taken after this read is either pending or not yet counted as taken
+        long taken = received.get();
+        long pending = worker.getPendingTasks();
+        send(Protocol.HEARTBEAT, () -> {
+            out.writeLong(taken);
+            out.writeLong(pending);
+        });
+    }
+
+    /**
+     * @param url A URL.
+     * @return true if this node owns the URL's host, so the node's own seen-set tells whether it was crawled.
+     */
+    public boolean owns(String url) {
+        return partitions.contains(Protocol.partition(url));
+    }
+
+    /**
+     * Sends a page found by the crawl to the coordinator, which routes it to the owner of its host.
+     * @param work The page.
+     */
+    public void discover(CrawlWork work) {
+        send(Protocol.DISCOVER, () -> Protocol.writeWork(out, work));
+    }
+
+    /**
+     * Sends a listing found by the crawl to the coordinator's merged store.
+     * @param site    The name of the site the listing was found on.
+     * @param listing The listing.
+     */
+    public void result(String site, JobListing listing) {
+        send(Protocol.RESULT, () -> {
+            out.writeUTF(site);
+            out.writeUTF(listing.getTitle());
+            out.writeUTF(listing.getUrl());
+            out.writeUTF(listing.getCompany());
+            out.writeUTF(listing.getLocation());
+            out.writeUTF(listing.getPosted());
+        });
+    }
+
+    /**
+     * Waits until the coordinator ends the crawl or the connection to it is lost.
+     * @param timeout The longest time to wait.
+     * @return true if the crawl ended, false if the timeout expired first.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitStop(Duration timeout) throws InterruptedException {
+        return stopped.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void send(byte type, Fields fields) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(type);
+            fields.write();
+            out.flush();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not send to the coordinator", e);
+        }
+    }
+
+    /**
+     * Leaves the cluster. The coordinator gives the node's partitions to the other nodes.
+     */
+    @Override
+    public void close() throws IOException {
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        synchronized (this) {
+            out = null;
+        }
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    private interface Fields {
+        void write() throws IOException;
+    }
+}
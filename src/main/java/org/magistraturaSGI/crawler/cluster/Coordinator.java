@@ -0,0 +1,402 @@
+package org.magistraturaSGI.crawler.cluster;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.CrawlWork;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.interfaces.IJobExporter;
+import org.magistraturaSGI.crawler.store.ResultStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coordinates a multi-node crawl. Nodes connect over TCP; the hosts of the crawl are split into partitions
+ * by hash, and every partition is owned by one node, which alone fetches from its hosts, so each node keeps
+ * the rate limits and seen-set of its own hosts. Pages found by a node are routed to the owner of their host,
+ * and the listings found by every node are merged into one store and export file.
+ * Every page routed to a partition is kept, so when a node leaves or stops sending heartbeats its partitions
+ * are given to the other nodes and their pages sent again; a page may then be fetched twice, but its listing
+ * is only merged once. The crawl is over when every node is idle and has taken every page sent to it.
+ */
+public class Coordinator implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(Coordinator.class.getName());
+    private static final byte[] CLOSE = new byte[0];
+
+    private final ServerSocket server;
+    private final int minNodes;
+    private final long nodeTimeoutNanos;
+    private final List<CrawlWork> seeds;
+    private final IJobExporter exporter;
+    @Getter
+    private final ResultStore results = new ResultStore();
+    private final Set<String> resultUrls = ConcurrentHashMap.newKeySet();
+    private final Map<String, Node> nodes = new LinkedHashMap<>(); // node id -> node, guarded by this
+    private final Node[] owners = new Node[Protocol.PARTITIONS]; // guarded by this
+    private final List<List<CrawlWork>> routed = new ArrayList<>(Protocol.PARTITIONS); // pages of each partition, guarded by this
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "coordinator-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private boolean seeded; // guarded by this
+    private int idleChecks; // guarded by this
+
+    /**
+     * Opens the coordinator's port. Nodes are accepted once {@link #start()} is called.
+     * @param port        The TCP port to listen on, 0 for any free port.
+     * @param minNodes    The nodes that must join before the seed pages are routed.
+     * @param nodeTimeout How long a node may go without a heartbeat before its partitions are reassigned.
+     * @param seeds       The start pages of the crawl.
+     * @param exporter    Where merged listings are written, or null.
+     * @throws IOException If the port cannot be opened.
+     */
+    public Coordinator(int port, int minNodes, Duration nodeTimeout, List<CrawlWork> seeds, IJobExporter exporter) throws IOException {
+        this.server = new ServerSocket(port);
+        this.minNodes = Math.max(1, minNodes);
+        this.nodeTimeoutNanos = nodeTimeout.toNanos();
+        this.seeds = List.copyOf(seeds);
+        this.exporter = exporter;
+        for (int i = 0; i < Protocol.PARTITIONS; i++) {
+            routed.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return The TCP port the coordinator listens on.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts accepting nodes and watching their heartbeats.
+     */
+    public void start() {
+        connections.execute(this::accept);
+        monitor.scheduleWithFixedDelay(this::check, 200, 200, TimeUnit.MILLISECONDS);
+        logger.log(Level.INFO, "Coordinator listening on port {0}, waiting for {1} nodes", new Object[]{getPort(), minNodes});
+    }
+
+    /**
+     * Waits until every node is idle.
+     * @param timeout The longest time to wait.
+     * @return true if the crawl finished, false if the timeout expired first.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitFinished(Duration timeout) throws InterruptedException {
+        return finished.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The number of nodes connected now.
+     */
+    public synchronized int getNodeCount() {
+        return nodes.size();
+    }
+
+    private void accept() {
+        try {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                connections.execute(() -> serve(socket));
+            }
+        } catch (IOException e) {
+            if (!server.isClosed()) {
+                logger.log(Level.SEVERE, "Coordinator stopped accepting nodes", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Node node = null;
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            if (in.readByte() != Protocol.HELLO) {
+                throw new IOException("Node did not say hello");
+            }
+            node = new Node(in.readUTF(), socket);
+            join(node);
+            while (true) {
+                byte type = in.readByte();
+                switch (type) {
+                    case Protocol.DISCOVER -> route(Protocol.readWork(in));
+                    case Protocol.RESULT -> merge(in.readUTF(), new JobListing(in.readUTF(), in.readUTF(),
+                            in.readUTF(), in.readUTF(), in.readUTF()));
+                    case Protocol.HEARTBEAT -> node.heartbeat(in.readLong(), in.readLong());
+                    default -> throw new IOException("Unknown message type " + type);
+                }
+            }
+        } catch (IOException e) {
+            if (node != null) {
+                leave(node, e);
+            } else {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private synchronized void join(Node node) throws IOException {
+        if (nodes.containsKey(node.id)) {
+            throw new IOException("A node with id " + node.id + " is already connected");
+        }
+        nodes.put(node.id, node);
+        connections.execute(node::write);
+        logger.log(Level.INFO, "Node {0} joined from {1}", new Object[]{node.id, node.socket.getRemoteSocketAddress()});
+        if (seeded) {
+            assign();
+        } else if (nodes.size() >= minNodes) {
+            assign();
+            seeded = true;
+            seeds.forEach(this::route);
+        }
+    }
+
+    private synchronized void leave(Node node, IOException cause) {
+        if (nodes.get(node.id) != node) {
+            return;
+        }
+        nodes.remove(node.id);
+        node.close();
+        closeQuietly(node.socket); // the node is gone, nothing queued for it matters
+        for (int partition : node.partitions) {
+            owners[partition] = null;
+        }
+        if (finished.getCount() == 0) {
+            return;
+        }
+        logger.log(Level.WARNING, "Node {0} left ({1}), reassigning its {2} partitions",
+                new Object[]{node.id, cause.toString(), node.partitions.size()});
+        assign();
+    }
+
+    /**
+     * Gives every partition without an owner to the node owning the fewest, and sends it the partition's pages.
+     */
+    private synchronized void assign() {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        Map<Node, List<Integer>> gained = new LinkedHashMap<>();
+        for (int partition = 0; partition < Protocol.PARTITIONS; partition++) {
+            if (owners[partition] != null) {
+                continue;
+            }
+            Node owner = null;
+            for (Node node : nodes.values()) {
+                if (owner == null || node.partitions.size() < owner.partitions.size()) {
+                    owner = node;
+                }
+            }
+            owners[partition] = owner;
+            owner.partitions.add(partition);
+            gained.computeIfAbsent(owner, node -> new ArrayList<>()).add(partition);
+        }
+        gained.forEach((node, partitions) -> {
+            node.sendAssign();
+            for (int partition : partitions) {
+                routed.get(partition).forEach(node::sendWork);
+            }
+            logger.log(Level.INFO, "Node {0} now owns {1} partitions", new Object[]{node.id, node.partitions.size()});
+        });
+    }
+
+    private synchronized void route(CrawlWork work) {
+        int partition = Protocol.partition(work.getUrl());
+        routed.get(partition).add(work);
+        if (owners[partition] != null) {
+            owners[partition].sendWork(work);
+        }
+    }
+
+    private void merge(String site, JobListing listing) {
+        String url = listing.getUrl();
+        if (!resultUrls.add(url)) {
+            return;
+        }
+        results.add(site, listing);
+        if (exporter != null) {
+            try {
+                exporter.write(listing);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not export job listing " + url, e);
+            }
+        }
+    }
+
+    /**
+     * Drops nodes that stopped sending heartbeats and ends the crawl once every node is idle.
+     */
+    private synchronized void check() {
+        long now = System.nanoTime();
+        for (Node node : List.copyOf(nodes.values())) {
+            if (now - node.lastSeen > nodeTimeoutNanos) {
+                leave(node, new IOException("no heartbeat for " + Duration.ofNanos(now - node.lastSeen).toSeconds() + " s"));
+            }
+        }
+        if (!seeded || nodes.isEmpty() || finished.getCount() == 0) {
+            return;
+        }
+        boolean idle = true;
+        for (Node node : nodes.values()) {
+            // a node reads what it has taken before what is pending, so taking every page sent and having
+            // nothing pending means the pages it found while crawling have already been routed
+            idle &= node.pending == 0 && node.received == node.sent;
+        }
+        idleChecks = idle ? idleChecks + 1 : 0;
+        if (idleChecks >= 2) {
+            finish();
+        }
+    }
+
+    private synchronized void finish() {
+        if (finished.getCount() == 0) {
+            return;
+        }
+        nodes.values().forEach(Node::sendStop);
+        finished.countDown();
+        logger.log(Level.INFO, "Crawl finished on {0} nodes with {1} job listings", new Object[]{nodes.size(), results.size()});
+    }
+
+    /**
+     * Stops the nodes if the crawl has not finished, then closes every connection.
+     */
+    @Override
+    public void close() {
+        finish();
+        monitor.shutdownNow();
+        closeQuietly(server);
+        synchronized (this) {
+            nodes.values().forEach(Node::close);
+            nodes.clear();
+        }
+        connections.shutdown();
+        try {
+            if (!connections.awaitTermination(5, TimeUnit.SECONDS)) {
+                connections.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Could not close " + closeable, e);
+        }
+    }
+
+    /**
+     * A connected node. Messages to it are queued and written by its own thread, so a node that is slow
+     * to read never holds up the coordinator.
+     */
+    private static final class Node {
+        private final String id;
+        private final Socket socket;
+        private final BlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>();
+        private final Set<Integer> partitions = new TreeSet<>(); // guarded by the coordinator
+        private long sent; // WORK messages sent, guarded by the coordinator
+        private volatile long received;
+        private volatile long pending = -1; // unknown until the first heartbeat
+        private volatile long lastSeen = System.nanoTime();
+
+        private Node(String id, Socket socket) {
+            this.id = id;
+            this.socket = socket;
+        }
+
+        private void heartbeat(long received, long pending) {
+            this.received = received;
+            this.pending = pending;
+            this.lastSeen = System.nanoTime();
+        }
+
+        private void sendWork(CrawlWork work) {
+            sent++;
+            send(out -> {
+                out.writeByte(Protocol.WORK);
+                Protocol.writeWork(out, work);
+            });
+        }
+
+        private void sendAssign() {
+            List<Integer> owned = List.copyOf(partitions);
+            send(out -> {
+                out.writeByte(Protocol.ASSIGN);
+                out.writeInt(owned.size());
+                for (int partition : owned) {
+                    out.writeInt(partition);
+                }
+            });
+        }
+
+        private void sendStop() {
+            send(out -> out.writeByte(Protocol.STOP));
+        }
+
+        private void send(Message message) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                message.write(out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // writing to memory does not fail
+            }
+            outbox.add(bytes.toByteArray());
+        }
+
+        /**
+         * Writes queued messages until the node is closed, flushing whenever the queue runs empty.
+         */
+        private void write() {
+            try (OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+                byte[] message;
+                while ((message = outbox.take()) != CLOSE) {
+                    out.write(message);
+                    if (outbox.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                logger.log(Level.FINE, "Stopped writing to node " + id, e);
+            } finally {
+                closeQuietly(socket);
+            }
+        }
+
+        private void close() {
+            outbox.add(CLOSE);
+        }
+    }
+
+    private interface Message {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,55 @@
+package org.magistraturaSGI.crawler.cluster;
+
+import org.magistraturaSGI.crawler.dataobjects.CrawlWork;
+import org.magistraturaSGI.crawler.fetch.HostRateLimiter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The messages between the coordinator and the nodes of a multi-node crawl. Every message is a type byte
+ * followed by its fields, written with DataOutputStream.
+ * <ul>
+ *     <li>HELLO node id: a node joins.</li>
+ *     <li>ASSIGN count, partitions: the partitions a node owns from now on.</li>
+ *     <li>WORK kind, site, url: a page for the node to crawl.</li>
+ *     <li>DISCOVER kind, site, url: a page a node found, to be routed to its owner.</li>
+ *     <li>RESULT site, title, url, company, location, posted: a job listing a node found.</li>
+ *     <li>HEARTBEAT received, pending: the WORK messages a node has taken, and its unfinished items.</li>
+ *     <li>STOP: every node is idle, the crawl is over.</li>
+ * </ul>
+ */
+final class Protocol {
+    static final byte HELLO = 1;
+    static final byte ASSIGN = 2;
+    static final byte WORK = 3;
+    static final byte DISCOVER = 4;
+    static final byte RESULT = 5;
+    static final byte HEARTBEAT = 6;
+    static final byte STOP = 7;
+
+    static final int PARTITIONS = 64;
+
+    private Protocol() {
+    }
+
+    /**
+     * @param url A URL.
+     * @return The partition of the URL's host, so every page of a host belongs to the same node.
+     */
+    static int partition(String url) {
+        return Math.floorMod(HostRateLimiter.host(url).hashCode(), PARTITIONS);
+    }
+
+    static void writeWork(DataOutputStream out, CrawlWork work) throws IOException {
+        out.writeByte(work.getKind().ordinal());
+        out.writeUTF(work.getSite());
+        out.writeUTF(work.getUrl());
+    }
+
+    static CrawlWork readWork(DataInputStream in) throws IOException {
+        CrawlWork.Kind kind = CrawlWork.Kind.values()[in.readByte()];
+        return new CrawlWork(kind, in.readUTF(), in.readUTF());
+    }
+}
@@ -0,0 +1,21 @@
+
+package org.magistraturaSGI.crawler.dataobjects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * How the listings of a crawl compare to the listings known from earlier crawls.
+ */
+@Getter
+@AllArgsConstructor
+public class CrawlDelta {
+    private final int newListings;
+    private final int removedListings;
+    private final int unchangedListings;
+
+    @Override
+    public String toString() {
+        return "new = " + newListings + ", removed = " + removedListings + ", unchanged = " + unchangedListings;
+    }
+}
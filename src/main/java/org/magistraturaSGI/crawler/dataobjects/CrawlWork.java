@@ -0,0 +1,21 @@
+package org.magistraturaSGI.crawler.dataobjects;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A page to crawl, as routed between the nodes of a multi-node crawl: a listing page or a job page of a site.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CrawlWork {
+    public enum Kind { LISTING, JOB }
+
+    private final Kind kind;
+    private final String site;
+    private final String url;
+}
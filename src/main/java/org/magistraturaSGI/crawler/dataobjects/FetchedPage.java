@@ -0,0 +1,81 @@
+
+package org.magistraturaSGI.crawler.dataobjects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A fetched response: the final URL, status, headers and the decoded body bytes, whether the body was
+ * served from the HTTP cache rather than downloaded, and whether it was cut at the body size limit.
+ */
+@Getter
+@AllArgsConstructor
+public class FetchedPage {
+    private final String url;
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final boolean fromCache;
+    private final boolean truncated;
+
+    /**
+     * A response whose whole body was downloaded.
+     */
+    public FetchedPage(String url, int statusCode, Map<String, List<String>> headers, byte[] body) {
+        this(url, statusCode, headers, body, false, false);
+    }
+
+    /**
+     * @param name The header name, case-insensitive.
+     * @return The first value of the header, or null if it is missing.
+     */
+    public String header(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().getFirst();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The charset named in the Content-Type header, or null to let Jsoup detect it.
+     */
+    public String charset() {
+        String contentType = header("Content-Type");
+        if (contentType == null) {
+            return null;
+        }
+        for (String part : contentType.split(";")) {
+            String trimmed = part.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+                String charset = trimmed.substring(8).replace("\"", "").trim();
+                try {
+                    return Charset.isSupported(charset) ? charset : null;
+                } catch (IllegalCharsetNameException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the body as HTML, resolving relative links against the page URL.
+     * @return The parsed document.
+     * @throws IOException If the body cannot be decoded.
+     */
+    public Document toDocument() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(body), charset(), url);
+    }
+}
@@ -1,12 +1,25 @@
-
 package org.magistraturaSGI.crawler.dataobjects;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.List;
+
 @Getter
 @AllArgsConstructor
 public class JobListing {
     private String title;
     private String url;
+    private String company; // from the listing card, empty if unknown
+    private String location; // from the listing card, empty if unknown
+    private String posted; // date shown on the listing card, as the site writes it, empty if unknown
+    private List<String> alternateUrls; // the same job posted on other sites, empty if none
+
+    public JobListing(String title, String url) {
+        this(title, url, "", "", "", List.of());
+    }
+
+    public JobListing(String title, String url, String company, String location, String posted) {
+        this(title, url, company, location, posted, List.of());
+    }
 }
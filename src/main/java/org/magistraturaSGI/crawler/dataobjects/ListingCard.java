@@ -0,0 +1,69 @@
+package org.magistraturaSGI.crawler.dataobjects;
+
+import lombok.Getter;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+/**
+ * How to read job listings straight from the cards of a site's listing pages, so their job pages need not be fetched.
+ * Selectors other than the card's are applied inside each card; immutable, so one is shared by every crawl worker.
+ */
+@Getter
+public class ListingCard {
+    private final String cardSelector;
+    private final Evaluator card;
+    private final Evaluator title; // null to use the text of the job link
+    private final Evaluator company; // null when the cards show no company
+    private final Evaluator location;
+    private final Evaluator posted;
+
+    /**
+     * Creates the card selectors of a site, compiling them.
+     * @param cardSelector     Selects each job's card on a listing page.
+     * @param titleSelector    Selects the job title in a card, empty to use the text of the job link.
+     * @param companySelector  Selects the company in a card, empty if the cards show none.
+     * @param locationSelector Selects the location in a card, empty if the cards show none.
+     * @param postedSelector   Selects the date the job was posted in a card, empty if the cards show none.
+     * @throws org.jsoup.select.Selector.SelectorParseException If a selector is invalid.
+     */
+    public ListingCard(String cardSelector, String titleSelector, String companySelector,
+                       String locationSelector, String postedSelector) {
+        this.cardSelector = cardSelector;
+        this.card = QueryParser.parse(cardSelector);
+        this.title = compile(titleSelector);
+        this.company = compile(companySelector);
+        this.location = compile(locationSelector);
+        this.posted = compile(postedSelector);
+    }
+
+    /**
+     * Reads the listing of one card.
+     * @param card    A card selected on a listing page.
+     * @param jobPage Selects the job link in the card; the card itself is the link if it matches none.
+     * @return The listing, with an empty title if the card has none, or null if the card has no job link.
+     */
+    public JobListing read(Element card, Evaluator jobPage) {
+        Element link = jobPage == null ? null : card.selectFirst(jobPage);
+        if (link == null && card.hasAttr("href")) {
+            link = card;
+        }
+        if (link == null || link.attr("abs:href").isEmpty()) {
+            return null;
+        }
+        String jobTitle = title == null ? link.text() : text(card, title);
+        return new JobListing(jobTitle, link.attr("abs:href"), text(card, company), text(card, location), text(card, posted));
+    }
+
+    private static String text(Element card, Evaluator field) {
+        if (field == null) {
+            return "";
+        }
+        Element element = card.selectFirst(field);
+        return element == null ? "" : element.text();
+    }
+
+    private static Evaluator compile(String selector) {
+        return selector.isBlank() ? null : QueryParser.parse(selector);
+    }
+}
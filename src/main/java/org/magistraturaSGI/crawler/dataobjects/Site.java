@@ -2,11 +2,13 @@
 package org.magistraturaSGI.crawler.dataobjects;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @AllArgsConstructor
+@EqualsAndHashCode(exclude = "searched")
 public class Site {
     private String name;
     private String url;
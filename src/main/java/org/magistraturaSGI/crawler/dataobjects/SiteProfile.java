@@ -0,0 +1,105 @@
+package org.magistraturaSGI.crawler.dataobjects;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.magistraturaSGI.crawler.extract.LinkScanner;
+
+import java.util.regex.Pattern;
+
+/**
+ * How to crawl one site: its CSS selectors, compiled once into Jsoup evaluators, and its limits.
+ * Immutable, so one profile is shared by every crawl worker. Profiles are made with {@link #builder()};
+ * a setting left out is empty or 0.
+ */
+@Getter
+public class SiteProfile {
+    public static final SiteProfile EMPTY = builder().name("").build();
+
+    private final String name;
+    private final String jobTitleSelector;
+    private final String jobPageSelector;
+    private final String nextPageSelector;
+    private final String jobUrlPattern; // regular expression found in the URLs of job pages, empty if the site has no sitemap to read
+    private final ListingCard listingCard; // reads listings from the cards of listing pages, null to fetch every job page
+    private final int maxPages; // listing pages crawled per crawl, 0 for no limit
+    private final int maxListings; // listings found per crawl before no more pages are fetched, 0 for no limit
+    private final int maxSizeMB; // megabytes downloaded per crawl, 0 for no limit
+    private final int maxSeconds; // seconds from the start of a crawl the site is fetched for, 0 for no limit
+    private final double requestsPerSecond; // starting request rate of the site's host, 0 for the default
+    private final double crawlDelaySeconds; // least time between two requests to the site's host, 0 for none
+    private final Evaluator jobTitle; // null when the selector is empty
+    private final Evaluator jobPage;
+    private final Evaluator nextPage;
+    private final Pattern jobUrl; // null when the pattern is empty
+    private final LinkScanner jobPageLinks; // null when the selector is empty or needs a DOM
+    private final LinkScanner nextPageLinks;
+
+    /**
+     * Creates a profile, compiling its selectors. Null selectors and patterns are taken as empty.
+     * @param name             The name of the site.
+     * @param jobTitleSelector Selects the job title on a job page.
+     * @param jobPageSelector  Selects the links to job pages on a listing page.
+     * @param nextPageSelector Selects the links to further listing pages, empty if the site has one listing page.
+     * @param jobUrlPattern    A regular expression found in the URLs of job pages, to pick them out of the site's sitemaps.
+     * @param listingCard      Reads listings from the cards of listing pages, null to read them from the job pages.
+     * @param maxPages         The most listing pages crawled per crawl, 0 for no limit.
+     * @param maxListings      The listings found per crawl before no more pages are fetched, 0 for no limit.
+     * @param maxSizeMB        The megabytes downloaded per crawl, 0 for no limit.
+     * @param maxSeconds       The seconds from the start of a crawl the site is fetched for, 0 for no limit.
+     * @param requestsPerSecond The starting request rate of the site's host, 0 for the configured default.
+     * @param crawlDelaySeconds The least time between two requests to the site's host, 0 for none.
+     * @throws org.jsoup.select.Selector.SelectorParseException If a selector is invalid.
+     * @throws java.util.regex.PatternSyntaxException If the job URL pattern is invalid.
+     */
+    @Builder
+    private SiteProfile(String name, String jobTitleSelector, String jobPageSelector, String nextPageSelector,
+                       String jobUrlPattern, ListingCard listingCard,
+                       int maxPages, int maxListings, int maxSizeMB, int maxSeconds,
+                       double requestsPerSecond, double crawlDelaySeconds) {
+        this.name = name;
+        this.jobTitleSelector = orEmpty(jobTitleSelector);
+        this.jobPageSelector = orEmpty(jobPageSelector);
+        this.nextPageSelector = orEmpty(nextPageSelector);
+        this.jobUrlPattern = orEmpty(jobUrlPattern);
+        this.listingCard = listingCard;
+        this.maxPages = maxPages;
+        this.maxListings = maxListings;
+        this.maxSizeMB = maxSizeMB;
+        this.maxSeconds = maxSeconds;
+        this.requestsPerSecond = requestsPerSecond;
+        this.crawlDelaySeconds = crawlDelaySeconds;
+        this.jobTitle = compile(this.jobTitleSelector);
+        this.jobPage = compile(this.jobPageSelector);
+        this.nextPage = compile(this.nextPageSelector);
+        this.jobUrl = this.jobUrlPattern.isBlank() ? null : Pattern.compile(this.jobUrlPattern);
+        this.jobPageLinks = jobPage == null ? null : LinkScanner.forSelector(this.jobPageSelector);
+        this.nextPageLinks = nextPage == null ? null : LinkScanner.forSelector(this.nextPageSelector);
+    }
+
+    /**
+     * @return true if the links of a listing page can be found by scanning its HTML, without parsing it:
+     * the site reads no listing cards, and its job page and next page selectors are empty or only match hrefs.
+     */
+    public boolean isLinkScannable() {
+        return listingCard == null && (jobPage != null || nextPage != null)
+                && (jobPage == null || jobPageLinks != null) && (nextPage == null || nextPageLinks != null);
+    }
+
+    /**
+     * @param url The URL of a page of the site.
+     * @return true if the URL matches the site's job URL pattern.
+     */
+    public boolean isJobUrl(String url) {
+        return jobUrl != null && jobUrl.matcher(url).find();
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static Evaluator compile(String selector) {
+        return selector.isBlank() ? null : QueryParser.parse(selector);
+    }
+}
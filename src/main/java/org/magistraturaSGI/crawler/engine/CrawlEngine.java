@@ -0,0 +1,241 @@
+
+package org.magistraturaSGI.crawler.engine;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.frontier.Frontier;
+import org.magistraturaSGI.crawler.interfaces.IStageHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the crawl as a pipeline of stages, every worker on its own virtual thread.
+ * Each stage has a bounded queue and its own worker count; the number of fetches running at once
+ * across all stages is bounded by the in-flight limit.
+ * A draining engine starts no new fetches but lets the fetches in flight and the stages after them finish.
+ */
+public class CrawlEngine implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(CrawlEngine.class.getName());
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ResizableSemaphore inFlight;
+    private final WorkTracker tracker = new WorkTracker();
+    private final List<Stage<?>> stages = new ArrayList<>();
+    private final List<Runnable> feeders = new ArrayList<>();
+    @Getter
+    private volatile int maxInFlight;
+    private volatile boolean draining;
+
+    /**
+     * Creates an engine allowing at most the given number of fetches to run at once.
+     * @param maxInFlight The maximum number of concurrently running fetches.
+     */
+    public CrawlEngine(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new ResizableSemaphore(this.maxInFlight);
+    }
+
+    /**
+     * Adds a stage to the pipeline. Stages start working when the engine is started.
+     * @param name     The stage name, used in logs.
+     * @param capacity The size of the stage's queue.
+     * @param workers  The number of workers draining the queue.
+     * @param handler  The work done for each item.
+     * @return The new stage, to which earlier stages put their output.
+     */
+    public <T> Stage<T> addStage(String name, int capacity, int workers, IStageHandler<T> handler) {
+        Stage<T> stage = new Stage<>(name, capacity, workers, handler, tracker);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Feeds the sites of the frontier into a stage as they are queued.
+     * Sites must be added to the frontier through {@link #enqueue(Frontier, Site)} while the crawl runs.
+     * @param frontier The frontier to take sites from.
+     * @param stage    The stage that fetches the sites.
+     */
+    public void feed(Frontier frontier, Stage<Site> stage) {
+        feeders.add(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Site site = frontier.take();
+                    try {
+                        stage.put(site);
+                    } finally {
+                        tracker.end();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        tracker.begin(frontier.size());
+    }
+
+    /**
+     * Queues a site in the frontier and counts it as pending work.
+     * @param frontier The frontier to add to.
+     * @param site     The site to queue.
+     * @return true if the site had not been seen before and was queued.
+     */
+    public boolean enqueue(Frontier frontier, Site site) {
+        tracker.begin(1);
+        if (frontier.push(site)) {
+            return true;
+        }
+        tracker.end();
+        return false;
+    }
+
+    /**
+     * Runs a fetch once an in-flight permit is free.
+     * @param fetch The fetch to run.
+     * @return The result of the fetch.
+     * @throws CancellationException If the engine is draining, so the fetch was not started.
+     * @throws Exception The exception thrown by the fetch, or InterruptedException while waiting for a permit.
+     */
+    public <R> R fetch(Callable<R> fetch) throws Exception {
+        if (draining) {
+            throw new CancellationException("Crawl is draining");
+        }
+        inFlight.acquire();
+        try {
+            if (draining) {
+                throw new CancellationException("Crawl is draining");
+            }
+            return fetch.call();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Changes the in-flight limit while the crawl runs. When it is lowered, fetches already running finish
+     * and new ones wait until fewer than the new limit are running.
+     * @param maxInFlight The new maximum number of concurrently running fetches.
+     */
+    public synchronized void setMaxInFlight(int maxInFlight) {
+        int max = Math.max(1, maxInFlight);
+        if (max > this.maxInFlight) {
+            inFlight.release(max - this.maxInFlight);
+        } else if (max < this.maxInFlight) {
+            inFlight.reducePermits(this.maxInFlight - max);
+        }
+        if (max != this.maxInFlight) {
+            logger.log(Level.INFO, "In-flight limit changed from {0} to {1}", new Object[]{this.maxInFlight, max});
+        }
+        this.maxInFlight = max;
+    }
+
+    /**
+     * @param name The name of a stage.
+     * @return The stage, or null if the pipeline has none with that name.
+     */
+    public Stage<?> getStage(String name) {
+        for (Stage<?> stage : stages) {
+            if (stage.getName().equals(name)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts the workers of every stage and every feeder.
+     */
+    public void start() {
+        stages.forEach(stage -> stage.start(executor));
+        feeders.forEach(executor::execute);
+        logger.log(Level.INFO, "Started crawl pipeline with {0} stages", stages.size());
+    }
+
+    /**
+     * Waits until every stage has run dry.
+     * @param timeout The longest time to wait.
+     * @return true if all work finished, false if the timeout expired first.
+     * @throws InterruptedException If the waiting thread is interrupted.
+     */
+    public boolean awaitCompletion(Duration timeout) throws InterruptedException {
+        return tracker.awaitIdle(timeout);
+    }
+
+    /**
+     * Stops starting new fetches. Items still queued pass through their stages without being fetched,
+     * so the pipeline runs dry once the fetches in flight and the work that follows them are done.
+     */
+    public void drain() {
+        if (!draining) {
+            draining = true;
+            logger.log(Level.INFO, "Draining crawl pipeline with {0} fetches in flight", getInFlight());
+        }
+    }
+
+    /**
+     * @return true once {@link #drain()} was called.
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * @return The number of items queued or being handled anywhere in the pipeline.
+     */
+    public long getPendingTasks() {
+        return tracker.getOutstanding();
+    }
+
+    /**
+     * @return The number of fetches running now.
+     */
+    public int getInFlight() {
+        return Math.max(0, maxInFlight - inFlight.availablePermits());
+    }
+
+    /**
+     * @return The stages of the pipeline, in the order they were added.
+     */
+    public List<Stage<?>> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Interrupts all workers and waits briefly for them to stop.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.log(Level.WARNING, "Some crawl workers did not stop after being interrupted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A semaphore whose permits can be taken away while they are held.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
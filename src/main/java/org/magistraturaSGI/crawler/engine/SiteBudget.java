@@ -0,0 +1,111 @@
+
+package org.magistraturaSGI.crawler.engine;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.SiteProfile;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * What one site may still use of one crawl: listing pages, listings, downloaded bytes and time, as limited
+ * by its profile. Once the listings, bytes or time run out the budget is exhausted and no new fetches are
+ * started for the site; fetches already in flight still finish. Shared by every crawl worker.
+ */
+public class SiteBudget {
+    private static final Logger logger = Logger.getLogger(SiteBudget.class.getName());
+
+    @Getter
+    private final String site;
+    private final int maxPages;
+    private final int maxListings;
+    private final long maxBytes;
+    private final boolean hasDeadline; // false if the site has no MaxSeconds
+    private final long deadline; // nanoTime at which the site's time runs out, if it has a deadline
+    private final AtomicInteger pagesQueued = new AtomicInteger(1); // the start page is queued with the site
+    private final AtomicInteger listings = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicReference<String> exhaustedBy = new AtomicReference<>();
+
+    /**
+     * @param profile The profile of the site, with its limits.
+     * @param start   The nanoTime at which the crawl started.
+     */
+    public SiteBudget(SiteProfile profile, long start) {
+        this.site = profile.getName();
+        this.maxPages = profile.getMaxPages();
+        this.maxListings = profile.getMaxListings();
+        this.maxBytes = profile.getMaxSizeMB() * 1024L * 1024L;
+        // no sentinel deadline: nanoTime may be negative, so nanoTime() - Long.MAX_VALUE can overflow to positive
+        this.hasDeadline = profile.getMaxSeconds() > 0;
+        this.deadline = start + Duration.ofSeconds(Math.max(0, profile.getMaxSeconds())).toNanos();
+    }
+
+    /**
+     * Counts another listing page as queued.
+     * @return false if the site already has MaxPages listing pages queued, so the page must not be queued.
+     */
+    public boolean tryQueuePage() {
+        if (maxPages > 0 && pagesQueued.incrementAndGet() > maxPages) {
+            pagesQueued.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a page counted by {@link #tryQueuePage()} that was not queued after all.
+     */
+    public void unqueuePage() {
+        if (maxPages > 0) {
+            pagesQueued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the bytes of a fetched page.
+     * @param size The size of the page body.
+     */
+    public void fetched(long size) {
+        if (bytes.addAndGet(size) >= maxBytes && maxBytes > 0) {
+            exhaust("MaxSizeMB");
+        }
+    }
+
+    /**
+     * Counts a listing found on the site.
+     */
+    public void listingFound() {
+        if (listings.incrementAndGet() >= maxListings && maxListings > 0) {
+            exhaust("MaxListings");
+        }
+    }
+
+    /**
+     * @return true if the site has used up its listings, bytes or time.
+     */
+    public boolean isExhausted() {
+        if (exhaustedBy.get() == null && hasDeadline && System.nanoTime() - deadline >= 0) {
+            exhaust("MaxSeconds");
+        }
+        return exhaustedBy.get() != null;
+    }
+
+    /**
+     * @return The limit that was found reached by {@link #fetched(long)}, {@link #listingFound()} or
+     * {@link #isExhausted()}, or null if none was.
+     */
+    public String getExhaustedBy() {
+        return exhaustedBy.get();
+    }
+
+    private void exhaust(String limit) {
+        if (exhaustedBy.compareAndSet(null, limit)) {
+            logger.log(Level.INFO, "Site {0} reached its {1}, no new fetches are started for it", new Object[]{site, limit});
+        }
+    }
+}
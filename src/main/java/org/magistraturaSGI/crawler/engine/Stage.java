@@ -0,0 +1,130 @@
+
+package org.magistraturaSGI.crawler.engine;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.interfaces.IStageHandler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One step of the crawl pipeline: a bounded input queue drained by the stage's own workers.
+ * Putting into a full stage blocks the producer, which keeps memory use steady when a later stage is slower.
+ * The number of workers may be changed while the stage runs; surplus workers stop after their current item.
+ * @param <T> The type of item handled by the stage.
+ */
+public class Stage<T> {
+    private static final Logger logger = Logger.getLogger(Stage.class.getName());
+
+    @Getter
+    private final String name;
+    @Getter
+    private volatile int workers;
+    private final BlockingQueue<T> queue;
+    private final IStageHandler<T> handler;
+    private final WorkTracker tracker;
+    private final AtomicInteger running = new AtomicInteger();
+    private ExecutorService executor; // set once the stage has started
+
+    Stage(String name, int capacity, int workers, IStageHandler<T> handler, WorkTracker tracker) {
+        this.name = name;
+        this.workers = Math.max(1, workers);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.handler = handler;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Queues an item for the stage, waiting while the queue is full.
+     * @param item The item to queue.
+     * @throws InterruptedException If interrupted while waiting for space.
+     */
+    public void put(T item) throws InterruptedException {
+        tracker.begin(1);
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            tracker.end();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of items waiting in the stage's queue.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    synchronized void start(ExecutorService executor) {
+        this.executor = executor;
+        addWorkers(workers);
+    }
+
+    /**
+     * Changes the number of workers draining the queue.
+     * @param workers The new number of workers.
+     */
+    public synchronized void setWorkers(int workers) {
+        int count = Math.max(1, workers);
+        if (count != this.workers) {
+            logger.log(Level.INFO, "Workers of crawl stage {0} changed from {1} to {2}", new Object[]{name, this.workers, count});
+        }
+        this.workers = count;
+        if (executor != null) {
+            addWorkers(count - running.get());
+        }
+    }
+
+    private void addWorkers(int count) {
+        for (int i = 0; i < count; i++) {
+            running.incrementAndGet();
+            executor.execute(this::work);
+        }
+    }
+
+    /**
+     * @return true if the calling worker is surplus and has been counted out.
+     */
+    private boolean retire() {
+        int count;
+        while ((count = running.get()) > workers) {
+            if (running.compareAndSet(count, count - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void work() {
+        boolean retired = false;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (retire()) {
+                    retired = true;
+                    return;
+                }
+                T item = queue.take();
+                try {
+                    handler.handle(item);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, "Error in crawl stage " + name, e);
+                } finally {
+                    tracker.end();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!retired) {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
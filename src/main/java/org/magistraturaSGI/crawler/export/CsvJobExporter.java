@@ -0,0 +1,44 @@
+
+package org.magistraturaSGI.crawler.export;
+
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes listings as CSV (RFC 4180) with a header row. The company, location and posted columns are empty unless
+ * the listing was read from a listing card that shows them. The alternates column holds the space-separated URLs of
+ * copies of the job on other sites. Copies found after their listing was written are added by a row with only
+ * the url and alternates columns filled.
+ */
+public class CsvJobExporter extends StreamingJobExporter {
+
+    public CsvJobExporter(Path file, boolean gzip, int batchSize) throws IOException {
+        super(file, gzip, batchSize);
+    }
+
+    @Override
+    protected String header() {
+        return "title,url,company,location,posted,alternates";
+    }
+
+    @Override
+    protected String format(JobListing listing) {
+        return quote(listing.getTitle()) + "," + quote(listing.getUrl()) + "," + quote(listing.getCompany()) + ","
+                + quote(listing.getLocation()) + "," + quote(listing.getPosted()) + "," + quote(String.join(" ", listing.getAlternateUrls()));
+    }
+
+    @Override
+    protected String formatAlternates(String url, List<String> alternateUrls) {
+        return "," + quote(url) + ",,,," + quote(String.join(" ", alternateUrls));
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,39 @@
+
+package org.magistraturaSGI.crawler.export;
+
+import org.magistraturaSGI.crawler.interfaces.IJobExporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Creates the exporter matching the name of the output file:
+ * {@code .csv}, {@code .jsonl} or anything else for plain text, each optionally followed by {@code .gz}.
+ */
+public final class JobExporters {
+
+    private JobExporters() {
+    }
+
+    /**
+     * @param file      The output file.
+     * @param batchSize The number of listings written between flushes.
+     * @return A new exporter writing to the file.
+     * @throws IOException If the file cannot be created.
+     */
+    public static IJobExporter create(Path file, int batchSize) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) {
+            return new CsvJobExporter(file, gzip, batchSize);
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return new JsonLinesJobExporter(file, gzip, batchSize);
+        }
+        return new TextJobExporter(file, gzip, batchSize);
+    }
+}
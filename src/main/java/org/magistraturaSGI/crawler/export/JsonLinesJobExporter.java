@@ -0,0 +1,87 @@
+
+package org.magistraturaSGI.crawler.export;
+
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes listings as JSON Lines, one JSON object per line; the company, location and posting date of a listing read
+ * from a listing card, if known, and the URLs of copies on other sites, if any, as "alternates".
+ * Copies found after their listing was written are added by an object with only "url" and "alternates".
+ */
+public class JsonLinesJobExporter extends StreamingJobExporter {
+
+    public JsonLinesJobExporter(Path file, boolean gzip, int batchSize) throws IOException {
+        super(file, gzip, batchSize);
+    }
+
+    @Override
+    protected String format(JobListing listing) {
+        StringBuilder sb = new StringBuilder(64 + listing.getTitle().length() + listing.getUrl().length());
+        sb.append("{\"title\":");
+        appendString(sb, listing.getTitle());
+        sb.append(",\"url\":");
+        appendString(sb, listing.getUrl());
+        appendField(sb, "company", listing.getCompany());
+        appendField(sb, "location", listing.getLocation());
+        appendField(sb, "posted", listing.getPosted());
+        appendAlternates(sb, listing.getAlternateUrls());
+        return sb.append('}').toString();
+    }
+
+    @Override
+    protected String formatAlternates(String url, List<String> alternateUrls) {
+        StringBuilder sb = new StringBuilder("{\"url\":");
+        appendString(sb, url);
+        appendAlternates(sb, alternateUrls);
+        return sb.append('}').toString();
+    }
+
+    private static void appendAlternates(StringBuilder sb, List<String> urls) {
+        if (!urls.isEmpty()) {
+            sb.append(",\"alternates\":[");
+            for (int i = 0; i < urls.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendString(sb, urls.get(i));
+            }
+            sb.append(']');
+        }
+    }
+
+    private static void appendField(StringBuilder sb, String name, String value) {
+        if (!value.isEmpty()) {
+            sb.append(",\"").append(name).append("\":");
+            appendString(sb, value);
+        }
+    }
+
+    /**
+     * Appends the value as a quoted JSON string.
+     */
+    static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
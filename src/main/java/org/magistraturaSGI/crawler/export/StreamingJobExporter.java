@@ -0,0 +1,105 @@
+
+package org.magistraturaSGI.crawler.export;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.interfaces.IJobExporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base for exporters writing one line per listing to a file, optionally gzip-compressed.
+ * Lines are buffered and flushed to the file every {@code batchSize} listings,
+ * so the output can be read while the crawl is still running.
+ */
+public abstract class StreamingJobExporter implements IJobExporter {
+    @Getter
+    private final Path file;
+    private final int batchSize;
+    private final Writer writer;
+    private int pending;
+    @Getter
+    private long written;
+
+    /**
+     * Opens the file for writing, replacing an older export.
+     * @param file      The output file.
+     * @param gzip      Whether to gzip-compress the output.
+     * @param batchSize The number of listings written between flushes.
+     * @throws IOException If the file cannot be created.
+     */
+    protected StreamingJobExporter(Path file, boolean gzip, int batchSize) throws IOException {
+        this.file = file;
+        this.batchSize = Math.max(1, batchSize);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        OutputStream out = Files.newOutputStream(file);
+        if (gzip) {
+            // sync flush, so every flushed batch can be decompressed before the file is closed
+            out = new GZIPOutputStream(out, 64 * 1024, true);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        String header = header();
+        if (header != null) {
+            writer.write(header);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * @return The first line of the file, or null for none.
+     */
+    protected String header() {
+        return null;
+    }
+
+    /**
+     * @param listing The listing to format.
+     * @return The line for the listing, without the line break.
+     */
+    protected abstract String format(JobListing listing);
+
+    /**
+     * @param url           The URL of a listing written earlier.
+     * @param alternateUrls The URLs of its copies on other sites.
+     * @return The line adding the copies to the listing, without the line break.
+     */
+    protected abstract String formatAlternates(String url, List<String> alternateUrls);
+
+    @Override
+    public synchronized void write(JobListing listing) throws IOException {
+        writer.write(format(listing));
+        writer.write('\n');
+        written++;
+        if (++pending >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void writeAlternates(String url, List<String> alternateUrls) throws IOException {
+        writer.write(formatAlternates(url, alternateUrls));
+        writer.write('\n');
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        writer.flush();
+        pending = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,44 @@
+
+package org.magistraturaSGI.crawler.export;
+
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes listings in the original plain text format: {@code Title: ... | Found at: ...},
+ * followed by {@code | Company: ...}, {@code | Location: ...} and {@code | Posted: ...} when the listing card showed them,
+ * and {@code | Also at: ...} for a job also posted on other sites. Copies found after their listing was written
+ * are added by a line {@code Found at: ... | Also at: ...}.
+ */
+public class TextJobExporter extends StreamingJobExporter {
+
+    public TextJobExporter(Path file, boolean gzip, int batchSize) throws IOException {
+        super(file, gzip, batchSize);
+    }
+
+    @Override
+    protected String format(JobListing listing) {
+        StringBuilder line = new StringBuilder("Title: ").append(listing.getTitle()).append(" | Found at: ").append(listing.getUrl());
+        if (!listing.getCompany().isEmpty()) {
+            line.append(" | Company: ").append(listing.getCompany());
+        }
+        if (!listing.getLocation().isEmpty()) {
+            line.append(" | Location: ").append(listing.getLocation());
+        }
+        if (!listing.getPosted().isEmpty()) {
+            line.append(" | Posted: ").append(listing.getPosted());
+        }
+        if (!listing.getAlternateUrls().isEmpty()) {
+            line.append(" | Also at: ").append(String.join(", ", listing.getAlternateUrls()));
+        }
+        return line.toString();
+    }
+
+    @Override
+    protected String formatAlternates(String url, List<String> alternateUrls) {
+        return "Found at: " + url + " | Also at: " + String.join(", ", alternateUrls);
+    }
+}
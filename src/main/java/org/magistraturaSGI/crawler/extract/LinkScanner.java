@@ -0,0 +1,221 @@
+package org.magistraturaSGI.crawler.extract;
+
+import org.jsoup.internal.StringUtil;
+import org.jsoup.parser.Parser;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the links of a page matching a link selector by scanning its HTML for anchor {@code href}s, without
+ * building a DOM. Only selectors of the form {@code a[href]}, {@code a[href="v"]}, {@code a[href^="v"]},
+ * {@code a[href*="v"]} and {@code a[href$="v"]} can be scanned for; they match the {@code href} as written in
+ * the page, ignoring case, as Jsoup does. Comments and the text of {@code script}, {@code style}, {@code textarea}
+ * and {@code title} elements are skipped, and links are resolved against the page's {@code <base href>}, if any.
+ */
+public final class LinkScanner {
+    private static final Pattern SELECTOR = Pattern.compile("\\s*a\\[\\s*href\\s*(?:([\\^*$]?=)\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\]\"'\\s]+))\\s*)?]\\s*",
+            Pattern.CASE_INSENSITIVE);
+    private static final String[] RAW_TEXT = {"script", "style", "textarea", "title"};
+
+    private final String operator; // "=", "^=", "*=" or "$=", null to match every href
+    private final String value; // lower-cased
+
+    private LinkScanner(String operator, String value) {
+        this.operator = operator;
+        this.value = value;
+    }
+
+    /**
+     * @param selector A link selector.
+     * @return The scanner for the selector, or null if it needs a DOM to be matched.
+     */
+    public static LinkScanner forSelector(String selector) {
+        Matcher matcher = SELECTOR.matcher(selector);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String value = matcher.group(2) != null ? matcher.group(2) : matcher.group(3) != null ? matcher.group(3) : matcher.group(4);
+        return new LinkScanner(matcher.group(1), value == null ? "" : value.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param page A fetched page.
+     * @return The absolute URLs of the page's links matching the selector, in page order.
+     */
+    public List<String> scan(FetchedPage page) {
+        return scan(decode(page), page.getUrl());
+    }
+
+    /**
+     * @param page A fetched page.
+     * @return The page's HTML, decoded with the charset of its Content-Type header or meta tag, else as UTF-8.
+     */
+    public static String decode(FetchedPage page) {
+        Charset charset = TitleExtractor.charset(page, page.getBody().length);
+        return new String(page.getBody(), charset);
+    }
+
+    /**
+     * @param html    The HTML of a page.
+     * @param pageUrl The URL of the page, which relative links are resolved against.
+     * @return The absolute URLs of the page's links matching the selector, in page order.
+     */
+    public List<String> scan(String html, String pageUrl) {
+        List<String> links = new ArrayList<>();
+        String[] href = new String[1]; // href of the tag being read
+        String base = pageUrl;
+        boolean baseSet = false;
+        int length = html.length();
+        int i = html.indexOf('<');
+        while (i >= 0 && i < length - 1) {
+            if (html.startsWith("!--", i + 1)) {
+                int end = html.indexOf("-->", i + 4);
+                i = end < 0 ? -1 : html.indexOf('<', end + 3);
+                continue;
+            }
+            int nameEnd = i + 1;
+            while (nameEnd < length && isNameChar(html.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            if (nameEnd == i + 1) {
+                i = html.indexOf('<', i + 1);
+                continue;
+            }
+            boolean anchor = nameEnd == i + 2 && (html.charAt(i + 1) | 0x20) == 'a';
+            boolean baseTag = !baseSet && nameEnd == i + 5 && html.regionMatches(true, i + 1, "base", 0, 4);
+            String rawText = rawText(html, i + 1, nameEnd);
+            href[0] = null;
+            int tagEnd = anchor || baseTag ? readHref(html, nameEnd, href) : html.indexOf('>', nameEnd);
+            if (tagEnd < 0) {
+                break;
+            }
+            if (anchor && href[0] != null && matches(href[0])) {
+                String url = resolve(base, href[0]);
+                if (!url.isEmpty()) {
+                    links.add(url);
+                }
+            } else if (baseTag && href[0] != null) {
+                base = resolve(pageUrl, href[0]);
+                baseSet = true;
+            }
+            if (rawText != null) { // its text is not markup, skip to its end tag
+                int end = indexOfIgnoreCase(html, "</" + rawText, tagEnd);
+                i = end < 0 ? -1 : html.indexOf('<', end + 1);
+            } else {
+                i = html.indexOf('<', tagEnd);
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Reads the attributes of a tag up to its closing '>', keeping the value of its href attribute in {@code href[0]}.
+     * @return The index after the tag, or -1 if the tag is not closed.
+     */
+    private static int readHref(String html, int from, String[] href) {
+        int length = html.length();
+        int i = from;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '>') {
+                return i + 1;
+            }
+            if (Character.isWhitespace(c) || c == '/') {
+                i++;
+                continue;
+            }
+            int nameStart = i;
+            while (i < length && !Character.isWhitespace(html.charAt(i)) && "=>/".indexOf(html.charAt(i)) < 0) {
+                i++;
+            }
+            boolean isHref = i - nameStart == 4 && html.regionMatches(true, nameStart, "href", 0, 4);
+            while (i < length && Character.isWhitespace(html.charAt(i))) {
+                i++;
+            }
+            if (i >= length || html.charAt(i) != '=') {
+                continue; // an attribute without a value
+            }
+            i++;
+            while (i < length && Character.isWhitespace(html.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                return -1;
+            }
+            int valueStart;
+            int valueEnd;
+            char quote = html.charAt(i);
+            if (quote == '"' || quote == '\'') {
+                valueStart = i + 1;
+                valueEnd = html.indexOf(quote, valueStart);
+                if (valueEnd < 0) {
+                    return -1;
+                }
+                i = valueEnd + 1;
+            } else {
+                valueStart = i;
+                while (i < length && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '>') {
+                    i++;
+                }
+                valueEnd = i;
+            }
+            if (isHref && href[0] == null) { // the first of repeated attributes counts, as in Jsoup
+                String raw = html.substring(valueStart, valueEnd);
+                href[0] = raw.indexOf('&') < 0 ? raw : Parser.unescapeEntities(raw, true);
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(String link) {
+        if (operator == null) {
+            return true;
+        }
+        return switch (operator) {
+            case "^=" -> link.regionMatches(true, 0, value, 0, value.length());
+            case "$=" -> link.regionMatches(true, link.length() - value.length(), value, 0, value.length());
+            case "*=" -> link.toLowerCase(Locale.ROOT).contains(value);
+            default -> link.trim().equalsIgnoreCase(value);
+        };
+    }
+
+    /**
+     * Resolves a link like Jsoup's {@code abs:href}; absolute http links are kept as they are, without parsing them.
+     */
+    private static String resolve(String base, String link) {
+        String trimmed = link.trim();
+        if ((trimmed.regionMatches(true, 0, "https://", 0, 8) || trimmed.regionMatches(true, 0, "http://", 0, 7))
+                && trimmed.indexOf('\t') < 0 && trimmed.indexOf('\n') < 0 && trimmed.indexOf('\r') < 0) {
+            return trimmed;
+        }
+        return StringUtil.resolve(base, trimmed);
+    }
+
+    private static String rawText(String html, int nameStart, int nameEnd) {
+        for (String name : RAW_TEXT) {
+            if (nameEnd - nameStart == name.length() && html.regionMatches(true, nameStart, name, 0, name.length())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNameChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+
+    private static int indexOfIgnoreCase(String html, String text, int from) {
+        for (int i = html.indexOf('<', from); i >= 0; i = html.indexOf('<', i + 1)) {
+            if (html.regionMatches(true, i, text, 0, text.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
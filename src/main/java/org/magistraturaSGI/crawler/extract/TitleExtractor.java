@@ -0,0 +1,104 @@
+
+package org.magistraturaSGI.crawler.extract;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the job title from a job page without building the DOM of the whole page.
+ * The page is parsed as a stream of elements, at most the first {@code maxBytes} of it, and parsing stops at the
+ * first element matching the title selector. Only when the title is not in those bytes is the whole page parsed.
+ * When the selector matches nothing, the page's {@code og:title} or {@code <title>} is used instead.
+ */
+public class TitleExtractor {
+    private static final Pattern META_CHARSET = Pattern.compile("charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final int maxBytes;
+
+    /**
+     * @param maxBytes The most bytes of each page scanned for the title before parsing the whole page, 0 for no limit.
+     */
+    public TitleExtractor(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param page     The fetched job page.
+     * @param jobTitle The compiled title selector, or null to use the page title.
+     * @return The text of the first element matching the selector, else the page title, else an empty string.
+     * @throws IOException If the body cannot be decoded.
+     */
+    public String extract(FetchedPage page, Evaluator jobTitle) throws IOException {
+        byte[] body = page.getBody();
+        int length = maxBytes > 0 ? Math.min(body.length, maxBytes) : body.length;
+        boolean truncated = length < body.length;
+        String ogTitle = null;
+        String pageTitle = null;
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(body, 0, length), charset(page, length));
+        try (StreamParser stream = new StreamParser(Parser.htmlParser().setTrackPosition(truncated))) {
+            stream.parse(reader, page.getUrl());
+            Iterator<Element> elements = stream.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                if (jobTitle != null && jobTitle.matches(stream.document(), element)) {
+                    // an element cut off by the byte limit was closed by the end of input, so its text may be partial
+                    if (!truncated || !element.endSourceRange().isImplicit() && element.endSourceRange().isTracked()) {
+                        String text = element.text();
+                        if (!text.isBlank()) {
+                            stream.stop();
+                            return text;
+                        }
+                    }
+                } else if (ogTitle == null && element.nameIs("meta") && element.attr("property").equals("og:title")) {
+                    ogTitle = element.attr("content");
+                } else if (pageTitle == null && element.nameIs("title")) {
+                    pageTitle = element.text();
+                }
+            }
+        }
+        if (truncated && jobTitle != null) {
+            String text = page.toDocument().select(jobTitle).text();
+            if (!text.isBlank()) {
+                return text;
+            }
+        }
+        if (ogTitle != null && !ogTitle.isBlank()) {
+            return ogTitle.trim();
+        }
+        return pageTitle == null ? "" : pageTitle;
+    }
+
+    /**
+     * @return The charset from the Content-Type header, else from a meta tag near the start of the body, else UTF-8.
+     */
+    static Charset charset(FetchedPage page, int length) {
+        String name = page.charset();
+        if (name == null) {
+            String head = new String(page.getBody(), 0, Math.min(length, 1024), StandardCharsets.ISO_8859_1);
+            Matcher matcher = META_CHARSET.matcher(head.toLowerCase(Locale.ROOT));
+            if (matcher.find()) {
+                name = matcher.group(1);
+            }
+        }
+        try {
+            return name != null && Charset.isSupported(name) ? Charset.forName(name) : StandardCharsets.UTF_8;
+        } catch (IllegalCharsetNameException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.frontier.UrlNormalizer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Reads a crawl archive written by {@link ArchiveWriter}. Every segment is memory-mapped and indexed once by
+ * normalized URL; bodies are copied out of the mapping only when their page is requested.
+ * When a URL was recorded more than once, its latest record is used.
+ */
+public class ArchiveReader {
+    private static final Logger logger = Logger.getLogger(ArchiveReader.class.getName());
+
+    private final Map<String, Record> records = new HashMap<>(); // normalized URL -> latest record
+    private int segments;
+
+    /**
+     * Maps and indexes every segment in the directory.
+     * @param directory The archive directory.
+     * @throws IOException If a segment cannot be mapped.
+     */
+    public ArchiveReader(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            logger.log(Level.WARNING, "Crawl archive {0} does not exist, no pages can be replayed", directory);
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(ArchiveWriter.PREFIX) && name.endsWith(ArchiveWriter.SUFFIX);
+            }).sorted().toList();
+        }
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // the mapping stays valid after the channel is closed
+                index(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+            segments++;
+        }
+        logger.log(Level.INFO, "Indexed {0} archived pages in {1} segments of {2}", new Object[]{records.size(), segments, directory});
+    }
+
+    private void index(Path file, MappedByteBuffer buffer) {
+        int position = 0;
+        int limit = buffer.limit();
+        while (position < limit) {
+            int start = position;
+            Map<String, String> warc = new HashMap<>();
+            String line = readLine(buffer, position);
+            if (line == null || !line.startsWith("WARC/")) {
+                logger.log(Level.WARNING, "Unreadable record at offset {0} of {1}, skipping the rest of the segment", new Object[]{start, file});
+                return;
+            }
+            position += lineBytes(line);
+            while ((line = readLine(buffer, position)) != null && !line.isEmpty()) {
+                position += lineBytes(line);
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    warc.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+                }
+            }
+            if (line == null) {
+                return; // truncated header, the write was interrupted
+            }
+            position += 2;
+            long length = Long.parseLong(warc.getOrDefault("content-length", "-1"));
+            if (length < 0 || position + length > limit) {
+                logger.log(Level.WARNING, "Truncated record at offset {0} of {1}", new Object[]{start, file});
+                return;
+            }
+            String target = warc.get("warc-target-uri");
+            if ("response".equals(warc.get("warc-type")) && target != null) {
+                Record record = parseBlock(buffer, position, (int) length, warc.getOrDefault("x-final-uri", target));
+                if (record != null) {
+                    records.put(UrlNormalizer.normalize(target), record);
+                }
+            }
+            position += (int) length + 4;
+        }
+    }
+
+    /**
+     * Parses the HTTP status line and headers of a record block, leaving the body in the mapping.
+     */
+    private static Record parseBlock(MappedByteBuffer buffer, int offset, int length, String finalUrl) {
+        int end = offset + length;
+        String status = readLine(buffer, offset);
+        if (status == null) {
+            return null;
+        }
+        int position = offset + lineBytes(status);
+        String[] parts = status.split(" ");
+        int statusCode = parts.length > 1 ? Integer.parseInt(parts[1]) : 200;
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        String line;
+        while ((line = readLine(buffer, position)) != null && !line.isEmpty() && position < end) {
+            position += lineBytes(line);
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.computeIfAbsent(line.substring(0, colon).trim(), key -> new ArrayList<>()).add(line.substring(colon + 1).trim());
+            }
+        }
+        position += 2;
+        if (position > end) {
+            return null;
+        }
+        return new Record(finalUrl, statusCode, headers, buffer, position, end - position);
+    }
+
+    /**
+     * @return The line starting at the position, without its CRLF, or null if no line ends before the buffer does.
+     */
+    private static String readLine(MappedByteBuffer buffer, int position) {
+        for (int i = position; i + 1 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                byte[] bytes = new byte[i - position];
+                buffer.get(position, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static int lineBytes(String line) {
+        return line.getBytes(StandardCharsets.UTF_8).length + 2;
+    }
+
+    /**
+     * @param url The URL of the page.
+     * @return The archived response for the URL, or null if it was not recorded.
+     */
+    public FetchedPage get(String url) {
+        Record record = records.get(UrlNormalizer.normalize(url));
+        if (record == null) {
+            return null;
+        }
+        byte[] body = new byte[record.bodyLength()];
+        record.segment().get(record.bodyOffset(), body);
+        return new FetchedPage(record.url(), record.statusCode(), record.headers(), body);
+    }
+
+    /**
+     * @return The number of distinct archived URLs.
+     */
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * @return The number of segments read.
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    private record Record(String url, int statusCode, Map<String, List<String>> headers,
+                          MappedByteBuffer segment, int bodyOffset, int bodyLength) {
+    }
+}
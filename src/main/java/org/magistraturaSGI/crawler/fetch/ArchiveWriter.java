@@ -0,0 +1,143 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Appends fetched responses to a crawl archive: a directory of WARC-like segment files
+ * ({@code crawl-00001.warc}, ...). Each record is a WARC/1.0 response record whose block is the HTTP status line,
+ * headers and decoded body. A new segment is started for every writer and whenever the current one is full,
+ * so earlier segments are never modified.
+ */
+public class ArchiveWriter implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ArchiveWriter.class.getName());
+    static final String PREFIX = "crawl-";
+    static final String SUFFIX = ".warc";
+    // the body is stored decoded, so the headers describing its transfer no longer apply
+    private static final Set<String> SKIPPED_HEADERS = Set.of("content-encoding", "content-length", "transfer-encoding", ":status");
+
+    @Getter
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private int segment;
+    private FileChannel channel;
+
+    /**
+     * Opens the archive directory, creating it if needed.
+     * @param directory       The directory holding the segments.
+     * @param maxSegmentBytes The size after which a new segment is started.
+     * @throws IOException If the directory cannot be created or listed.
+     */
+    public ArchiveWriter(Path directory, long maxSegmentBytes) throws IOException {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .mapToInt(name -> Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    /**
+     * Appends a response record.
+     * @param requestUrl The URL that was requested.
+     * @param page       The response, whose URL is the final one after redirects.
+     * @throws IOException If the record cannot be written.
+     */
+    public void append(String requestUrl, FetchedPage page) throws IOException {
+        byte[] block = block(page);
+        StringBuilder header = new StringBuilder(256);
+        header.append("WARC/1.0\r\n");
+        header.append("WARC-Type: response\r\n");
+        header.append("WARC-Target-URI: ").append(clean(requestUrl)).append("\r\n");
+        if (!requestUrl.equals(page.getUrl())) {
+            header.append("X-Final-URI: ").append(clean(page.getUrl())).append("\r\n");
+        }
+        header.append("WARC-Date: ").append(Instant.now()).append("\r\n");
+        header.append("WARC-Record-ID: <urn:uuid:").append(UUID.randomUUID()).append(">\r\n");
+        header.append("Content-Type: application/http; msgtype=response\r\n");
+        header.append("Content-Length: ").append(block.length).append("\r\n\r\n");
+        byte[] head = header.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer record = ByteBuffer.allocate(head.length + block.length + 4);
+        record.put(head).put(block).put("\r\n\r\n".getBytes(StandardCharsets.US_ASCII)).flip();
+        synchronized (this) {
+            FileChannel out = channelFor(record.remaining());
+            while (record.hasRemaining()) {
+                out.write(record);
+            }
+        }
+    }
+
+    private static byte[] block(FetchedPage page) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(page.getBody().length + 512);
+        StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(page.getStatusCode()).append("\r\n");
+        for (Map.Entry<String, List<String>> header : page.getHeaders().entrySet()) {
+            if (SKIPPED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                head.append(clean(header.getKey())).append(": ").append(clean(value)).append("\r\n");
+            }
+        }
+        head.append("Content-Length: ").append(page.getBody().length).append("\r\n\r\n");
+        block.write(head.toString().getBytes(StandardCharsets.UTF_8));
+        block.write(page.getBody());
+        return block.toByteArray();
+    }
+
+    /**
+     * @return The channel of the current segment, starting a new one if the record would not fit.
+     */
+    private FileChannel channelFor(int recordBytes) throws IOException {
+        if (channel != null && channel.size() > 0 && channel.size() + recordBytes > maxSegmentBytes) {
+            channel.close();
+            channel = null;
+        }
+        if (channel == null) {
+            Path file = directory.resolve(segmentName(++segment));
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            logger.log(Level.INFO, "Recording fetched pages to {0}", file);
+        }
+        return channel;
+    }
+
+    static String segmentName(int segment) {
+        return String.format("%s%05d%s", PREFIX, segment, SUFFIX);
+    }
+
+    private static String clean(String value) {
+        return value.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
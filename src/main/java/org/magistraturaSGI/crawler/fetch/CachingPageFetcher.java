@@ -0,0 +1,65 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.interfaces.IPageFetcher;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends conditional requests (If-None-Match, If-Modified-Since) for pages in the {@link HttpCache}
+ * and serves the cached body when the server answers 304 Not Modified.
+ */
+public class CachingPageFetcher implements IPageFetcher {
+    private static final Logger logger = Logger.getLogger(CachingPageFetcher.class.getName());
+
+    private final IPageFetcher delegate;
+    private final HttpCache cache;
+
+    /**
+     * @param delegate The fetcher used to reach the network.
+     * @param cache    The cache of earlier responses.
+     */
+    public CachingPageFetcher(IPageFetcher delegate, HttpCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> requestHeaders) throws IOException, InterruptedException {
+        return fetch(url, requestHeaders, 0);
+    }
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> requestHeaders, int maxBodySize) throws IOException, InterruptedException {
+        HttpCache.Entry cached = cache.get(url);
+        Map<String, String> headers = requestHeaders;
+        if (cached != null) {
+            headers = new HashMap<>(requestHeaders);
+            if (cached.getEtag() != null) {
+                headers.put("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                headers.put("If-Modified-Since", cached.getLastModified());
+            }
+        }
+        FetchedPage page = delegate.fetch(url, headers, maxBodySize);
+        if (page.getStatusCode() == 304 && cached != null) {
+            logger.log(Level.FINE, "Serving {0} from the HTTP cache", url);
+            Map<String, List<String>> cachedHeaders = cached.getContentType() == null
+                    ? Map.of() : Map.of("Content-Type", List.of(cached.getContentType()));
+            return new FetchedPage(page.getUrl(), 200, cachedHeaders, cached.body(), true, false);
+        }
+        String etag = page.header("ETag");
+        String lastModified = page.header("Last-Modified");
+        if (page.getStatusCode() == 200 && !page.isTruncated() && (etag != null || lastModified != null)) {
+            cache.put(url, etag, lastModified, page.header("Content-Type"), page.getBody());
+        }
+        return page;
+    }
+}
@@ -0,0 +1,132 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stops fetching from a host after it fails several times in a row, so its pages are skipped at once instead of
+ * tying up workers on timeouts. After a pause one request is let through as a probe: if it succeeds the host is
+ * fetched normally again, if it fails the host is paused twice as long, up to 16 times the first pause.
+ */
+public class HostCircuitBreaker {
+    private static final Logger logger = Logger.getLogger(HostCircuitBreaker.class.getName());
+    private static final int MAX_BACKOFF_SHIFT = 4;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final int failureThreshold;
+    private final long openNanos;
+
+    /**
+     * @param failureThreshold The transient failures in a row that pause a host, 0 to never pause one.
+     * @param openTime         How long a host is first paused.
+     */
+    public HostCircuitBreaker(int failureThreshold, Duration openTime) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openTime.toNanos();
+    }
+
+    /**
+     * @param config The crawler configuration.
+     * @return The breaker configured by the Circuit* settings.
+     */
+    public static HostCircuitBreaker create(IConfigurable config) {
+        return new HostCircuitBreaker(config.getCircuitFailureThreshold(), Duration.ofSeconds(config.getCircuitOpenSeconds()));
+    }
+
+    /**
+     * @param url A URL about to be fetched.
+     * @return false if its host is paused, so the URL must not be fetched.
+     */
+    public boolean allow(String url) {
+        if (failureThreshold <= 0) {
+            return true;
+        }
+        Circuit circuit = circuits.get(HostRateLimiter.host(url));
+        if (circuit == null) {
+            return true;
+        }
+        synchronized (circuit) {
+            if (circuit.retryAt == 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if (now - circuit.retryAt < 0) {
+                return false;
+            }
+            // let this request probe the host, and no other until the probe had time to finish
+            circuit.retryAt = now + openNanos;
+            circuit.probing = true;
+            return true;
+        }
+    }
+
+    /**
+     * Records that the host of the URL answered, closing its circuit.
+     * @param url The fetched URL.
+     */
+    public void onSuccess(String url) {
+        Circuit circuit = circuits.get(HostRateLimiter.host(url));
+        if (circuit == null) {
+            return;
+        }
+        synchronized (circuit) {
+            if (circuit.retryAt != 0) {
+                logger.log(Level.INFO, "Host {0} answers again, fetching from it", HostRateLimiter.host(url));
+            }
+            circuit.failures = 0;
+            circuit.opens = 0;
+            circuit.retryAt = 0;
+            circuit.probing = false;
+        }
+    }
+
+    /**
+     * Records a transient failure of the host of the URL, pausing the host if it failed too often in a row.
+     * @param url The URL whose fetch failed.
+     */
+    public void onFailure(String url) {
+        if (failureThreshold <= 0) {
+            return;
+        }
+        String host = HostRateLimiter.host(url);
+        Circuit circuit = circuits.computeIfAbsent(host, h -> new Circuit());
+        synchronized (circuit) {
+            circuit.failures++;
+            if (circuit.probing || (circuit.retryAt == 0 && circuit.failures >= failureThreshold)) {
+                long pause = openNanos << Math.min(circuit.opens, MAX_BACKOFF_SHIFT);
+                circuit.opens++;
+                circuit.retryAt = System.nanoTime() + pause;
+                circuit.probing = false;
+                logger.log(Level.WARNING, "Host {0} failed {1} times in a row, pausing it for {2} s",
+                        new Object[]{host, circuit.failures, Duration.ofNanos(pause).toSeconds()});
+            }
+        }
+    }
+
+    /**
+     * @param host A host name.
+     * @return true if the host is paused or being probed.
+     */
+    public boolean isOpen(String host) {
+        Circuit circuit = circuits.get(host);
+        if (circuit == null) {
+            return false;
+        }
+        synchronized (circuit) {
+            return circuit.retryAt != 0;
+        }
+    }
+
+    private static final class Circuit {
+        private int failures; // transient failures in a row
+        private int opens; // pauses since the host last answered
+        private long retryAt; // nanoTime at which the next probe may be sent, 0 while the circuit is closed
+        private boolean probing;
+    }
+}
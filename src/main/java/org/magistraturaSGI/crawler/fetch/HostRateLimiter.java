@@ -0,0 +1,249 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Paces requests per host with a token bucket whose rate adapts to how the host responds (AIMD):
+ * every fast success raises the rate a little, while slow responses and 429/503 answers cut it.
+ * A 429/503 also pauses the host for its Retry-After time, and a crawl-delay caps the host's rate.
+ * Callers wait in {@link #acquire(String)} before taking an in-flight permit, so a slow host never holds
+ * permits that other hosts could use.
+ */
+public class HostRateLimiter {
+    private static final Logger logger = Logger.getLogger(HostRateLimiter.class.getName());
+    private static final double INCREASE = 0.1; // requests per second added per fast success
+    private static final double SLOW_DECREASE = 0.9;
+    private static final double THROTTLED_DECREASE = 0.5;
+    private static final Duration MAX_PAUSE = Duration.ofMinutes(10);
+    private static final long CANCEL_CHECK_NANOS = Duration.ofMillis(100).toNanos();
+
+    private final Map<String, HostBucket> hosts = new ConcurrentHashMap<>();
+    private final double baseRate;
+    private final double minRate;
+    private final double maxRate;
+    private final int burst;
+    private final long latencyTargetNanos;
+
+    /**
+     * @param baseRate      The starting requests per second of every host, 0 or less to not limit at all.
+     * @param minRate       The lowest rate a host is slowed down to.
+     * @param maxRate       The highest rate a host is sped up to.
+     * @param burst         The requests a host that has been idle may get at once.
+     * @param latencyTarget Responses slower than this slow the host down.
+     */
+    public HostRateLimiter(double baseRate, double minRate, double maxRate, int burst, Duration latencyTarget) {
+        this.baseRate = baseRate;
+        this.minRate = Math.min(minRate, baseRate);
+        this.maxRate = Math.max(maxRate, baseRate);
+        this.burst = Math.max(1, burst);
+        this.latencyTargetNanos = latencyTarget.toNanos();
+    }
+
+    /**
+     * @param config The crawler configuration.
+     * @return The limiter configured by the Host* settings; it does not limit when replaying an archive.
+     */
+    public static HostRateLimiter create(IConfigurable config) {
+        double rate = config.getArchiveMode().equals("replay") ? 0 : config.getHostRequestsPerSecond();
+        return new HostRateLimiter(rate, config.getHostMinRequestsPerSecond(), config.getHostMaxRequestsPerSecond(),
+                config.getHostBurst(), Duration.ofMillis(config.getLatencyTargetMillis()));
+    }
+
+    /**
+     * @return false if the limiter lets every request through at once.
+     */
+    public boolean isEnabled() {
+        return baseRate > 0;
+    }
+
+    /**
+     * Sets the starting rate and crawl-delay of a host, replacing the defaults.
+     * @param host       The host name.
+     * @param rate       The starting requests per second, 0 or less for the default.
+     * @param crawlDelay The least time between two requests, zero for none.
+     */
+    public void configureHost(String host, double rate, Duration crawlDelay) {
+        if (!isEnabled()) {
+            return;
+        }
+        HostBucket bucket = bucket(host);
+        synchronized (bucket) {
+            if (rate > 0) {
+                bucket.rate = rate;
+            }
+            bucket.setCrawlDelay(crawlDelay);
+        }
+    }
+
+    /**
+     * Caps the rate of a host so that requests are at least the crawl-delay apart.
+     * @param host       The host name.
+     * @param crawlDelay The least time between two requests, zero for none.
+     */
+    public void setCrawlDelay(String host, Duration crawlDelay) {
+        if (isEnabled()) {
+            HostBucket bucket = bucket(host);
+            synchronized (bucket) {
+                bucket.setCrawlDelay(crawlDelay);
+            }
+        }
+    }
+
+    /**
+     * Waits until the host of the URL may be sent another request.
+     * @param url The URL about to be fetched.
+     * @return The time waited.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public Duration acquire(String url) throws InterruptedException {
+        if (!isEnabled()) {
+            return Duration.ZERO;
+        }
+        long wait = bucket(host(url)).reserve(System.nanoTime());
+        if (wait <= 0) {
+            return Duration.ZERO;
+        }
+        Duration duration = Duration.ofNanos(wait);
+        Thread.sleep(duration);
+        return duration;
+    }
+
+    /**
+     * Waits like {@link #acquire(String)}, giving up as soon as the wait is cancelled.
+     * @param url       The URL about to be fetched.
+     * @param cancelled Checked while waiting; once it is true the request is not to be sent.
+     * @return false if the wait was cancelled.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean acquire(String url, BooleanSupplier cancelled) throws InterruptedException {
+        if (!isEnabled()) {
+            return !cancelled.getAsBoolean();
+        }
+        long until = System.nanoTime() + bucket(host(url)).reserve(System.nanoTime());
+        long wait;
+        while ((wait = until - System.nanoTime()) > 0) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            Thread.sleep(Duration.ofNanos(Math.min(wait, CANCEL_CHECK_NANOS)));
+        }
+        return !cancelled.getAsBoolean();
+    }
+
+    /**
+     * Adapts the rate of the URL's host to a response.
+     * @param url          The fetched URL.
+     * @param latencyNanos The time the fetch took.
+     * @param statusCode   The HTTP status, or 0 if the fetch failed without a response.
+     * @param retryAfter   The wait asked for by a Retry-After header, or null.
+     */
+    public void onResponse(String url, long latencyNanos, int statusCode, Duration retryAfter) {
+        if (!isEnabled()) {
+            return;
+        }
+        String host = host(url);
+        HostBucket bucket = bucket(host);
+        synchronized (bucket) {
+            if (statusCode == 429 || statusCode == 503) {
+                bucket.rate = Math.max(minRate, bucket.rate * THROTTLED_DECREASE);
+                Duration pause = retryAfter == null ? Duration.ofNanos(bucket.interval()) : retryAfter;
+                if (pause.compareTo(MAX_PAUSE) > 0) {
+                    pause = MAX_PAUSE;
+                }
+                bucket.pause(System.nanoTime() + pause.toNanos());
+                logger.log(Level.INFO, "Host {0} answered {1}, slowing to {2} requests/s and pausing {3} ms",
+                        new Object[]{host, statusCode, String.format(Locale.ROOT, "%.2f", bucket.rate), pause.toMillis()});
+            } else if (statusCode == 0 || statusCode >= 400) {
+                return;
+            } else if (latencyNanos > latencyTargetNanos) {
+                bucket.rate = Math.max(minRate, bucket.rate * SLOW_DECREASE);
+            } else {
+                bucket.rate = Math.min(bucket.maxRate, bucket.rate + INCREASE);
+            }
+        }
+    }
+
+    /**
+     * @param host A host name.
+     * @return The current requests per second of the host.
+     */
+    public double getRate(String host) {
+        HostBucket bucket = bucket(host);
+        synchronized (bucket) {
+            return bucket.rate;
+        }
+    }
+
+    private HostBucket bucket(String host) {
+        return hosts.computeIfAbsent(host.toLowerCase(Locale.ROOT), h -> new HostBucket(baseRate, maxRate));
+    }
+
+    /**
+     * @return The lower-case host of the URL, or an empty string if it has none.
+     */
+    public static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * The pacing state of one host, kept as the time its next request is due (the generic cell rate algorithm,
+     * equivalent to a token bucket holding {@code burst} tokens).
+     */
+    private final class HostBucket {
+        private double rate;
+        private double maxRate;
+        private final double configuredMaxRate;
+        private long due; // nanoTime at which the next request may be sent when no burst is left
+
+        private HostBucket(double rate, double maxRate) {
+            this.rate = rate;
+            this.maxRate = maxRate;
+            this.configuredMaxRate = maxRate;
+            this.due = System.nanoTime();
+        }
+
+        private long interval() {
+            return (long) (1e9 / rate);
+        }
+
+        /**
+         * Takes the next slot of the host.
+         * @return The nanoseconds to wait before sending.
+         */
+        private synchronized long reserve(long now) {
+            long interval = interval();
+            long tolerance = (burst - 1) * interval;
+            long start = Math.max(due - tolerance, now);
+            due = Math.max(due, now - tolerance) + interval;
+            return start - now;
+        }
+
+        private void pause(long until) {
+            // after the pause, requests start one interval apart rather than in a burst
+            due = Math.max(due, until + (burst - 1) * interval());
+        }
+
+        private void setCrawlDelay(Duration crawlDelay) {
+            maxRate = configuredMaxRate;
+            if (crawlDelay != null && !crawlDelay.isZero() && !crawlDelay.isNegative()) {
+                maxRate = Math.min(maxRate, 1e9 / crawlDelay.toNanos());
+            }
+            rate = Math.min(rate, maxRate);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk HTTP cache holding, for every URL, its validators (ETag, Last-Modified) and its gzip-compressed body.
+ * The total size on disk is bounded; the least recently used entries are evicted first.
+ * Only file names, sizes and times are read at startup, entries are read when they are used.
+ */
+public class HttpCache {
+    private static final Logger logger = Logger.getLogger(HttpCache.class.getName());
+    private static final String SUFFIX = ".entry";
+    private static final int FORMAT_VERSION = 1;
+
+    @Getter
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true); // key -> size, in access order
+    private long totalBytes;
+
+    /**
+     * Opens the cache in the given directory, creating it if needed.
+     * @param directory The directory holding the cache entries.
+     * @param maxBytes  The largest total size of the entries on disk.
+     * @throws IOException If the directory cannot be created or listed.
+     */
+    public HttpCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        loadIndex();
+    }
+
+    /**
+     * Rebuilds the LRU order from the entry files, oldest access time first, and removes unfinished writes.
+     */
+    private void loadIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path file : stream.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    files.add(file);
+                } else if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        List<Map.Entry<Path, long[]>> entries = new ArrayList<>(files.size());
+        for (Path file : files) {
+            entries.add(Map.entry(file, new long[]{Files.getLastModifiedTime(file).toMillis(), Files.size(file)}));
+        }
+        entries.sort((a, b) -> Long.compare(a.getValue()[0], b.getValue()[0]));
+        synchronized (this) {
+            for (Map.Entry<Path, long[]> entry : entries) {
+                String name = entry.getKey().getFileName().toString();
+                index.put(name.substring(0, name.length() - SUFFIX.length()), entry.getValue()[1]);
+                totalBytes += entry.getValue()[1];
+            }
+            evict();
+        }
+        logger.log(Level.INFO, "Loaded HTTP cache with {0} entries from {1}", new Object[]{index.size(), directory});
+    }
+
+    /**
+     * @param url The URL of the page.
+     * @return The cached entry, or null if the URL is not cached or its entry cannot be read.
+     */
+    public Entry get(String url) {
+        String key = key(url);
+        synchronized (this) {
+            if (index.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = file(key);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(url)) {
+                return null;
+            }
+            String etag = emptyToNull(in.readUTF());
+            String lastModified = emptyToNull(in.readUTF());
+            String contentType = emptyToNull(in.readUTF());
+            byte[] compressed = in.readAllBytes();
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(etag, lastModified, contentType, compressed);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read cache entry for " + url, e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the body of a page with its validators, replacing any older entry.
+     * @param url          The URL of the page.
+     * @param etag         The ETag response header, or null.
+     * @param lastModified The Last-Modified response header, or null.
+     * @param contentType  The Content-Type response header, or null.
+     * @param body         The decoded body.
+     */
+    public void put(String url, String etag, String lastModified, String contentType, byte[] body) {
+        String key = key(url);
+        Path file = file(key);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 256);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(url);
+                out.writeUTF(etag == null ? "" : etag);
+                out.writeUTF(lastModified == null ? "" : lastModified);
+                out.writeUTF(contentType == null ? "" : contentType);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(body);
+                }
+            }
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (this) {
+                Long previous = index.put(key, (long) bytes.size());
+                totalBytes += bytes.size() - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not write cache entry for " + url, e);
+        }
+    }
+
+    /**
+     * @return The number of cached pages.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return The total size of the cached entries on disk.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits its size limit.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(file(eldest.getKey()));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not delete cache entry " + eldest.getKey(), e);
+            }
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = index.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not delete cache entry " + key, e);
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static String key(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 20);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * A cached page: its validators, content type and gzip-compressed body.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final String contentType;
+        private final byte[] compressedBody;
+
+        /**
+         * @return The decompressed body.
+         * @throws IOException If the stored body is corrupt.
+         */
+        public byte[] body() throws IOException {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressedBody))) {
+                return in.readAllBytes();
+            }
+        }
+    }
+}
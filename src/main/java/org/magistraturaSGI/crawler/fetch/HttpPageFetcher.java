@@ -0,0 +1,126 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.brotli.dec.BrotliInputStream;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+import org.magistraturaSGI.crawler.interfaces.IPageFetcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Fetches pages over one shared, connection-pooled {@link HttpClient}.
+ * Connections are kept alive and reused per host, HTTP/2 is used where the server offers it
+ * and responses are requested gzip, deflate or brotli compressed.
+ */
+public class HttpPageFetcher implements IPageFetcher, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(HttpPageFetcher.class.getName());
+    private static final String ACCEPT_ENCODING = "gzip, deflate, br";
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final int maxBodySize;
+    private final String userAgent;
+
+    /**
+     * Creates a fetcher with the timeouts, body size limit and user agent from the configuration.
+     * @param config The crawler configuration.
+     */
+    public HttpPageFetcher(IConfigurable config) {
+        this.readTimeout = Duration.ofMillis(config.getReadTimeout());
+        this.maxBodySize = config.getMaxBodySize() > 0 ? config.getMaxBodySize() : Integer.MAX_VALUE;
+        this.userAgent = config.getUserAgent();
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeout()))
+                .build();
+    }
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> requestHeaders) throws IOException, InterruptedException {
+        return fetch(url, requestHeaders, 0);
+    }
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> requestHeaders, int maxBodySize) throws IOException, InterruptedException {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(readTimeout)
+                    .header("User-Agent", userAgent)
+                    .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                    .header("Accept-Encoding", ACCEPT_ENCODING)
+                    .GET();
+            requestHeaders.forEach(builder::header);
+            request = builder.build();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        String finalUrl = response.uri().toString();
+        if (response.statusCode() >= 400) {
+            response.body().close();
+            throw new HttpResponseException("HTTP error fetching URL", response.statusCode(), finalUrl, response.headers().map());
+        }
+        if (response.statusCode() == 304) {
+            response.body().close();
+            return new FetchedPage(finalUrl, 304, response.headers().map(), new byte[0]);
+        }
+        try (InputStream body = decode(response)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            boolean truncated = readBody(body, out, maxBodySize > 0 ? maxBodySize : this.maxBodySize, finalUrl);
+            return new FetchedPage(finalUrl, response.statusCode(), response.headers().map(), out.toByteArray(), false, truncated);
+        }
+    }
+
+    /**
+     * Wraps the response body in the decoder named by its Content-Encoding header.
+     */
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(response.body());
+            case "deflate" -> new InflaterInputStream(response.body());
+            case "br" -> new BrotliInputStream(response.body());
+            default -> response.body();
+        };
+    }
+
+    /**
+     * Reads the body up to the size limit; longer bodies are truncated, as Jsoup does.
+     * @return true if the body was longer than the limit.
+     */
+    private static boolean readBody(InputStream body, ByteArrayOutputStream out, int limit, String url) throws IOException {
+        byte[] buffer = new byte[8192];
+        int remaining = limit;
+        int read;
+        while (remaining > 0 && (read = body.read(buffer, 0, Math.min(buffer.length, remaining))) != -1) {
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        if (remaining == 0 && body.read() != -1) {
+            logger.log(Level.FINE, "Truncated body of {0} at {1} bytes", new Object[]{url, limit});
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
@@ -0,0 +1,63 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.jsoup.HttpStatusException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP error status, with the response headers so callers can read Retry-After.
+ */
+public class HttpResponseException extends HttpStatusException {
+    private final transient Map<String, List<String>> headers;
+
+    public HttpResponseException(String message, int statusCode, String url, Map<String, List<String>> headers) {
+        super(message, statusCode, url);
+        this.headers = headers;
+    }
+
+    /**
+     * @param name The header name, case-insensitive.
+     * @return The first value of the header, or null if it is missing.
+     */
+    public String header(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().getFirst();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The wait asked for by the Retry-After header, in seconds or as an HTTP date, or null if there is none.
+     */
+    public Duration retryAfter() {
+        return parseRetryAfter(header("Retry-After"));
+    }
+
+    /**
+     * @param value A Retry-After header value, or null.
+     * @return The wait it asks for, never negative, or null if it is missing or unreadable.
+     */
+    public static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration wait = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return wait.isNegative() ? Duration.ZERO : wait;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
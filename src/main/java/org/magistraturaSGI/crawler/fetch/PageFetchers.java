@@ -0,0 +1,57 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+import org.magistraturaSGI.crawler.interfaces.IPageFetcher;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds the fetch layer used by the crawler from the configuration, one decorator per enabled feature.
+ * In replay mode every page comes from the crawl archive and the network is never used.
+ */
+public final class PageFetchers {
+    private static final Logger logger = Logger.getLogger(PageFetchers.class.getName());
+
+    private PageFetchers() {
+    }
+
+    /**
+     * @param config The crawler configuration.
+     * @return The fetcher every crawl stage should use.
+     */
+    public static IPageFetcher create(IConfigurable config) {
+        if (config.getArchiveMode().equals("replay")) {
+            try {
+                return new ReplayPageFetcher(new ArchiveReader(Path.of(config.getArchiveDirectory())));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not read the crawl archive, no pages can be replayed", e);
+                return (url, headers) -> {
+                    throw new IOException("No crawl archive to replay " + url);
+                };
+            }
+        }
+        IPageFetcher fetcher = new HttpPageFetcher(config);
+        if (config.getCacheMaxSizeMB() > 0) {
+            try {
+                HttpCache cache = new HttpCache(Path.of(config.getCacheDirectory()), config.getCacheMaxSizeMB() * 1024L * 1024L);
+                fetcher = new CachingPageFetcher(fetcher, cache);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not open the HTTP cache, fetching without it", e);
+            }
+        }
+        if (config.getArchiveMode().equals("record")) {
+            try {
+                // segments are memory-mapped when replayed, so each must stay well under 2 GB
+                long segmentBytes = Math.min(Math.max(config.getArchiveSegmentSizeMB(), 1), 1024) * 1024L * 1024L;
+                fetcher = new RecordingPageFetcher(fetcher, new ArchiveWriter(Path.of(config.getArchiveDirectory()), segmentBytes));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not open the crawl archive, crawling without recording", e);
+            }
+        }
+        return fetcher;
+    }
+}
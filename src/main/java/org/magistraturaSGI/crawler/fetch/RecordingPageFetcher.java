@@ -0,0 +1,48 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.interfaces.IPageFetcher;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes every page fetched by the wrapped fetcher to a crawl archive, so the crawl can later be replayed
+ * by {@link ReplayPageFetcher}. A failed write is logged and does not fail the fetch.
+ */
+public class RecordingPageFetcher implements IPageFetcher {
+    private static final Logger logger = Logger.getLogger(RecordingPageFetcher.class.getName());
+
+    private final IPageFetcher delegate;
+    private final ArchiveWriter archive;
+
+    /**
+     * @param delegate The fetcher whose pages are recorded.
+     * @param archive  The archive the pages are appended to.
+     */
+    public RecordingPageFetcher(IPageFetcher delegate, ArchiveWriter archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> requestHeaders) throws IOException, InterruptedException {
+        return fetch(url, requestHeaders, 0);
+    }
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> requestHeaders, int maxBodySize) throws IOException, InterruptedException {
+        FetchedPage page = delegate.fetch(url, requestHeaders, maxBodySize);
+        if (page.getStatusCode() != 304) {
+            try {
+                archive.append(url, page);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not record " + url + " to the crawl archive", e);
+            }
+        }
+        return page;
+    }
+}
@@ -0,0 +1,33 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.interfaces.IPageFetcher;
+
+import java.io.FileNotFoundException;
+import java.util.Map;
+
+/**
+ * Serves every fetch from a crawl archive instead of the network.
+ * Request headers are ignored, so conditional requests always get the archived page.
+ */
+public class ReplayPageFetcher implements IPageFetcher {
+
+    private final ArchiveReader archive;
+
+    /**
+     * @param archive The archive recorded by an earlier crawl.
+     */
+    public ReplayPageFetcher(ArchiveReader archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> requestHeaders) throws FileNotFoundException {
+        FetchedPage page = archive.get(url);
+        if (page == null) {
+            throw new FileNotFoundException("Not in the crawl archive: " + url);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,72 @@
+
+package org.magistraturaSGI.crawler.fetch;
+
+import lombok.Getter;
+import org.jsoup.HttpStatusException;
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+
+import javax.net.ssl.SSLException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which fetch failures are worth another attempt and how long to wait before it.
+ * Waits grow exponentially with random jitter, so the retries of many workers do not hit a host at once.
+ */
+public class RetryPolicy {
+    @Getter
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param maxRetries The attempts made after the first one fails, 0 for none.
+     * @param baseDelay  The longest wait before the first retry.
+     * @param maxDelay   The longest wait before any retry.
+     */
+    public RetryPolicy(int maxRetries, Duration baseDelay, Duration maxDelay) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelayMillis = Math.max(1, baseDelay.toMillis());
+        this.maxDelayMillis = Math.max(baseDelayMillis, maxDelay.toMillis());
+    }
+
+    /**
+     * @param config The crawler configuration.
+     * @return The policy configured by the Retry* settings.
+     */
+    public static RetryPolicy create(IConfigurable config) {
+        return new RetryPolicy(config.getMaxRetries(), Duration.ofMillis(config.getRetryBaseDelayMillis()),
+                Duration.ofMillis(config.getRetryMaxDelayMillis()));
+    }
+
+    /**
+     * Transient failures are those a later attempt may not meet: timeouts, refused or reset connections,
+     * unresolved hosts, and the HTTP statuses 408, 425, 429, 500, 502, 503 and 504.
+     * They also count against the health of the host.
+     * @param e The exception a fetch failed with.
+     * @return true if the failure is transient.
+     */
+    public static boolean isTransient(IOException e) {
+        if (e instanceof HttpStatusException status) {
+            return switch (status.getStatusCode()) {
+                case 408, 425, 429, 500, 502, 503, 504 -> true;
+                default -> false;
+            };
+        }
+        // a page missing from the archive, a bad certificate or a malformed URL fails the same way every time
+        return !(e instanceof FileNotFoundException || e instanceof SSLException
+                || e.getCause() instanceof IllegalArgumentException);
+    }
+
+    /**
+     * @param retry The number of the retry, starting at 1.
+     * @return A random wait between half and all of the base delay doubled for every earlier retry, at most the max delay.
+     */
+    public Duration backoff(int retry) {
+        long cap = baseDelayMillis << Math.min(retry - 1, 20);
+        cap = Math.min(cap <= 0 ? maxDelayMillis : cap, maxDelayMillis);
+        return Duration.ofMillis(cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1));
+    }
+}
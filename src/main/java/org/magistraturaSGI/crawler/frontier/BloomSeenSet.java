@@ -0,0 +1,101 @@
+
+package org.magistraturaSGI.crawler.frontier;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.interfaces.ISeenSet;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate seen-set for very large crawls, using a fixed amount of memory.
+ * It never reports a seen URL as new, but may report a small fraction of new URLs as already seen.
+ */
+public class BloomSeenSet implements ISeenSet {
+    private final AtomicLongArray bits;
+    @Getter
+    private final long bitCount;
+    @Getter
+    private final int hashCount;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Sizes the filter for the expected number of URLs and the accepted false positive rate.
+     * @param expectedUrls      The number of URLs the crawl is expected to see.
+     * @param falsePositiveRate The accepted chance of a new URL being reported as seen.
+     */
+    public BloomSeenSet(long expectedUrls, double falsePositiveRate) {
+        long n = Math.max(1, expectedUrls);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        bitCount = Math.max(64, (m + 63) / 64 * 64);
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+        bits = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    @Override
+    public boolean add(String url) {
+        long hash = hash64(url);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | (hash << 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long previous = bits.getAndUpdate(index, word -> word | mask);
+            changed |= (previous & mask) == 0;
+        }
+        if (changed) {
+            size.incrementAndGet();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long hash = hash64(url);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | (hash << 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of URLs added as new, an estimate of the distinct URLs seen.
+     */
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < bits.length(); i++) {
+            bits.set(i, 0);
+        }
+        size.set(0);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of the string, finished with a MurmurHash3 mix.
+     */
+    private static long hash64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,34 @@
+
+package org.magistraturaSGI.crawler.frontier;
+
+import org.magistraturaSGI.crawler.interfaces.ISeenSet;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact seen-set backed by a concurrent hash set. Lookups and inserts are O(1).
+ */
+public class ConcurrentSeenSet implements ISeenSet {
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(String url) {
+        return urls.add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return urls.contains(url);
+    }
+
+    @Override
+    public long size() {
+        return urls.size();
+    }
+
+    @Override
+    public void clear() {
+        urls.clear();
+    }
+}
@@ -0,0 +1,201 @@
+
+package org.magistraturaSGI.crawler.frontier;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+import org.magistraturaSGI.crawler.interfaces.IPagePriority;
+import org.magistraturaSGI.crawler.interfaces.ISeenSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Queue of pages waiting to be crawled, together with the set of every URL already queued or fetched.
+ * URLs are normalized before they are checked, so a page is only queued once however it was linked.
+ * Each site has its own queue, ordered by the priority a page had when it was queued and then first in, first out.
+ * Sites take turns, so a site with many pages queued does not hold back the others.
+ */
+public class Frontier {
+    private final Map<String, PriorityQueue<Entry>> queues = new HashMap<>(); // site name -> its pages, guarded by this
+    private final ArrayDeque<String> turns = new ArrayDeque<>(); // sites with pages queued, in the order they are served
+    private final Set<String> queued = new HashSet<>(); // normalized URLs queued now
+    private final Semaphore available = new Semaphore(0); // one permit per queued site
+    private long sequence; // guarded by this
+    private int size; // guarded by this
+    private volatile IPagePriority priority = page -> 0;
+    @Getter
+    private final ISeenSet seenSet;
+
+    /**
+     * Creates a frontier that keeps its seen URLs in the given set.
+     * @param seenSet The set of seen URLs.
+     */
+    public Frontier(ISeenSet seenSet) {
+        this.seenSet = seenSet;
+    }
+
+    /**
+     * Creates a frontier with an exact seen-set, or a Bloom filter when {@code BloomFilterCapacity} is configured.
+     * @param config The crawler configuration.
+     * @return The new frontier.
+     */
+    public static Frontier create(IConfigurable config) {
+        if (config.getBloomFilterCapacity() > 0) {
+            return new Frontier(new BloomSeenSet(config.getBloomFilterCapacity(), config.getBloomFilterFalsePositiveRate()));
+        }
+        return new Frontier(new ConcurrentSeenSet());
+    }
+
+    /**
+     * @param priority Ranks the pages queued from now on, higher first.
+     */
+    public void setPriority(IPagePriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Queues the site with its normalized URL, unless that URL was seen before.
+     * @param site The site to queue.
+     * @return true if the site was queued.
+     */
+    public boolean push(Site site) {
+        String url = UrlNormalizer.normalize(site.getUrl());
+        if (!seenSet.add(url)) {
+            return false;
+        }
+        add(url.equals(site.getUrl()) ? site : new Site(site.getName(), url, site.isSearched()));
+        return true;
+    }
+
+    /**
+     * Queues a page again though it was seen before, to recrawl it, unless it is queued now.
+     * @param site The page to queue.
+     * @return true if the page was queued.
+     */
+    public boolean revisit(Site site) {
+        String url = UrlNormalizer.normalize(site.getUrl());
+        seenSet.add(url);
+        synchronized (this) {
+            if (queued.contains(url)) {
+                return false;
+            }
+            add(url.equals(site.getUrl()) ? site : new Site(site.getName(), url, site.isSearched()));
+        }
+        return true;
+    }
+
+    private void add(Site site) {
+        double rank = priority.priority(site);
+        synchronized (this) {
+            PriorityQueue<Entry> queue = queues.computeIfAbsent(site.getName(), name -> new PriorityQueue<>());
+            if (queue.isEmpty()) {
+                turns.add(site.getName());
+            }
+            queue.add(new Entry(site, rank, sequence++));
+            queued.add(site.getUrl());
+            size++;
+        }
+        available.release();
+    }
+
+    /**
+     * Marks a URL as seen without queueing it, used for job pages that are fetched directly.
+     * @param url The URL to mark.
+     * @return true if the URL was not seen before.
+     */
+    public boolean markSeen(String url) {
+        return seenSet.add(UrlNormalizer.normalize(url));
+    }
+
+    /**
+     * @param url The URL to check.
+     * @return true if the URL, once normalized, was seen before.
+     */
+    public boolean isSeen(String url) {
+        return seenSet.contains(UrlNormalizer.normalize(url));
+    }
+
+    /**
+     * @return The next site to crawl, or null if the queue is empty.
+     */
+    public Site poll() {
+        return available.tryAcquire() ? next() : null;
+    }
+
+    /**
+     * Waits until a site is queued and takes it.
+     * @return The next site to crawl.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public Site take() throws InterruptedException {
+        available.acquire();
+        return next();
+    }
+
+    /**
+     * @return The best page of the site whose turn it is, after which the site waits for the other sites' turns.
+     */
+    private synchronized Site next() {
+        String name = turns.poll();
+        if (name == null) {
+            return null; // emptied by clear() after the permit was taken
+        }
+        PriorityQueue<Entry> queue = queues.get(name);
+        Site site = queue.poll().site();
+        if (!queue.isEmpty()) {
+            turns.add(name);
+        }
+        queued.remove(site.getUrl());
+        size--;
+        return site;
+    }
+
+    /**
+     * @return The sites queued now, each site's pages in the order they will be taken.
+     */
+    public synchronized List<Site> pending() {
+        List<Site> pages = new ArrayList<>(size);
+        for (String name : turns) {
+            queues.get(name).stream().sorted().forEach(entry -> pages.add(entry.site()));
+        }
+        return pages;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Empties the queue and forgets every seen URL.
+     */
+    public void clear() {
+        synchronized (this) {
+            available.drainPermits();
+            queues.clear();
+            turns.clear();
+            queued.clear();
+            size = 0;
+        }
+        seenSet.clear();
+    }
+
+    private record Entry(Site site, double priority, long sequence) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byPriority = Double.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
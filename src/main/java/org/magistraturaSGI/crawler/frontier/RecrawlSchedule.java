@@ -0,0 +1,181 @@
+
+package org.magistraturaSGI.crawler.frontier;
+
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.interfaces.IConfigurable;
+import org.magistraturaSGI.crawler.interfaces.IPagePriority;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Learns how often each listing page shows new jobs, to rank the pages in the frontier and to tell when each page
+ * is due to be crawled again. A page's recrawl interval halves every time a visit finds new jobs on it and doubles
+ * every time a visit finds none, within the minimum and maximum intervals; its rate of new jobs per hour is a moving
+ * average over its visits. First pages of sites rank above every other page, then pages by the new jobs expected
+ * on them since their last visit, so deep pages that never change are visited rarely and late.
+ */
+public class RecrawlSchedule implements IPagePriority {
+    private static final double FIRST_PAGE = 1e9; // above any expected number of new jobs
+    private static final double NOT_VISITED = 1.0; // new jobs expected on a page never visited
+    private static final double CHANGED = 1.0; // added for a page whose last visit found new jobs
+    private static final double SMOOTHING = 0.3; // weight of the latest visit in the rate of new jobs
+
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Map<String, Page> pages = new ConcurrentHashMap<>(); // normalized URL -> what is known of it
+
+    /**
+     * @param minInterval The shortest time between two visits to a page.
+     * @param maxInterval The longest time between two visits to a page.
+     */
+    public RecrawlSchedule(Duration minInterval, Duration maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval.compareTo(minInterval) < 0 ? minInterval : maxInterval;
+    }
+
+    /**
+     * @param config The crawler configuration.
+     * @return A schedule with the configured recrawl intervals.
+     */
+    public static RecrawlSchedule create(IConfigurable config) {
+        return new RecrawlSchedule(Duration.ofSeconds(Math.max(1, config.getRecrawlMinSeconds())),
+                Duration.ofSeconds(Math.max(1, config.getRecrawlMaxSeconds())));
+    }
+
+    /**
+     * Records the first listing page of a site, which ranks above the others and is due until it is visited.
+     * @param site The site, with the URL of its first page.
+     */
+    public void addFirstPage(Site site) {
+        String url = UrlNormalizer.normalize(site.getUrl());
+        Page state = pages.computeIfAbsent(url, key -> new Page(site.getName(), url, minInterval));
+        synchronized (state) {
+            state.firstPage = true;
+        }
+    }
+
+    /**
+     * Records a visit to a listing page and learns from the new jobs it showed.
+     * @param page    The page, with its normalized URL.
+     * @param newJobs The jobs on the page not seen before.
+     * @param now     The time of the visit.
+     */
+    public void visited(Site page, int newJobs, Instant now) {
+        Page state = pages.computeIfAbsent(page.getUrl(), url -> new Page(page.getName(), url, minInterval));
+        synchronized (state) {
+            if (state.lastVisit != null) { // the first visit finds every job new, so it tells nothing of the page
+                double hours = Math.max(1.0 / 60, Duration.between(state.lastVisit, now).toMillis() / 3_600_000.0);
+                state.jobsPerHour = SMOOTHING * (newJobs / hours) + (1 - SMOOTHING) * state.jobsPerHour;
+                Duration interval = newJobs > 0 ? state.interval.dividedBy(2) : state.interval.multipliedBy(2);
+                state.interval = interval.compareTo(minInterval) < 0 ? minInterval
+                        : interval.compareTo(maxInterval) > 0 ? maxInterval : interval;
+                state.changed = newJobs > 0;
+            }
+            state.lastVisit = now;
+        }
+    }
+
+    @Override
+    public double priority(Site page) {
+        return priority(page, Instant.now());
+    }
+
+    /**
+     * @param page A listing page, with its normalized URL.
+     * @param now  The current time.
+     * @return The rank of the page in the frontier, higher first.
+     */
+    public double priority(Site page, Instant now) {
+        Page state = pages.get(page.getUrl());
+        if (state == null) {
+            return NOT_VISITED;
+        }
+        synchronized (state) {
+            double rank = state.firstPage ? FIRST_PAGE : 0;
+            if (state.lastVisit == null) {
+                return rank + NOT_VISITED;
+            }
+            double hours = Duration.between(state.lastVisit, now).toMillis() / 3_600_000.0;
+            return rank + state.jobsPerHour * Math.max(0, hours) + (state.changed ? CHANGED : 0);
+        }
+    }
+
+    /**
+     * @param now The current time.
+     * @return The pages due to be visited, first pages first, then by rank.
+     */
+    public List<Site> due(Instant now) {
+        List<Site> due = new ArrayList<>();
+        for (Page state : pages.values()) {
+            synchronized (state) {
+                if (state.lastVisit == null || !state.lastVisit.plus(state.interval).isAfter(now)) {
+                    due.add(new Site(state.site, state.url, true));
+                }
+            }
+        }
+        due.sort(Comparator.comparingDouble((Site page) -> priority(page, now)).reversed());
+        return due;
+    }
+
+    /**
+     * @return When the next page is due to be visited, or null if no page is known.
+     */
+    public Instant nextDue() {
+        Instant next = null;
+        for (Page state : pages.values()) {
+            synchronized (state) {
+                Instant due = state.lastVisit == null ? Instant.MIN : state.lastVisit.plus(state.interval);
+                if (next == null || due.isBefore(next)) {
+                    next = due;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @param url The normalized URL of a listing page.
+     * @return The time the page is left between visits, or null if it is not known.
+     */
+    public Duration interval(String url) {
+        Page state = pages.get(url);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            return state.interval;
+        }
+    }
+
+    /**
+     * @return The number of listing pages known.
+     */
+    public int size() {
+        return pages.size();
+    }
+
+    /**
+     * What is known of one listing page, guarded by itself.
+     */
+    private static final class Page {
+        private final String site;
+        private final String url;
+        private boolean firstPage;
+        private Instant lastVisit; // null until the page is visited
+        private Duration interval;
+        private double jobsPerHour;
+        private boolean changed; // the last visit found new jobs
+
+        private Page(String site, String url, Duration interval) {
+            this.site = site;
+            this.url = url;
+            this.interval = interval;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+
+package org.magistraturaSGI.crawler.frontier;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The parts of a robots.txt file the crawler uses: the sitemaps it lists, and the crawl-delay of the group
+ * that applies to the crawler's user agent, or else of the {@code *} group.
+ */
+@Getter
+public class RobotsTxt {
+    private final List<String> sitemaps;
+    private final Duration crawlDelay; // zero if no group sets one
+
+    private RobotsTxt(List<String> sitemaps, Duration crawlDelay) {
+        this.sitemaps = sitemaps;
+        this.crawlDelay = crawlDelay;
+    }
+
+    /**
+     * @param text      The robots.txt file.
+     * @param userAgent The crawler's user agent; its first word is matched against the groups.
+     * @return The sitemaps and crawl-delay of the file.
+     */
+    public static RobotsTxt parse(String text, String userAgent) {
+        String agent = userAgent.trim().split("[\\s/]", 2)[0].toLowerCase(Locale.ROOT);
+        List<String> sitemaps = new ArrayList<>();
+        Duration agentDelay = null;
+        Duration anyDelay = null;
+        boolean forAgent = false;
+        boolean forAny = false;
+        boolean groupStarted = false; // a rule line ends the user-agent lines of a group
+        for (String line : text.split("\r?\n|\r")) {
+            int comment = line.indexOf('#');
+            String content = (comment < 0 ? line : line.substring(0, comment)).trim();
+            int colon = content.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String field = content.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = content.substring(colon + 1).trim();
+            switch (field) {
+                case "sitemap" -> {
+                    if (!value.isEmpty()) {
+                        sitemaps.add(value);
+                    }
+                }
+                case "user-agent" -> {
+                    if (groupStarted) {
+                        forAgent = false;
+                        forAny = false;
+                        groupStarted = false;
+                    }
+                    String name = value.toLowerCase(Locale.ROOT);
+                    forAny |= name.equals("*");
+                    forAgent |= !agent.isEmpty() && !name.equals("*") && agent.startsWith(name);
+                }
+                case "crawl-delay" -> {
+                    groupStarted = true;
+                    Duration delay = parseDelay(value);
+                    if (delay != null && forAgent) {
+                        agentDelay = delay;
+                    } else if (delay != null && forAny) {
+                        anyDelay = delay;
+                    }
+                }
+                default -> groupStarted = true;
+            }
+        }
+        Duration delay = agentDelay != null ? agentDelay : anyDelay;
+        return new RobotsTxt(List.copyOf(sitemaps), delay == null ? Duration.ZERO : delay);
+    }
+
+    private static Duration parseDelay(String value) {
+        try {
+            double seconds = Double.parseDouble(value);
+            return seconds > 0 ? Duration.ofMillis((long) (seconds * 1000)) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+
+package org.magistraturaSGI.crawler.frontier;
+
+import org.magistraturaSGI.crawler.interfaces.ISitemapListener;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads sitemaps and sitemap indexes (sitemaps.org protocol) with a StAX pull parser, one entry at a time,
+ * so a sitemap of any size is read in constant memory. Gzipped sitemaps are recognized by their first bytes.
+ */
+public final class SitemapReader {
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    }
+
+    private SitemapReader() {
+    }
+
+    /**
+     * Reads a sitemap, passing each page to the listener, or a sitemap index, passing each sitemap.
+     * @param in       The sitemap, plain or gzipped.
+     * @param listener Receives the entries in the order they appear.
+     * @return The number of pages passed to the listener.
+     * @throws IOException If the sitemap cannot be read or is not well-formed.
+     * @throws InterruptedException If the listener is interrupted.
+     */
+    public static int read(InputStream in, ISitemapListener listener) throws IOException, InterruptedException {
+        XMLStreamReader reader = null;
+        int pages = 0;
+        try {
+            reader = FACTORY.createXMLStreamReader(decompress(in));
+            String loc = null;
+            String lastmod = null;
+            StringBuilder text = new StringBuilder();
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> text.setLength(0);
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText());
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        switch (localName(reader.getLocalName())) {
+                            case "loc" -> loc = text.toString().trim();
+                            case "lastmod" -> lastmod = text.toString().trim();
+                            case "sitemap" -> {
+                                if (loc != null && !loc.isEmpty()) {
+                                    listener.sitemap(loc);
+                                }
+                                loc = null;
+                                lastmod = null;
+                            }
+                            case "url" -> {
+                                if (loc != null && !loc.isEmpty()) {
+                                    pages++;
+                                    if (!listener.page(loc, parseLastModified(lastmod))) {
+                                        return pages;
+                                    }
+                                }
+                                loc = null;
+                                lastmod = null;
+                            }
+                            default -> {
+                            }
+                        }
+                        text.setLength(0);
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return pages;
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed sitemap", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // the stream is closed by the caller
+                }
+            }
+        }
+    }
+
+    private static InputStream decompress(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        return first == 0x1f && second == 0x8b ? new GZIPInputStream(buffered, 16 * 1024) : buffered;
+    }
+
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon < 0 ? name : name.substring(colon + 1);
+    }
+
+    /**
+     * @param value A W3C datetime: a date, or a date and time with a time zone.
+     * @return The instant, or null if the value is missing or cannot be read.
+     */
+    static Instant parseLastModified(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+
+package org.magistraturaSGI.crawler.frontier;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Brings URLs to one canonical form so that the same page is only fetched once.
+ * The scheme and host are lowercased, default ports, fragments and tracking parameters are removed
+ * and percent-encoding is canonicalized, so {@code /работа/} and {@code /%d1%80%d0%b0...} compare equal.
+ */
+public final class UrlNormalizer {
+    private static final Set<String> TRACKING_PARAMETERS = Set.of(
+            "gclid", "fbclid", "msclkid", "yclid", "dclid", "igshid", "_ga", "_gl", "mc_cid", "mc_eid");
+    private static final String PATH_LITERALS = "/:@!$&'()*+,;=";
+    private static final String QUERY_LITERALS = "/:@!$'()*+,;?";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Normalizes an absolute URL. URLs that cannot be parsed are returned trimmed but otherwise unchanged.
+     * @param url The URL to normalize.
+     * @return The canonical form of the URL.
+     */
+    public static String normalize(String url) {
+        String trimmed = url.trim();
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+            return trimmed;
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        sb.append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            sb.append(uri.getRawUserInfo()).append('@');
+        }
+        String host = uri.getHost() != null ? uri.getHost() : uri.getRawAuthority();
+        sb.append(host.toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            sb.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            sb.append('/');
+        } else {
+            canonicalEncode(path, PATH_LITERALS, sb);
+        }
+        String query = uri.getRawQuery();
+        if (query != null) {
+            appendQuery(query, sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends the query without tracking or empty parameters, keeping the order of the others.
+     */
+    private static void appendQuery(String query, StringBuilder sb) {
+        boolean first = true;
+        for (String parameter : query.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int eq = parameter.indexOf('=');
+            String name = eq < 0 ? parameter : parameter.substring(0, eq);
+            if (isTrackingParameter(name)) {
+                continue;
+            }
+            sb.append(first ? '?' : '&');
+            first = false;
+            canonicalEncode(name, QUERY_LITERALS, sb);
+            if (eq >= 0) {
+                sb.append('=');
+                canonicalEncode(parameter.substring(eq + 1), QUERY_LITERALS + "=", sb);
+            }
+        }
+    }
+
+    private static boolean isTrackingParameter(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.startsWith("utm_") || TRACKING_PARAMETERS.contains(lower);
+    }
+
+    /**
+     * Rewrites one URL component so that unreserved characters are literal and everything else
+     * that is not an allowed literal is percent-encoded as uppercase UTF-8 escapes.
+     */
+    private static void canonicalEncode(String component, String literals, StringBuilder sb) {
+        int i = 0;
+        while (i < component.length()) {
+            char c = component.charAt(i);
+            if (c == '%' && i + 2 < component.length() && isHex(component.charAt(i + 1)) && isHex(component.charAt(i + 2))) {
+                int b = Character.digit(component.charAt(i + 1), 16) << 4 | Character.digit(component.charAt(i + 2), 16);
+                if (isUnreserved((char) b)) {
+                    sb.append((char) b);
+                } else {
+                    appendEscape(b, sb);
+                }
+                i += 3;
+            } else if (c < 0x80 && (isUnreserved(c) || literals.indexOf(c) >= 0)) {
+                sb.append(c);
+                i++;
+            } else {
+                int codePoint = component.codePointAt(i);
+                for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                    appendEscape(b & 0xff, sb);
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+    }
+
+    private static void appendEscape(int b, StringBuilder sb) {
+        sb.append('%').append(HEX[b >> 4]).append(HEX[b & 0xf]);
+    }
+
+    private static boolean isHex(char c) {
+        return Character.digit(c, 16) >= 0 && c < 0x80;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+}
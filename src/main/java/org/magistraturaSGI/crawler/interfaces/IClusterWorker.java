@@ -0,0 +1,9 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+import org.magistraturaSGI.crawler.dataobjects.CrawlWork;
+
+// Interface for the crawl run by a cluster node, which takes the pages the coordinator routes to the node
+public interface IClusterWorker {
+    void accept(CrawlWork work) throws InterruptedException;
+    long getPendingTasks();
+}
@@ -1,13 +1,67 @@
 package org.magistraturaSGI.crawler.interfaces;
 
 import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.dataobjects.SiteProfile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface IConfigurable {
     int getThreadCount();
     int getDeathTimer();
+    int getDrainSeconds();
+    int getMaxInFlight();
+    int getDetailFetchWorkers();
+    int getExtractWorkers();
+    int getStageQueueCapacity();
+    int getConnectTimeout();
+    int getReadTimeout();
+    int getMaxBodySize();
+    String getUserAgent();
+    String getCacheDirectory();
+    int getCacheMaxSizeMB();
+    boolean isIncrementalCrawl();
+    String getJobStoreFile();
+    int getBloomFilterCapacity();
+    double getBloomFilterFalsePositiveRate();
+    int getTitleScanMaxBytes();
+    String getArchiveMode();
+    String getArchiveDirectory();
+    int getArchiveSegmentSizeMB();
+    int getMetricsIntervalSeconds();
+    boolean isJmxEnabled();
+    String getExportFile();
+    int getExportBatchSize();
+    boolean isStreamExport();
+    double getHostRequestsPerSecond();
+    double getHostMinRequestsPerSecond();
+    double getHostMaxRequestsPerSecond();
+    int getHostBurst();
+    int getLatencyTargetMillis();
+    int getMaxRetries();
+    int getRetryBaseDelayMillis();
+    int getRetryMaxDelayMillis();
+    int getCircuitFailureThreshold();
+    int getCircuitOpenSeconds();
+    String getClusterCoordinator();
+    int getClusterPort();
+    int getClusterMinNodes();
+    int getClusterNodeTimeoutSeconds();
+    int getDuplicateIndexCapacity();
+    int getDuplicateMaxDistance();
+    String getCheckpointFile();
+    int getCheckpointIntervalSeconds();
+    boolean isSitemapDiscovery();
+    int getMaxSitemapSize();
+    boolean isFastLinkScan();
+    int getRecrawlMinSeconds();
+    int getRecrawlMaxSeconds();
+    String getExternalConfigFile();
     List<Site> getSiteList();
+    boolean isSiteEnabled(String siteName);
+    SiteProfile getSiteProfile(String siteName);
 
     void loadFromFile() ;
+    void loadFromFile(Path file) throws IOException;
 }
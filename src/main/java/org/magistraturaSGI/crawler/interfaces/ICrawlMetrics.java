@@ -0,0 +1,20 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+import javax.management.MXBean;
+import java.util.Map;
+
+// Interface for the metrics of the whole crawl, exposed over JMX
+@MXBean
+public interface ICrawlMetrics {
+    boolean isCrawling();
+    double getElapsedSeconds();
+    long getListings();
+    double getListingsPerSecond();
+    long getFetches();
+    long getBytesDownloaded();
+    int getFrontierSize();
+    int getInFlightRequests();
+    long getPendingTasks();
+    Map<String, Integer> getQueueDepths();
+    String getSummary();
+}
@@ -1,11 +1,22 @@
 
 package org.magistraturaSGI.crawler.interfaces;
 import org.magistraturaSGI.crawler.dataobjects.JobListing;
-import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
-public interface IJobExporter {
-    static File export(List<JobListing> jobListings) {
-        return null;
-    }
+/**
+ * Sink that job listings are written to one at a time, as they are found.
+ */
+public interface IJobExporter extends AutoCloseable {
+    void write(JobListing listing) throws IOException;
+
+    /**
+     * Adds the copies on other sites of a listing written earlier, found after it was written.
+     * @param url           The URL of the listing.
+     * @param alternateUrls The URLs of its copies.
+     */
+    void writeAlternates(String url, List<String> alternateUrls) throws IOException;
+    void flush() throws IOException;
+    @Override
+    void close() throws IOException;
 }
@@ -0,0 +1,28 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Interface for the layer every crawl fetch goes through
+public interface IPageFetcher {
+    /**
+     * Fetches the URL, sending the given extra request headers.
+     * Responses with status 304 are returned, not thrown, so callers can use conditional requests.
+     */
+    FetchedPage fetch(String url, Map<String, String> requestHeaders) throws IOException, InterruptedException;
+
+    /**
+     * Fetches the URL, reading at most the given number of body bytes instead of the fetcher's own limit.
+     * A body cut at the limit is marked truncated. Fetchers that read no bodies from the network ignore the limit.
+     * @param maxBodySize The most bytes of the decoded body read, 0 for the fetcher's own limit.
+     */
+    default FetchedPage fetch(String url, Map<String, String> requestHeaders, int maxBodySize) throws IOException, InterruptedException {
+        return fetch(url, requestHeaders);
+    }
+
+    default FetchedPage fetch(String url) throws IOException, InterruptedException {
+        return fetch(url, Map.of());
+    }
+}
@@ -0,0 +1,8 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+import org.magistraturaSGI.crawler.dataobjects.Site;
+
+// Interface for ranking the pages waiting in the frontier, higher first
+public interface IPagePriority {
+    double priority(Site page);
+}
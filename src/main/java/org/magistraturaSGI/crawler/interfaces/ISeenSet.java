@@ -0,0 +1,13 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+// Interface for the set of URLs the crawler has already seen
+public interface ISeenSet {
+    /**
+     * @param url The normalized URL.
+     * @return true if the URL was not seen before.
+     */
+    boolean add(String url);
+    boolean contains(String url);
+    long size();
+    void clear();
+}
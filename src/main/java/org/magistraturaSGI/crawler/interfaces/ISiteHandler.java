@@ -1,11 +1,19 @@
 package org.magistraturaSGI.crawler.interfaces;
 
+import org.jsoup.nodes.Document;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
 import org.magistraturaSGI.crawler.dataobjects.Site;
 
+import java.util.List;
+
 // Interface for handling site-related operations
 public interface ISiteHandler {
     void addSitesToSearch();
     void setSiteSelectors(Site site);
-    void findPageLinks(Site site);
-    void findJobListings();
+    List<Site> findPageLinks(Site site, Document document);
+    List<String> findJobLinks(Site site, Document document);
+    List<Site> findPageLinks(Site site, String html, String pageUrl);
+    List<String> findJobLinks(Site site, String html, String pageUrl);
+    List<JobListing> findJobCards(Site site, Document document);
+    JobListing findJobListing(Site site, String jobUrl, Document document);
 }
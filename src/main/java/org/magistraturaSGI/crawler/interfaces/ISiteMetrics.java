@@ -0,0 +1,25 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+import javax.management.MXBean;
+import java.util.Map;
+
+// Interface for the metrics of one site, exposed over JMX
+@MXBean
+public interface ISiteMetrics {
+    String getSite();
+    long getFetches();
+    long getErrors();
+    long getRetries();
+    long getSkipped();
+    double getFetchLatencyMeanMillis();
+    long getFetchLatencyP50Millis();
+    long getFetchLatencyP95Millis();
+    long getFetchLatencyP99Millis();
+    double getFetchLatencyMaxMillis();
+    long getBytesDownloaded();
+    Map<String, Long> getStatusCounts();
+    double getParseTimeMeanMillis();
+    long getParseTimeP95Millis();
+    long getListings();
+    double getListingsPerSecond();
+}
@@ -0,0 +1,9 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+import java.time.Instant;
+
+// Interface for receiving the entries of a sitemap as it is read
+public interface ISitemapListener {
+    void sitemap(String url);
+    boolean page(String url, Instant lastModified) throws InterruptedException;
+}
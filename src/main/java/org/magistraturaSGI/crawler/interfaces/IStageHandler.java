@@ -0,0 +1,7 @@
+package org.magistraturaSGI.crawler.interfaces;
+
+// Interface for the work done on each item of a crawl pipeline stage
+@FunctionalInterface
+public interface IStageHandler<T> {
+    void handle(T item) throws Exception;
+}
@@ -0,0 +1,222 @@
+
+package org.magistraturaSGI.crawler.metrics;
+
+import org.magistraturaSGI.crawler.engine.CrawlEngine;
+import org.magistraturaSGI.crawler.engine.Stage;
+import org.magistraturaSGI.crawler.frontier.Frontier;
+import org.magistraturaSGI.crawler.interfaces.ICrawlMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Metrics of the crawl: per-site counters plus gauges read from the running engine and frontier.
+ * When JMX is enabled, the crawl and every site are registered as MXBeans under
+ * {@code org.magistraturaSGI.crawler:type=Crawl} and {@code org.magistraturaSGI.crawler:type=Site,name=...}.
+ * Counters are reset when a crawl begins.
+ */
+public class CrawlMetrics implements ICrawlMetrics, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(CrawlMetrics.class.getName());
+    static final String DOMAIN = "org.magistraturaSGI.crawler";
+
+    private final Map<String, SiteMetrics> sites = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final boolean jmx;
+    private volatile Frontier frontier;
+    private volatile CrawlEngine engine;
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    /**
+     * @param jmx Whether to register the metrics as MXBeans in the platform MBean server.
+     */
+    public CrawlMetrics(boolean jmx) {
+        this.jmx = jmx;
+        register(DOMAIN + ":type=Crawl", this);
+    }
+
+    /**
+     * @param site The name of a site.
+     * @return The metrics of the site, created the first time it is asked for.
+     */
+    public SiteMetrics site(String site) {
+        SiteMetrics metrics = sites.get(site);
+        if (metrics != null) {
+            return metrics;
+        }
+        return sites.computeIfAbsent(site, name -> {
+            SiteMetrics created = new SiteMetrics(name, this);
+            register(DOMAIN + ":type=Site,name=" + ObjectName.quote(name), created);
+            return created;
+        });
+    }
+
+    /**
+     * @return The metrics of every site seen so far.
+     */
+    public Collection<SiteMetrics> getSites() {
+        return sites.values();
+    }
+
+    /**
+     * Resets every counter and starts reading the gauges of a new crawl.
+     */
+    public void beginCrawl(Frontier frontier, CrawlEngine engine) {
+        sites.values().forEach(SiteMetrics::reset);
+        this.frontier = frontier;
+        this.engine = engine;
+        endNanos = 0;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops the crawl clock and the engine gauges; the counters keep their values until the next crawl.
+     */
+    public void endCrawl() {
+        endNanos = System.nanoTime();
+        engine = null;
+    }
+
+    @Override
+    public boolean isCrawling() {
+        return engine != null;
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return (end - startNanos) / 1e9;
+    }
+
+    @Override
+    public long getListings() {
+        return sites.values().stream().mapToLong(SiteMetrics::getListings).sum();
+    }
+
+    @Override
+    public double getListingsPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds <= 0 ? 0 : getListings() / seconds;
+    }
+
+    @Override
+    public long getFetches() {
+        return sites.values().stream().mapToLong(SiteMetrics::getFetches).sum();
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return sites.values().stream().mapToLong(SiteMetrics::getBytesDownloaded).sum();
+    }
+
+    @Override
+    public int getFrontierSize() {
+        Frontier current = frontier;
+        return current == null ? 0 : current.size();
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        CrawlEngine current = engine;
+        return current == null ? 0 : current.getInFlight();
+    }
+
+    @Override
+    public long getPendingTasks() {
+        CrawlEngine current = engine;
+        return current == null ? 0 : current.getPendingTasks();
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        CrawlEngine current = engine;
+        if (current != null) {
+            for (Stage<?> stage : current.getStages()) {
+                depths.put(stage.getName(), stage.getQueueDepth());
+            }
+        }
+        return depths;
+    }
+
+    /**
+     * @return One line with the crawl totals, the gauges and each site's fetches, p95 latency, bytes and errors.
+     */
+    @Override
+    public String getSummary() {
+        StringBuilder line = new StringBuilder(256);
+        line.append(String.format(Locale.ROOT, "%.1fs | listings %d (%.1f/s) | frontier %d | in flight %d | queues",
+                getElapsedSeconds(), getListings(), getListingsPerSecond(), getFrontierSize(), getInFlightRequests()));
+        getQueueDepths().forEach((stage, depth) -> line.append(' ').append(stage).append('=').append(depth));
+        for (SiteMetrics site : sites.values()) {
+            line.append(String.format(Locale.ROOT, " | %s %d req p95 %dms %.1fMB", site.getSite(), site.getFetches(),
+                    site.getFetchLatencyP95Millis(), site.getBytesDownloaded() / 1048576.0));
+            if (site.getErrors() > 0) {
+                line.append(' ').append(site.getErrors()).append(" err");
+            }
+            if (site.getRetries() > 0) {
+                line.append(' ').append(site.getRetries()).append(" retried");
+            }
+            if (site.getSkipped() > 0) {
+                line.append(' ').append(site.getSkipped()).append(" skipped");
+            }
+            long throttled = site.getStatusCount(429) + site.getStatusCount(503);
+            if (throttled > 0) {
+                line.append(' ').append(throttled).append(" throttled");
+            }
+        }
+        return line.toString();
+    }
+
+    private void register(String name, Object mbean) {
+        if (!jmx) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            // a newer crawler in the same JVM takes over the names of an older one
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+            synchronized (registered) {
+                registered.add(objectName);
+            }
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Could not register metrics MBean " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters every MXBean registered by these metrics.
+     */
+    @Override
+    public void close() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (registered) {
+            for (ObjectName name : registered) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException e) {
+                    logger.log(Level.FINE, "Metrics MBean {0} was already unregistered", name);
+                }
+            }
+            registered.clear();
+        }
+    }
+}
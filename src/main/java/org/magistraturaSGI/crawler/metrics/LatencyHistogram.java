@@ -0,0 +1,73 @@
+
+package org.magistraturaSGI.crawler.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in power-of-two millisecond buckets (up to 1 ms, 2 ms, 4 ms, ... 65 s, more).
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 18; // the last bucket holds everything over 2^16 ms
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos The measured duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        long millis = Math.max(0, nanos) / 1_000_000;
+        int bucket = millis <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(millis - 1);
+        counts.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound in milliseconds of the bucket holding the percentile, or 0 if nothing was recorded.
+     */
+    public long getPercentileMillis(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? (long) getMaxMillis() : 1L << i;
+            }
+        }
+        return (long) getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,42 @@
+
+package org.magistraturaSGI.crawler.metrics;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints the one-line metrics summary to the console at a fixed interval while a crawl runs.
+ */
+public class MetricsReporter implements AutoCloseable {
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts reporting; an interval of zero or less reports nothing.
+     * @param metrics  The metrics to summarize.
+     * @param interval The time between summaries.
+     * @param out      The stream the summaries are printed to.
+     */
+    public MetricsReporter(CrawlMetrics metrics, Duration interval, PrintStream out) {
+        if (interval.isZero() || interval.isNegative()) {
+            scheduler = null;
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(() -> out.println("[metrics] " + metrics.getSummary()), millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+
+package org.magistraturaSGI.crawler.metrics;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.interfaces.ISiteMetrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fetch, parse and listing counters of one site. Safe to update from every crawl worker.
+ */
+public class SiteMetrics implements ISiteMetrics {
+    @Getter
+    private final String site;
+    @Getter
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    @Getter
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder listings = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final CrawlMetrics crawl;
+
+    SiteMetrics(String site, CrawlMetrics crawl) {
+        this.site = site;
+        this.crawl = crawl;
+    }
+
+    /**
+     * Records a fetch that got a response.
+     * @param nanos      The time from request to read body.
+     * @param statusCode The HTTP status.
+     * @param bodyBytes  The size of the decoded body downloaded, 0 if it was served from the HTTP cache.
+     */
+    public void fetched(long nanos, int statusCode, long bodyBytes) {
+        fetchLatency.record(nanos);
+        statuses.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+        bytes.add(bodyBytes);
+    }
+
+    /**
+     * Records a fetch that failed with an HTTP error status.
+     */
+    public void failed(long nanos, int statusCode) {
+        fetchLatency.record(nanos);
+        statuses.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+        errors.increment();
+    }
+
+    /**
+     * Records a fetch that failed without a response.
+     */
+    public void failed(long nanos) {
+        fetchLatency.record(nanos);
+        errors.increment();
+    }
+
+    /**
+     * Records that a failed fetch is tried again.
+     */
+    public void retried() {
+        retries.increment();
+    }
+
+    /**
+     * Records a page not fetched because its host is paused.
+     */
+    public void skipped() {
+        skipped.increment();
+    }
+
+    public void parsed(long nanos) {
+        parseTime.record(nanos);
+    }
+
+    public void listingFound() {
+        listings.increment();
+    }
+
+    /**
+     * @param statusCode An HTTP status.
+     * @return The number of responses with the status.
+     */
+    public long getStatusCount(int statusCode) {
+        LongAdder count = statuses.get(statusCode);
+        return count == null ? 0 : count.sum();
+    }
+
+    @Override
+    public long getFetches() {
+        return fetchLatency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    @Override
+    public double getFetchLatencyMeanMillis() {
+        return fetchLatency.getMeanMillis();
+    }
+
+    @Override
+    public long getFetchLatencyP50Millis() {
+        return fetchLatency.getPercentileMillis(50);
+    }
+
+    @Override
+    public long getFetchLatencyP95Millis() {
+        return fetchLatency.getPercentileMillis(95);
+    }
+
+    @Override
+    public long getFetchLatencyP99Millis() {
+        return fetchLatency.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getFetchLatencyMaxMillis() {
+        return fetchLatency.getMaxMillis();
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return bytes.sum();
+    }
+
+    @Override
+    public Map<String, Long> getStatusCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(String.valueOf(status), count.sum()));
+        return counts;
+    }
+
+    @Override
+    public double getParseTimeMeanMillis() {
+        return parseTime.getMeanMillis();
+    }
+
+    @Override
+    public long getParseTimeP95Millis() {
+        return parseTime.getPercentileMillis(95);
+    }
+
+    @Override
+    public long getListings() {
+        return listings.sum();
+    }
+
+    @Override
+    public double getListingsPerSecond() {
+        double seconds = crawl.getElapsedSeconds();
+        return seconds <= 0 ? 0 : listings.sum() / seconds;
+    }
+
+    void reset() {
+        fetchLatency.reset();
+        parseTime.reset();
+        errors.reset();
+        retries.reset();
+        skipped.reset();
+        bytes.reset();
+        listings.reset();
+        statuses.clear();
+    }
+}
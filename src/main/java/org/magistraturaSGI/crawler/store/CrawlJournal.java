@@ -0,0 +1,335 @@
+
+package org.magistraturaSGI.crawler.store;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.frontier.UrlNormalizer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of a crawl in progress, from which an interrupted crawl is resumed.
+ * Each line is one record followed by the CRC32 of the record, so a line torn by a crash is skipped on replay:
+ * <ul>
+ *     <li>{@code Q<TAB>site<TAB>url} a listing page was queued,</li>
+ *     <li>{@code J<TAB>site<TAB>url} a job page was queued,</li>
+ *     <li>{@code D<TAB>url} a page was handled and needs no fetch on resume,</li>
+ *     <li>{@code L<TAB>site<TAB>url<TAB>title<TAB>company<TAB>location<TAB>posted} a job listing was found;
+ *     its job page is handled. The last three fields are empty when the listing card did not show them.</li>
+ * </ul>
+ * Records are buffered and written to disk every checkpoint interval, so journaling costs the crawl
+ * no more than an append to memory; a crash loses at most the last interval of work.
+ */
+public class CrawlJournal implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(CrawlJournal.class.getName());
+
+    @Getter
+    private final Path file;
+    private final FileOutputStream stream;
+    private final BufferedWriter writer; // guarded by this
+    private final ScheduledExecutorService checkpoints;
+    private int records; // guarded by this
+
+    private CrawlJournal(Path file, Duration interval) throws IOException {
+        this.file = file;
+        this.stream = new FileOutputStream(file.toFile(), true);
+        this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+        this.checkpoints = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        checkpoints.scheduleWithFixedDelay(this::checkpoint, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts the journal of a new crawl, discarding the journal of any earlier one.
+     * @param file     The journal file.
+     * @param interval The time between checkpoints.
+     * @param pages    The pages the crawl starts from.
+     * @return The journal.
+     * @throws IOException If the file cannot be written.
+     */
+    public static CrawlJournal create(Path file, Duration interval, List<Site> pages) throws IOException {
+        return rewrite(file, interval, new State(), pages);
+    }
+
+    /**
+     * Continues the journal of an interrupted crawl. The file is first rewritten from its state,
+     * with one record per page and listing, so resuming again and again does not grow it.
+     * @param file     The journal file.
+     * @param interval The time between checkpoints.
+     * @param state    The state replayed from the file.
+     * @return The journal.
+     * @throws IOException If the file cannot be written.
+     */
+    public static CrawlJournal resume(Path file, Duration interval, State state) throws IOException {
+        List<Site> pages = new ArrayList<>(state.getHandledPages());
+        pages.addAll(state.getPendingPages());
+        return rewrite(file, interval, state, pages);
+    }
+
+    private static CrawlJournal rewrite(Path file, Duration interval, State state, List<Site> pages) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int records = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Site page : pages) {
+                writeRecord(out, "Q\t" + clean(page.getName()) + "\t" + page.getUrl());
+                records++;
+            }
+            for (String url : state.getHandled()) {
+                writeRecord(out, "D\t" + url);
+                records++;
+            }
+            for (Site job : state.getPendingJobs()) {
+                writeRecord(out, "J\t" + clean(job.getName()) + "\t" + job.getUrl());
+                records++;
+            }
+            for (Map.Entry<String, List<JobListing>> site : state.getListings().entrySet()) {
+                for (JobListing listing : site.getValue()) {
+                    writeRecord(out, listingRecord(site.getKey(), listing));
+                    records++;
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        CrawlJournal journal = new CrawlJournal(file, interval);
+        journal.records = records;
+        logger.log(Level.INFO, "Journaling crawl to {0} from {1} records", new Object[]{file, records});
+        return journal;
+    }
+
+    /**
+     * Replays a journal into the state of the crawl that wrote it.
+     * @param file The journal file.
+     * @return The state, or null if there is no journal.
+     * @throws IOException If the file cannot be read.
+     */
+    public static State replay(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        State state = new State();
+        Map<String, Site> pages = new LinkedHashMap<>(); // url -> queued page
+        Map<String, Site> jobs = new LinkedHashMap<>(); // url -> queued job page
+        int torn = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String record = checked(line);
+                if (record == null) {
+                    torn++;
+                    continue;
+                }
+                String[] fields = record.split("\t", 7);
+                switch (fields[0]) {
+                    case "Q" -> {
+                        if (fields.length >= 3 && state.seen.add(fields[2])) {
+                            pages.put(fields[2], new Site(fields[1], fields[2], true));
+                            state.pagesQueued.merge(fields[1], 1, Integer::sum);
+                        }
+                    }
+                    case "J" -> {
+                        if (fields.length >= 3 && state.seen.add(fields[2])) {
+                            jobs.put(fields[2], new Site(fields[1], fields[2], true));
+                        }
+                    }
+                    case "D" -> {
+                        if (fields.length >= 2) {
+                            state.seen.add(fields[1]);
+                            state.handled.add(fields[1]);
+                        }
+                    }
+                    case "L" -> {
+                        if (fields.length >= 4 && state.listingUrls.add(fields[2])) {
+                            state.seen.add(fields[2]);
+                            state.listings.computeIfAbsent(fields[1], site -> new ArrayList<>()).add(new JobListing(fields[3], fields[2],
+                                    fields.length > 4 ? fields[4] : "", fields.length > 5 ? fields[5] : "", fields.length > 6 ? fields[6] : ""));
+                        }
+                    }
+                    default -> torn++;
+                }
+            }
+        }
+        for (Site page : pages.values()) {
+            (state.handled.contains(page.getUrl()) ? state.handledPages : state.pendingPages).add(page);
+        }
+        for (Site job : jobs.values()) {
+            if (!state.handled.contains(job.getUrl()) && !state.listingUrls.contains(job.getUrl())) {
+                state.pendingJobs.add(job);
+            }
+        }
+        state.handled.addAll(state.listingUrls);
+        if (torn > 0) {
+            logger.log(Level.WARNING, "Skipped {0} damaged records of crawl journal {1}", new Object[]{torn, file});
+        }
+        logger.log(Level.INFO, "Replayed crawl journal {0}: {1} pages and {2} job pages left, {3} listings found",
+                new Object[]{file, state.pendingPages.size(), state.pendingJobs.size(), state.listingUrls.size()});
+        return state;
+    }
+
+    /**
+     * @return The record of a journal line, or null if its checksum does not match.
+     */
+    private static String checked(String line) {
+        int tab = line.lastIndexOf('\t');
+        if (tab <= 0) {
+            return null;
+        }
+        String record = line.substring(0, tab);
+        return line.substring(tab + 1).equals(Long.toHexString(crc(record))) ? record : null;
+    }
+
+    /**
+     * Records that a listing page was queued, under its normalized URL as the frontier keeps it.
+     * @param page The page.
+     */
+    public void queued(Site page) {
+        append("Q\t" + clean(page.getName()) + "\t" + UrlNormalizer.normalize(page.getUrl()));
+    }
+
+    /**
+     * Records that a job page was queued.
+     * @param site The name of the site the job page was found on.
+     * @param url  The URL of the job page.
+     */
+    public void jobQueued(String site, String url) {
+        append("J\t" + clean(site) + "\t" + url);
+    }
+
+    /**
+     * Records that a page was handled, so a resumed crawl does not fetch it again.
+     * @param url The URL of the page.
+     */
+    public void handled(String url) {
+        append("D\t" + url);
+    }
+
+    /**
+     * Records a found listing.
+     * @param site    The name of the site the listing was found on.
+     * @param listing The listing.
+     */
+    public void listingFound(String site, JobListing listing) {
+        append(listingRecord(site, listing));
+    }
+
+    private static String listingRecord(String site, JobListing listing) {
+        return "L\t" + clean(site) + "\t" + listing.getUrl() + "\t" + clean(listing.getTitle()) + "\t" + clean(listing.getCompany())
+                + "\t" + clean(listing.getLocation()) + "\t" + clean(listing.getPosted());
+    }
+
+    private synchronized void append(String record) {
+        try {
+            writeRecord(writer, record);
+            records++;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not append to crawl journal " + file, e);
+        }
+    }
+
+    /**
+     * Writes the buffered records and forces them to disk.
+     */
+    public synchronized void checkpoint() {
+        try {
+            writer.flush();
+            stream.getChannel().force(false);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not checkpoint crawl journal " + file, e);
+        }
+    }
+
+    /**
+     * @return The number of records in the journal.
+     */
+    public synchronized int size() {
+        return records;
+    }
+
+    /**
+     * Stops checkpointing and closes the journal after a last checkpoint. The file is kept, to resume from.
+     */
+    @Override
+    public void close() throws IOException {
+        checkpoints.shutdownNow();
+        synchronized (this) {
+            checkpoint();
+            writer.close();
+        }
+    }
+
+    /**
+     * Closes the journal and deletes its file, once the crawl has finished and there is nothing to resume.
+     * @throws IOException If the file cannot be deleted.
+     */
+    public void discard() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    private static void writeRecord(BufferedWriter out, String record) throws IOException {
+        out.write(record);
+        out.write('\t');
+        out.write(Long.toHexString(crc(record)));
+        out.write('\n');
+    }
+
+    private static long crc(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * The state of an interrupted crawl, replayed from its journal.
+     */
+    @Getter
+    public static class State {
+        private final List<Site> pendingPages = new ArrayList<>(); // listing pages queued but not handled
+        private final List<Site> handledPages = new ArrayList<>(); // listing pages already handled
+        private final List<Site> pendingJobs = new ArrayList<>(); // job pages queued but not handled, with their site
+        private final Map<String, List<JobListing>> listings = new LinkedHashMap<>(); // site name -> listings found
+        private final Map<String, Integer> pagesQueued = new LinkedHashMap<>(); // site name -> listing pages queued
+        private final Set<String> seen = new HashSet<>(); // every URL queued or handled
+        private final Set<String> handled = new HashSet<>(); // every URL that needs no fetch
+        private final Set<String> listingUrls = new HashSet<>();
+
+        /**
+         * @return The number of listings found.
+         */
+        public int getListingCount() {
+            return listingUrls.size();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+
+package org.magistraturaSGI.crawler.store;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds copies of a job posted on several sites, by the SimHash of the listing's normalized title, company and
+ * location, the latter two where the site shows them. Close fingerprints are copies only if the companies are both
+ * known and equal, or, when a company is unknown, if both titles have at least {@value #MIN_TITLE_WORDS} words and the
+ * locations are equal; a generic title such as "Driver" alone does not make two postings one job.
+ * A fingerprint is split into four 16-bit bands; two fingerprints at most three bits apart agree on at least
+ * one band, so a new listing is only compared with the listings sharing one of its band values.
+ * Every listing joins the cluster of the first copy it matches, whose URL is the cluster's canonical posting.
+ * The index holds the last {@code capacity} listings in arrays allocated up front; older ones are forgotten.
+ */
+public class DuplicateIndex {
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 16;
+    private static final int BAND_MASK = (1 << BAND_BITS) - 1;
+    static final int MIN_TITLE_WORDS = 4; // title words two listings without known companies need to be copies
+
+    @Getter
+    private final int capacity;
+    private final int maxDistance;
+    private final long[] fingerprints;
+    private final int[] siteIds; // site of each slot
+    private final String[] canonicals; // canonical URL of each slot's cluster
+    private final String[] companies; // normalized company of each slot, empty if unknown
+    private final String[] locations; // normalized location of each slot, empty if unknown
+    private final int[] titleWords; // words in the normalized title of each slot
+    private final int[] heads = new int[BANDS << BAND_BITS]; // first slot of each band bucket, -1 if empty
+    private final int[] next; // slot * BANDS + band -> next slot in the same bucket
+    private final int[] prev;
+    private final Map<String, Integer> sites = new HashMap<>(); // site name -> id
+    private int size;
+    private int nextSlot;
+
+    /**
+     * @param capacity    The most listings kept in the index.
+     * @param maxDistance The most bits two fingerprints may differ in to be copies, at most 3.
+     */
+    public DuplicateIndex(int capacity, int maxDistance) {
+        this.capacity = Math.max(1, capacity);
+        this.maxDistance = Math.max(0, Math.min(BANDS - 1, maxDistance));
+        this.fingerprints = new long[this.capacity];
+        this.siteIds = new int[this.capacity];
+        this.canonicals = new String[this.capacity];
+        this.companies = new String[this.capacity];
+        this.locations = new String[this.capacity];
+        this.titleWords = new int[this.capacity];
+        this.next = new int[this.capacity * BANDS];
+        this.prev = new int[this.capacity * BANDS];
+        Arrays.fill(heads, -1);
+    }
+
+    /**
+     * Adds a listing to the index.
+     * @param site    The name of the site the listing was found on.
+     * @param listing The listing.
+     * @return The canonical URL of the posting on another site that the listing copies, or null if it is new.
+     */
+    public synchronized String add(String site, JobListing listing) {
+        String title = normalize(listing.getTitle());
+        if (title.isEmpty()) {
+            return null;
+        }
+        String company = normalize(listing.getCompany());
+        String location = normalize(listing.getLocation());
+        int words = words(title);
+        long fingerprint = simHash(join(title, company, location));
+        int siteId = sites.computeIfAbsent(site, name -> sites.size());
+        int match = find(fingerprint, siteId, company, location, words);
+        String canonical = match < 0 ? listing.getUrl() : canonicals[match]; // read before the slot is reused
+        int slot = nextSlot;
+        if (size == capacity) {
+            unlink(slot);
+        } else {
+            size++;
+        }
+        fingerprints[slot] = fingerprint;
+        siteIds[slot] = siteId;
+        canonicals[slot] = canonical;
+        companies[slot] = company;
+        locations[slot] = location;
+        titleWords[slot] = words;
+        link(slot);
+        nextSlot = (slot + 1) % capacity;
+        return match < 0 ? null : canonical;
+    }
+
+    /**
+     * @return The slot of a listing from another site whose fingerprint is close enough and that is the same job
+     * by {@link #sameJob}, or -1.
+     */
+    private int find(long fingerprint, int siteId, String company, String location, int words) {
+        for (int band = 0; band < BANDS; band++) {
+            int slot = heads[bucket(fingerprint, band)];
+            while (slot >= 0) {
+                if (siteIds[slot] != siteId && Long.bitCount(fingerprints[slot] ^ fingerprint) <= maxDistance
+                        && sameJob(slot, company, location, words)) {
+                    return slot;
+                }
+                slot = next[slot * BANDS + band];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the listing in the slot, whose fingerprint is close, is the same job: the companies are both
+     * known and equal, or the titles are long enough to tell jobs apart and the locations are equal.
+     */
+    private boolean sameJob(int slot, String company, String location, int words) {
+        if (!company.isEmpty() && !companies[slot].isEmpty()) {
+            return company.equals(companies[slot]);
+        }
+        return words >= MIN_TITLE_WORDS && titleWords[slot] >= MIN_TITLE_WORDS && location.equals(locations[slot]);
+    }
+
+    private static int words(String normalized) {
+        int words = 1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (normalized.charAt(i) == ' ') {
+                words++;
+            }
+        }
+        return words;
+    }
+
+    private void link(int slot) {
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucket(fingerprints[slot], band);
+            int head = heads[bucket];
+            next[slot * BANDS + band] = head;
+            prev[slot * BANDS + band] = -1;
+            if (head >= 0) {
+                prev[head * BANDS + band] = slot;
+            }
+            heads[bucket] = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        for (int band = 0; band < BANDS; band++) {
+            int after = next[slot * BANDS + band];
+            int before = prev[slot * BANDS + band];
+            if (before >= 0) {
+                next[before * BANDS + band] = after;
+            } else {
+                heads[bucket(fingerprints[slot], band)] = after;
+            }
+            if (after >= 0) {
+                prev[after * BANDS + band] = before;
+            }
+        }
+        canonicals[slot] = null;
+        companies[slot] = null;
+        locations[slot] = null;
+    }
+
+    private static int bucket(long fingerprint, int band) {
+        return band << BAND_BITS | (int) (fingerprint >>> (band * BAND_BITS)) & BAND_MASK;
+    }
+
+    /**
+     * @return The number of listings in the index.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static String join(String title, String company, String location) {
+        StringBuilder text = new StringBuilder(title);
+        for (String part : new String[]{company, location}) {
+            if (!part.isEmpty()) {
+                text.append(' ').append(part);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Lower-cases the text and turns every run of characters other than letters and digits into one space.
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        if (!sb.isEmpty() && space) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The SimHash of the text's character trigrams, which survives small edits and reordered words.
+     */
+    static long simHash(String text) {
+        int[] votes = new int[64];
+        int shingles = Math.max(1, text.length() - 2);
+        for (int start = 0; start < shingles; start++) {
+            long hash = hash(text, start, Math.min(text.length(), start + 3));
+            for (int bit = 0; bit < 64; bit++) {
+                votes[bit] += (hash >>> bit & 1) == 1 ? 1 : -1;
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * FNV-1a over the characters, finished with the MurmurHash3 mixer so every bit depends on every character.
+     */
+    private static long hash(String text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,262 @@
+
+package org.magistraturaSGI.crawler.store;
+
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over the titles of the collected job listings, updated as listings are added.
+ * Titles are split into tokens at every character other than a letter or digit; tokens are lower-cased and
+ * folded to their base letters (NFKD without combining marks), so Cyrillic and Latin titles are matched
+ * however they were typed. The term dictionary is sorted, so a prefix query reads one range of it.
+ * The index keeps only the position of each listing in the {@link ResultStore}; listings, their titles and sites
+ * are read from the store when a query is checked or a page of results is shown.
+ */
+public class JobIndex {
+    private final ResultStore store;
+    private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+    private long[] positions = new long[1024]; // store position of each document, written under the lock, published by size
+    private volatile int size;
+
+    /**
+     * @param store The store holding the indexed listings.
+     */
+    public JobIndex(ResultStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Adds a listing to the index.
+     * @param position The position of the listing in the store, as returned by {@link ResultStore#add}.
+     */
+    public synchronized void add(long position) {
+        int doc = size;
+        if (doc == positions.length) {
+            positions = Arrays.copyOf(positions, doc * 2);
+        }
+        positions[doc] = position;
+        for (String token : tokens(store.getTitle(position))) {
+            terms.computeIfAbsent(token, term -> new Postings()).add(doc);
+        }
+        size = doc + 1;
+    }
+
+    /**
+     * @return The number of listings in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the listings matching every part of a query. A part is a word, a prefix ending in {@code *},
+     * a phrase in double quotes, or {@code site:NAME} to keep only the listings of one site.
+     * An empty query matches every listing.
+     * @param query The query.
+     * @return The matching listings, in the order they were added.
+     */
+    public SearchResult search(String query) {
+        int docs = size;
+        List<String[]> phrases = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        String site = null;
+        for (String part : parse(query)) {
+            if (part.regionMatches(true, 0, "site:", 0, 5) && part.length() > 5) {
+                site = part.substring(5);
+            } else if (part.endsWith("*")) {
+                List<String> tokens = tokens(part.substring(0, part.length() - 1));
+                if (!tokens.isEmpty()) {
+                    phrases.add(tokens.subList(0, tokens.size() - 1).toArray(String[]::new));
+                    prefixes.add(tokens.get(tokens.size() - 1));
+                }
+            } else {
+                List<String> tokens = tokens(part);
+                if (!tokens.isEmpty()) {
+                    phrases.add(tokens.toArray(String[]::new));
+                }
+            }
+        }
+        if (phrases.isEmpty() && prefixes.isEmpty() && site == null) {
+            return new SearchResult(null, docs);
+        }
+        BitSet matches = new BitSet(docs);
+        matches.set(0, docs);
+        for (String[] phrase : phrases) {
+            for (String token : phrase) {
+                Postings postings = terms.get(token);
+                matches.and(postings == null ? new BitSet() : postings.toBitSet(docs));
+            }
+        }
+        for (String prefix : prefixes) {
+            BitSet any = new BitSet(docs);
+            for (Postings postings : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                any.or(postings.toBitSet(docs));
+            }
+            matches.and(any);
+        }
+        boolean verify = site != null || phrases.stream().anyMatch(phrase -> phrase.length > 1);
+        long[] docPositions = positions;
+        for (int doc = matches.nextSetBit(0); verify && doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            if ((site != null && !site.equalsIgnoreCase(store.getSite(docPositions[doc])))
+                    || !containsPhrases(tokens(store.getTitle(docPositions[doc])), phrases)) {
+                matches.clear(doc);
+            }
+        }
+        return new SearchResult(matches.stream().toArray(), matches.cardinality());
+    }
+
+    /**
+     * @return true if every phrase of more than one token appears in the title's tokens, token after token.
+     */
+    private static boolean containsPhrases(List<String> title, List<String[]> phrases) {
+        for (String[] phrase : phrases) {
+            if (phrase.length > 1 && !containsPhrase(title, phrase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsPhrase(List<String> title, String[] phrase) {
+        for (int start = 0; start + phrase.length <= title.size(); start++) {
+            int i = 0;
+            while (i < phrase.length && title.get(start + i).equals(phrase[i])) {
+                i++;
+            }
+            if (i == phrase.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a query into words and quoted phrases.
+     */
+    private static List<String> parse(String query) {
+        List<String> parts = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                end = end < 0 ? query.length() : end;
+                parts.add(query.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end))) {
+                    end++;
+                }
+                parts.add(query.substring(i, end));
+                i = end;
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * @return The lower-cased tokens of the text, folded to their base letters.
+     */
+    static List<String> tokens(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    /**
+     * The listings containing one term, in the order they were added.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private volatile int size;
+
+        private synchronized void add(int doc) {
+            int next = size;
+            if (next > 0 && docs[next - 1] == doc) {
+                return; // the term appears twice in the title
+            }
+            if (next == docs.length) {
+                docs = Arrays.copyOf(docs, next * 2);
+            }
+            docs[next] = doc;
+            size = next + 1;
+        }
+
+        private synchronized BitSet toBitSet(int limit) {
+            BitSet set = new BitSet(limit);
+            for (int i = 0; i < size && docs[i] < limit; i++) {
+                set.set(docs[i]);
+            }
+            return set;
+        }
+    }
+
+    /**
+     * The listings matching a query, read one page at a time.
+     */
+    public final class SearchResult {
+        private final int[] docs; // matching listings, null if every listing up to total matches
+        private final int total;
+
+        private SearchResult(int[] docs, int total) {
+            this.docs = docs;
+            this.total = total;
+        }
+
+        /**
+         * @return The number of matching listings.
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * @param page     The page number, from 0.
+         * @param pageSize The listings per page.
+         * @return The listings of the page, empty past the last page.
+         */
+        public List<JobListing> page(int page, int pageSize) {
+            int from = page * pageSize;
+            int to = Math.min(total, from + pageSize);
+            long[] all = positions;
+            List<JobListing> hits = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                hits.add(store.get(all[docs == null ? i : docs[i]]));
+            }
+            return hits;
+        }
+    }
+
+    /**
+     * @return The number of distinct terms in the index.
+     */
+    public int getTermCount() {
+        return terms.size();
+    }
+}
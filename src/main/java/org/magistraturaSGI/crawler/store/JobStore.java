@@ -0,0 +1,232 @@
+
+package org.magistraturaSGI.crawler.store;
+
+import lombok.Getter;
+import org.magistraturaSGI.crawler.dataobjects.CrawlDelta;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, append-only store of every job listing found by earlier crawls, keyed by normalized job URL.
+ * Each line of the file is one record: {@code +<TAB>site<TAB>url<TAB>title} when a listing is found,
+ * {@code ~<TAB>site<TAB>url<TAB>title} when a listing fetched again has a new title
+ * and {@code -<TAB>site<TAB>url} when it is gone; {@code @<TAB>millis} records when the last complete crawl started,
+ * so pages a sitemap dates before it need not be fetched again. The file is replayed into memory when the store is opened
+ * and rewritten without dead records when they outnumber the live ones.
+ */
+public class JobStore implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(JobStore.class.getName());
+
+    @Getter
+    private final Path file;
+    private final Map<String, StoredJob> jobs = new ConcurrentHashMap<>(); // url -> listing
+    private final Set<String> seenThisCrawl = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger newThisCrawl = new AtomicInteger();
+    private final BufferedWriter writer;
+    private int records;
+    private volatile Instant lastCrawlStart; // start of the last complete crawl, null if none completed
+    private Instant crawlStart; // start of the crawl in progress
+
+    /**
+     * Opens the store, loading every live listing from the file if it exists.
+     * @param file The store file.
+     * @throws IOException If the file cannot be read or opened for appending.
+     */
+    public JobStore(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        load();
+        if (records > 2 * jobs.size() + 1024) {
+            compact();
+        }
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length >= 3 && (fields[0].equals("+") || fields[0].equals("~"))) {
+                    jobs.put(fields[2], new StoredJob(fields[1], fields.length == 4 ? fields[3] : ""));
+                } else if (fields.length >= 3 && fields[0].equals("-")) {
+                    jobs.remove(fields[2]);
+                } else if (fields.length == 2 && fields[0].equals("@")) {
+                    try {
+                        lastCrawlStart = Instant.ofEpochMilli(Long.parseLong(fields[1]));
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                } else {
+                    continue;
+                }
+                records++;
+            }
+        }
+        logger.log(Level.INFO, "Loaded {0} known job listings from {1}", new Object[]{jobs.size(), file});
+    }
+
+    /**
+     * Rewrites the file with one record per live listing.
+     */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, StoredJob> job : jobs.entrySet()) {
+                writeAdd(out, job.getValue().site(), job.getKey(), job.getValue().title());
+            }
+            if (lastCrawlStart != null) {
+                out.write("@\t" + lastCrawlStart.toEpochMilli() + "\n");
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        records = jobs.size();
+        logger.log(Level.INFO, "Compacted job store {0}", file);
+    }
+
+    /**
+     * Starts tracking which known listings are seen again by a new crawl.
+     */
+    public void beginCrawl() {
+        crawlStart = Instant.now();
+        seenThisCrawl.clear();
+        newThisCrawl.set(0);
+    }
+
+    /**
+     * Records that the crawl found a link to the job page.
+     * @param url The normalized job URL.
+     * @return The known listing if the URL was found by an earlier crawl, so its page need not be fetched, or null.
+     */
+    public JobListing markSeen(String url) {
+        seenThisCrawl.add(url);
+        StoredJob job = jobs.get(url);
+        return job == null ? null : new JobListing(job.title(), url);
+    }
+
+    /**
+     * Appends a newly found listing to the store, or updates the title of a known listing whose page was fetched again.
+     * @param site    The name of the site the listing was found on.
+     * @param listing The listing.
+     */
+    public void add(String site, JobListing listing) {
+        seenThisCrawl.add(listing.getUrl());
+        StoredJob job = new StoredJob(site, clean(listing.getTitle()));
+        StoredJob known = jobs.put(listing.getUrl(), job);
+        if (known != null && known.title().equals(job.title())) {
+            return;
+        }
+        if (known == null) {
+            newThisCrawl.incrementAndGet();
+        }
+        synchronized (this) {
+            try {
+                writer.write((known == null ? "+\t" : "~\t") + clean(site) + "\t" + listing.getUrl() + "\t" + job.title() + "\n");
+                writer.flush();
+                records++;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not append to job store " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Compares the crawl with the store. Listings of the crawled sites that were not seen again are counted as removed,
+     * and recorded as removed only when the crawl covered every page.
+     * @param crawledSites The names of the sites searched by the crawl.
+     * @param complete     Whether the crawl finished before its deadline.
+     * @return The new, removed and unchanged listing counts.
+     */
+    public synchronized CrawlDelta finishCrawl(Collection<String> crawledSites, boolean complete) {
+        int added = newThisCrawl.get();
+        int removed = 0;
+        int unchanged = 0;
+        for (Map.Entry<String, StoredJob> job : List.copyOf(jobs.entrySet())) {
+            if (seenThisCrawl.contains(job.getKey())) {
+                unchanged++;
+            } else if (crawledSites.contains(job.getValue().site())) {
+                removed++;
+                if (complete) {
+                    jobs.remove(job.getKey());
+                    try {
+                        writer.write("-\t" + job.getValue().site() + "\t" + job.getKey() + "\n");
+                        records++;
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Could not append to job store " + file, e);
+                    }
+                }
+            }
+        }
+        unchanged -= added;
+        if (complete && crawlStart != null) {
+            lastCrawlStart = crawlStart;
+            try {
+                writer.write("@\t" + crawlStart.toEpochMilli() + "\n");
+                records++;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not append to job store " + file, e);
+            }
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not flush job store " + file, e);
+        }
+        if (!complete && removed > 0) {
+            logger.log(Level.INFO, "Crawl did not finish, {0} listings not seen again are kept in the store", removed);
+        }
+        return new CrawlDelta(added, removed, unchanged);
+    }
+
+    /**
+     * @return When the last crawl that covered every page started, or null if no crawl has completed.
+     */
+    public Instant getLastCrawlStart() {
+        return lastCrawlStart;
+    }
+
+    /**
+     * @return The number of live listings in the store.
+     */
+    public int size() {
+        return jobs.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static void writeAdd(BufferedWriter out, String site, String url, String title) throws IOException {
+        out.write("+\t" + clean(site) + "\t" + url + "\t" + clean(title) + "\n");
+    }
+
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private record StoredJob(String site, String title) {
+    }
+}
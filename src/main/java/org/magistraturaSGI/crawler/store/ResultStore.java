@@ -0,0 +1,266 @@
+
+package org.magistraturaSGI.crawler.store;
+
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Compact, concurrent store of the job listings found by the crawler.
+ * Listings are appended to one shard per site. A listing takes six ints and the bytes of its URL suffix:
+ * titles, and the companies, locations and dates read from listing cards, are stored once in shared tables and every URL is split into an interned prefix (up to its last '/')
+ * and a UTF-8 suffix packed into the shard's byte buffer.
+ * Appends to different sites do not contend and iteration takes no lock; an iterator sees every listing added
+ * before it was created, grouped by site in the order the sites were first seen.
+ * Copies of a listing found on other sites are not stored as listings but as alternate URLs of the first one.
+ */
+public class ResultStore implements Iterable<JobListing> {
+    private final StringTable titles = new StringTable();
+    private final StringTable prefixes = new StringTable();
+    private final StringTable details = new StringTable(); // companies, locations and dates, which repeat across listings
+    private final Map<String, Shard> shardsBySite = new ConcurrentHashMap<>();
+    private final List<Shard> shards = new CopyOnWriteArrayList<>();
+    private final Map<String, List<String>> alternates = new ConcurrentHashMap<>(); // canonical URL -> copies on other sites
+
+    /**
+     * Appends a listing.
+     * @param site    The name of the site the listing was found on.
+     * @param listing The listing.
+     * @return The position of the listing in the store, its site's shard and its ordinal there, to look it up by.
+     */
+    public long add(String site, JobListing listing) {
+        String url = listing.getUrl();
+        int cut = prefixEnd(url);
+        int title = titles.intern(listing.getTitle());
+        int prefix = prefixes.intern(url.substring(0, cut));
+        byte[] suffix = url.substring(cut).getBytes(StandardCharsets.UTF_8);
+        int company = details.intern(listing.getCompany());
+        int location = details.intern(listing.getLocation());
+        int posted = details.intern(listing.getPosted());
+        Shard shard = shardsBySite.computeIfAbsent(site, name -> {
+            synchronized (shards) {
+                Shard created = new Shard(name, shards.size());
+                shards.add(created);
+                return created;
+            }
+        });
+        return (long) shard.id << 32 | shard.add(title, prefix, suffix, company, location, posted);
+    }
+
+    /**
+     * @param position The position returned when the listing was added.
+     * @return The listing.
+     */
+    public JobListing get(long position) {
+        return shards.get((int) (position >>> 32)).get((int) position);
+    }
+
+    /**
+     * @param position The position returned when the listing was added.
+     * @return The title of the listing.
+     */
+    public String getTitle(long position) {
+        return shards.get((int) (position >>> 32)).getTitle((int) position);
+    }
+
+    /**
+     * @param position The position returned when the listing was added.
+     * @return The name of the site the listing was found on.
+     */
+    public String getSite(long position) {
+        return shards.get((int) (position >>> 32)).site;
+    }
+
+    /**
+     * Records that a listing is a copy of one already in the store, posted on another site.
+     * @param canonicalUrl The URL of the listing in the store.
+     * @param url          The URL of the copy.
+     */
+    public void addAlternate(String canonicalUrl, String url) {
+        alternates.compute(canonicalUrl, (key, urls) -> {
+            if (urls == null) {
+                return List.of(url);
+            }
+            if (urls.contains(url)) {
+                return urls;
+            }
+            List<String> more = new ArrayList<>(urls);
+            more.add(url);
+            return List.copyOf(more);
+        });
+    }
+
+    /**
+     * @param url The URL of a listing in the store.
+     * @return The URLs of its copies on other sites, empty if none.
+     */
+    public List<String> getAlternates(String url) {
+        return alternates.getOrDefault(url, List.of());
+    }
+
+    /**
+     * @return The number of copies recorded as alternate URLs of other listings.
+     */
+    public int getAlternateCount() {
+        int count = 0;
+        for (List<String> urls : alternates.values()) {
+            count += urls.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of listings in the store.
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size;
+        }
+        return size;
+    }
+
+    /**
+     * @param site The name of a site.
+     * @return The number of listings found on the site.
+     */
+    public int size(String site) {
+        Shard shard = shardsBySite.get(site);
+        return shard == null ? 0 : shard.size;
+    }
+
+    /**
+     * @return The number of distinct job titles.
+     */
+    public int getDistinctTitles() {
+        return titles.size();
+    }
+
+    /**
+     * @return The number of distinct URL prefixes.
+     */
+    public int getUrlPrefixes() {
+        return prefixes.size();
+    }
+
+    @Override
+    public Iterator<JobListing> iterator() {
+        List<Shard> snapshot = List.copyOf(shards);
+        int[] sizes = new int[snapshot.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = snapshot.get(i).size;
+        }
+        return new Iterator<>() {
+            private int shard;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (shard < sizes.length && index >= sizes[shard]) {
+                    shard++;
+                    index = 0;
+                }
+                return shard < sizes.length;
+            }
+
+            @Override
+            public JobListing next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot.get(shard).get(index++);
+            }
+        };
+    }
+
+    /**
+     * @return The index after the last '/' of the URL's path, or 0 if the URL has no path.
+     */
+    private static int prefixEnd(String url) {
+        int end = url.length();
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int slash = url.lastIndexOf('/', end - 1);
+        int scheme = url.indexOf("://");
+        if (slash < 0 || (scheme >= 0 && slash < scheme + 3)) {
+            return 0;
+        }
+        return slash + 1;
+    }
+
+    /**
+     * The listings of one site, as parallel arrays. Appends hold the shard's lock;
+     * the volatile size publishes each listing to readers once all of its fields are written.
+     */
+    private final class Shard {
+        private final String site;
+        private final int id; // index in shards
+        private int[] titleIds = new int[256];
+        private int[] prefixIds = new int[256];
+        private int[] suffixEnds = new int[256];
+        private int[] detailIds = new int[256 * 3]; // company, location and date of each listing
+        private byte[] suffixes = new byte[8192];
+        private volatile int size;
+
+        private Shard(String site, int id) {
+            this.site = site;
+            this.id = id;
+        }
+
+        /**
+         * @return The ordinal of the listing in the shard.
+         */
+        private synchronized int add(int title, int prefix, byte[] suffix, int company, int location, int posted) {
+            int next = size;
+            if (next == titleIds.length) {
+                titleIds = Arrays.copyOf(titleIds, next * 2);
+                prefixIds = Arrays.copyOf(prefixIds, next * 2);
+                suffixEnds = Arrays.copyOf(suffixEnds, next * 2);
+                detailIds = Arrays.copyOf(detailIds, next * 2 * 3);
+            }
+            int start = next == 0 ? 0 : suffixEnds[next - 1];
+            if (start + suffix.length > suffixes.length) {
+                suffixes = Arrays.copyOf(suffixes, Math.max(suffixes.length * 2, start + suffix.length));
+            }
+            System.arraycopy(suffix, 0, suffixes, start, suffix.length);
+            titleIds[next] = title;
+            prefixIds[next] = prefix;
+            suffixEnds[next] = start + suffix.length;
+            detailIds[next * 3] = company;
+            detailIds[next * 3 + 1] = location;
+            detailIds[next * 3 + 2] = posted;
+            size = next + 1;
+            return next;
+        }
+
+        private String getTitle(int index) {
+            if (index >= size) { // reading size first makes the arrays written before it visible
+                throw new IndexOutOfBoundsException(index);
+            }
+            return titles.get(titleIds[index]);
+        }
+
+        private JobListing get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int[] ends = suffixEnds;
+            int start = index == 0 ? 0 : ends[index - 1];
+            String suffix = new String(suffixes, start, ends[index] - start, StandardCharsets.UTF_8);
+            String url = prefixes.get(prefixIds[index]) + suffix;
+            int[] ids = detailIds;
+            return new JobListing(titles.get(titleIds[index]), url, details.get(ids[index * 3]), details.get(ids[index * 3 + 1]),
+                    details.get(ids[index * 3 + 2]), alternates.getOrDefault(url, List.of()));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+
+package org.magistraturaSGI.crawler.store;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only table giving every distinct string a small int id, so repeated strings are stored once.
+ * Lookups by id take no lock.
+ */
+final class StringTable {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private String[] values = new String[64];
+    private volatile int size;
+
+    /**
+     * @param value The string to look up.
+     * @return The id of the string, added to the table if it was not in it.
+     */
+    int intern(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            int next = size;
+            if (next == values.length) {
+                values = Arrays.copyOf(values, next * 2);
+            }
+            values[next] = value;
+            size = next + 1; // publishes the value to readers of ids below size
+            ids.put(value, next);
+            return next;
+        }
+    }
+
+    /**
+     * @param id An id returned by {@link #intern(String)}.
+     * @return The string with the id.
+     */
+    String get(int id) {
+        if (id >= size) {
+            throw new IndexOutOfBoundsException(id);
+        }
+        return values[id];
+    }
+
+    int size() {
+        return size;
+    }
+}
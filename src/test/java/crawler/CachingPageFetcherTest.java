@@ -0,0 +1,92 @@
+package crawler;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.magistraturaSGI.crawler.Config;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.fetch.CachingPageFetcher;
+import org.magistraturaSGI.crawler.fetch.HttpCache;
+import org.magistraturaSGI.crawler.fetch.HttpPageFetcher;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingPageFetcherTest {
+    private HttpServer server;
+    private HttpPageFetcher http;
+    private String baseUrl;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/job", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            fullResponses.incrementAndGet();
+            byte[] body = "<h1>Продавач-консултант</h1>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        http = new HttpPageFetcher(new Config());
+    }
+
+    @AfterEach
+    void after() {
+        http.close();
+        server.stop(0);
+    }
+
+    @Test
+    void revisitShouldBeServedFromCacheOn304() throws Exception {
+        CachingPageFetcher fetcher = new CachingPageFetcher(http, new HttpCache(cacheDir, 1024 * 1024));
+        assertFalse(fetcher.fetch(baseUrl + "/job").isFromCache());
+
+        // a new cache over the same directory, as on the next run
+        CachingPageFetcher nextRun = new CachingPageFetcher(http, new HttpCache(cacheDir, 1024 * 1024));
+        FetchedPage page = nextRun.fetch(baseUrl + "/job");
+
+        assertEquals(1, fullResponses.get());
+        assertEquals(200, page.getStatusCode());
+        assertTrue(page.isFromCache());
+        assertEquals("Продавач-консултант", page.toDocument().select("h1").text());
+    }
+
+    @Test
+    void cacheShouldEvictLeastRecentlyUsedEntries() throws IOException {
+        HttpCache cache = new HttpCache(cacheDir, 600);
+        byte[] body = new byte[200];
+        new Random(42).nextBytes(body); // incompressible, so each entry takes about 250 bytes
+        cache.put("http://a/1", "\"1\"", null, null, body);
+        cache.put("http://a/2", "\"2\"", null, null, body);
+        assertNotNull(cache.get("http://a/1"));
+        cache.put("http://a/3", "\"3\"", null, null, body);
+
+        assertTrue(cache.getTotalBytes() <= 600);
+        assertNull(cache.get("http://a/2"));
+        assertNotNull(cache.get("http://a/1"));
+        assertNotNull(cache.get("http://a/3"));
+    }
+}
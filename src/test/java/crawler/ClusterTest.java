@@ -0,0 +1,128 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.cluster.ClusterNode;
+import org.magistraturaSGI.crawler.cluster.Coordinator;
+import org.magistraturaSGI.crawler.dataobjects.CrawlWork;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.interfaces.IClusterWorker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterTest {
+    private static final int HOSTS = 20;
+    private static final int PAGES = 3;
+
+    private static List<CrawlWork> seeds() {
+        List<CrawlWork> seeds = new ArrayList<>();
+        for (int i = 0; i < HOSTS; i++) {
+            seeds.add(new CrawlWork(CrawlWork.Kind.LISTING, "Site" + i, "http://host" + i + ".example/?page=1"));
+        }
+        return seeds;
+    }
+
+    /**
+     * Crawls a fake site: every listing page links to the next one up to PAGES and holds one job.
+     */
+    private static IClusterWorker crawler(ClusterNode[] node, Map<String, String> crawledBy, Set<String> notOwned) {
+        return new IClusterWorker() {
+            @Override
+            public void accept(CrawlWork work) {
+                crawledBy.put(work.getUrl(), node[0].getNodeId());
+                if (!node[0].owns(work.getUrl())) {
+                    notOwned.add(work.getUrl());
+                }
+                int page = Integer.parseInt(work.getUrl().substring(work.getUrl().indexOf("page=") + 5));
+                if (page < PAGES) {
+                    String next = work.getUrl().replace("page=" + page, "page=" + (page + 1));
+                    node[0].discover(new CrawlWork(CrawlWork.Kind.LISTING, work.getSite(), next));
+                }
+                node[0].result(work.getSite(), new JobListing("Job " + page, work.getUrl() + "&job"));
+            }
+
+            @Override
+            public long getPendingTasks() {
+                return 0;
+            }
+        };
+    }
+
+    @Test
+    void pagesShouldBeCrawledByTheOwnerOfTheirHostAndMerged() throws Exception {
+        Map<String, String> crawledBy = new ConcurrentHashMap<>();
+        Set<String> notOwned = ConcurrentHashMap.newKeySet();
+        try (Coordinator coordinator = new Coordinator(0, 2, Duration.ofSeconds(10), seeds(), null)) {
+            coordinator.start();
+            ClusterNode[] a = new ClusterNode[1];
+            ClusterNode[] b = new ClusterNode[1];
+            a[0] = new ClusterNode("localhost", coordinator.getPort(), "a", Duration.ofMillis(50));
+            b[0] = new ClusterNode("localhost", coordinator.getPort(), "b", Duration.ofMillis(50));
+            try (ClusterNode nodeA = a[0]; ClusterNode nodeB = b[0]) {
+                nodeA.connect(crawler(a, crawledBy, notOwned));
+                nodeB.connect(crawler(b, crawledBy, notOwned));
+                assertTrue(coordinator.awaitFinished(Duration.ofSeconds(10)));
+                assertTrue(nodeA.awaitStop(Duration.ofSeconds(5)));
+                assertTrue(nodeB.awaitStop(Duration.ofSeconds(5)));
+            }
+            assertEquals(HOSTS * PAGES, crawledBy.size());
+            assertEquals(Set.of(), notOwned);
+            assertEquals(Set.of("a", "b"), Set.copyOf(crawledBy.values()));
+            for (int i = 0; i < HOSTS; i++) {
+                String owner = crawledBy.get("http://host" + i + ".example/?page=1");
+                for (int page = 2; page <= PAGES; page++) {
+                    assertEquals(owner, crawledBy.get("http://host" + i + ".example/?page=" + page));
+                }
+            }
+            assertEquals(HOSTS * PAGES, coordinator.getResults().size());
+        }
+    }
+
+    @Test
+    void pagesOfALostNodeShouldBeReassigned() throws Exception {
+        Map<String, String> crawledBy = new ConcurrentHashMap<>();
+        Set<String> notOwned = ConcurrentHashMap.newKeySet();
+        Set<String> stuck = ConcurrentHashMap.newKeySet();
+        try (Coordinator coordinator = new Coordinator(0, 2, Duration.ofSeconds(10), seeds(), null)) {
+            coordinator.start();
+            ClusterNode[] a = new ClusterNode[1];
+            a[0] = new ClusterNode("localhost", coordinator.getPort(), "a", Duration.ofMillis(50));
+            try (ClusterNode nodeA = a[0]) {
+                nodeA.connect(crawler(a, crawledBy, notOwned));
+                ClusterNode nodeB = new ClusterNode("localhost", coordinator.getPort(), "b", Duration.ofMillis(50));
+                nodeB.connect(new IClusterWorker() { // takes pages but never finishes them
+                    @Override
+                    public void accept(CrawlWork work) {
+                        stuck.add(work.getUrl());
+                    }
+
+                    @Override
+                    public long getPendingTasks() {
+                        return stuck.size();
+                    }
+                });
+                long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+                while (stuck.isEmpty() && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertFalse(stuck.isEmpty());
+                assertFalse(coordinator.awaitFinished(Duration.ofMillis(500)));
+                nodeB.close();
+
+                assertTrue(coordinator.awaitFinished(Duration.ofSeconds(10)));
+                assertTrue(nodeA.awaitStop(Duration.ofSeconds(5)));
+                assertEquals(1, coordinator.getNodeCount());
+            }
+            assertEquals(HOSTS * PAGES, crawledBy.size());
+            assertEquals(Set.of("a"), Set.copyOf(crawledBy.values()));
+            assertTrue(crawledBy.keySet().containsAll(stuck));
+            assertEquals(HOSTS * PAGES, coordinator.getResults().size());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.magistraturaSGI.crawler.Config;
 import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.dataobjects.SiteProfile;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,4 +43,17 @@ class ConfigTest {
         assertTrue(customConfig.getThreadCount() > 0);
         assertTrue(customConfig.getDeathTimer() > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void siteProfilesShouldBeCompiledFromFile() {
+        SiteProfile olx = config.getSiteProfile("OLX");
+
+        assertEquals("li > a[href*=\"/rabota/?page=\"]", olx.getNextPageSelector());
+        assertNotNull(olx.getJobTitle());
+        assertNotNull(olx.getJobPage());
+        assertNotNull(olx.getNextPage());
+        assertEquals(25, olx.getMaxPages());
+        assertNull(config.getSiteProfile("JOBS.BG").getNextPage());
+        assertSame(SiteProfile.EMPTY, config.getSiteProfile("Unknown"));
+    }
+}
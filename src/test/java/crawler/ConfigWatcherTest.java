@@ -0,0 +1,83 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.magistraturaSGI.crawler.Config;
+import org.magistraturaSGI.crawler.ConfigWatcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigWatcherTest {
+
+    private static final String OVERRIDE = """
+            <Configuration>
+                <Properties>
+                    <ThreadCount>3</ThreadCount>
+                    <MaxInFlight>4</MaxInFlight>
+                </Properties>
+                <Sites>
+                    <Site>
+                        <Name>JOBS.BG</Name>
+                        <URL>https://www.jobs.bg/front_job_search.php</URL>
+                        <JobTitleSelector>h1</JobTitleSelector>
+                        <JobPageSelector>a.job</JobPageSelector>
+                        <RequestsPerSecond>1.5</RequestsPerSecond>
+                    </Site>
+                    <Site>
+                        <Name>OLX</Name>
+                        <URL>https://www.olx.bg/rabota/</URL>
+                        <Enabled>false</Enabled>
+                    </Site>
+                </Sites>
+            </Configuration>
+            """;
+
+    @Test
+    void fileShouldOverrideSettingsAndReplaceSites(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("crawler.xml");
+        Files.writeString(file, OVERRIDE);
+        Config config = new Config(1, 10, List.of());
+        config.loadFromFile(file);
+        assertEquals(3, config.getThreadCount());
+        assertEquals(4, config.getMaxInFlight());
+        assertEquals(10, config.getDeathTimer());
+        assertEquals(2, config.getSiteList().size());
+        assertTrue(config.isSiteEnabled("JOBS.BG"));
+        assertFalse(config.isSiteEnabled("OLX"));
+        assertFalse(config.isSiteEnabled("Yox"));
+        assertEquals("h1", config.getSiteProfile("JOBS.BG").getJobTitleSelector());
+        assertEquals(1.5, config.getSiteProfile("JOBS.BG").getRequestsPerSecond());
+    }
+
+    @Test
+    void malformedFileShouldKeepSettings(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("crawler.xml");
+        Files.writeString(file, "<Configuration><Properties><ThreadCount>3</ThreadCount>");
+        Config config = new Config(1, 10, List.of());
+        assertThrows(IOException.class, () -> config.loadFromFile(file));
+        assertEquals(1, config.getThreadCount());
+    }
+
+    @Test
+    void changedFileShouldBeReloaded(@TempDir Path dir) throws IOException, InterruptedException {
+        Path file = dir.resolve("crawler.xml");
+        Config config = new Config(1, 10, List.of());
+        Semaphore reloaded = new Semaphore(0);
+        try (ConfigWatcher ignored = new ConfigWatcher(config, file, reloaded::release)) {
+            Files.writeString(file, OVERRIDE);
+            assertTrue(reloaded.tryAcquire(10, TimeUnit.SECONDS));
+            assertEquals(3, config.getThreadCount());
+
+            Files.writeString(file, OVERRIDE.replace("<ThreadCount>3</ThreadCount>", "<ThreadCount>5</ThreadCount>"));
+            assertTrue(reloaded.tryAcquire(10, TimeUnit.SECONDS));
+            assertEquals(5, config.getThreadCount());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.fetch.ArchiveReader;
+import org.magistraturaSGI.crawler.fetch.ArchiveWriter;
+import org.magistraturaSGI.crawler.fetch.RecordingPageFetcher;
+import org.magistraturaSGI.crawler.fetch.ReplayPageFetcher;
+import org.magistraturaSGI.crawler.interfaces.IPageFetcher;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private static FetchedPage page(String url, String body) {
+        return new FetchedPage(url, 200, Map.of("Content-Type", List.of("text/html; charset=utf-8"),
+                "Content-Encoding", List.of("gzip")), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void recordedPagesShouldBeReplayed() throws Exception {
+        IPageFetcher network = (url, headers) -> url.endsWith("/old")
+                ? page("https://example.com/new", "<h1>Moved</h1>")
+                : page(url, "<h1>Шофьор " + url + "</h1>");
+        try (ArchiveWriter writer = new ArchiveWriter(dir, 1024)) {
+            IPageFetcher recording = new RecordingPageFetcher(network, writer);
+            for (int i = 0; i < 20; i++) {
+                recording.fetch("https://example.com/job/" + i);
+            }
+            recording.fetch("https://example.com/old");
+        }
+
+        ArchiveReader reader = new ArchiveReader(dir);
+        assertTrue(reader.getSegments() > 1);
+        assertEquals(21, reader.size());
+
+        ReplayPageFetcher replay = new ReplayPageFetcher(reader);
+        FetchedPage page = replay.fetch("https://EXAMPLE.com/job/7#top");
+        assertEquals(200, page.getStatusCode());
+        assertEquals("<h1>Шофьор https://example.com/job/7</h1>", new String(page.getBody(), StandardCharsets.UTF_8));
+        assertEquals("utf-8", page.charset());
+        assertNull(page.header("Content-Encoding"));
+        assertEquals("https://example.com/new", replay.fetch("https://example.com/old").getUrl());
+        assertThrows(FileNotFoundException.class, () -> replay.fetch("https://example.com/job/99"));
+    }
+
+    @Test
+    void truncatedLastRecordShouldBeIgnored() throws IOException {
+        try (ArchiveWriter writer = new ArchiveWriter(dir, 1 << 20)) {
+            writer.append("https://example.com/1", page("https://example.com/1", "one"));
+            writer.append("https://example.com/2", page("https://example.com/2", "two"));
+        }
+        Path segment = dir.resolve("crawl-00001.warc");
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 10), StandardOpenOption.TRUNCATE_EXISTING);
+
+        ArchiveReader reader = new ArchiveReader(dir);
+        assertEquals(1, reader.size());
+        assertNotNull(reader.get("https://example.com/1"));
+        assertNull(reader.get("https://example.com/2"));
+    }
+
+    @Test
+    void newWriterShouldStartNewSegment() throws IOException {
+        try (ArchiveWriter writer = new ArchiveWriter(dir, 1 << 20)) {
+            writer.append("https://example.com/1", page("https://example.com/1", "old"));
+        }
+        try (ArchiveWriter writer = new ArchiveWriter(dir, 1 << 20)) {
+            writer.append("https://example.com/1", page("https://example.com/1", "new"));
+        }
+        assertTrue(Files.exists(dir.resolve("crawl-00002.warc")));
+        assertEquals("new", new String(new ArchiveReader(dir).get("https://example.com/1").getBody(), StandardCharsets.UTF_8));
+    }
+}
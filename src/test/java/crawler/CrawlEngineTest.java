@@ -0,0 +1,144 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.engine.CrawlEngine;
+import org.magistraturaSGI.crawler.engine.Stage;
+import org.magistraturaSGI.crawler.frontier.ConcurrentSeenSet;
+import org.magistraturaSGI.crawler.frontier.Frontier;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlEngineTest {
+
+    @Test
+    void fetchesShouldNeverExceedInFlightLimit() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try (CrawlEngine engine = new CrawlEngine(3)) {
+            Stage<Integer> stage = engine.addStage("fetch", 100, 10, item -> engine.fetch(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                return running.decrementAndGet();
+            }));
+            engine.start();
+            for (int i = 0; i < 30; i++) {
+                stage.put(i);
+            }
+            assertTrue(engine.awaitCompletion(Duration.ofSeconds(10)));
+        }
+        assertEquals(3, maxRunning.get());
+    }
+
+    @Test
+    void itemsShouldFlowThroughAllStages() throws InterruptedException {
+        Set<String> results = ConcurrentHashMap.newKeySet();
+        try (CrawlEngine engine = new CrawlEngine(4)) {
+            Stage<String> sink = engine.addStage("sink", 2, 1, results::add);
+            Stage<Integer> square = engine.addStage("square", 2, 2, i -> sink.put("n" + i * i));
+            engine.start();
+            for (int i = 0; i < 20; i++) {
+                square.put(i);
+            }
+            assertTrue(engine.awaitCompletion(Duration.ofSeconds(10)));
+            assertEquals(0, engine.getPendingTasks());
+        }
+        assertEquals(20, results.size());
+        assertTrue(results.contains("n361"));
+    }
+
+    @Test
+    void frontierSitesShouldBeFedUntilNoneAreLeft() throws InterruptedException {
+        Frontier frontier = new Frontier(new ConcurrentSeenSet());
+        frontier.push(new Site("Test", "http://example.com/?page=1", true));
+        AtomicInteger pages = new AtomicInteger();
+        try (CrawlEngine engine = new CrawlEngine(2)) {
+            Stage<Site> fetch = engine.addStage("fetch", 1, 2, site -> {
+                int page = pages.incrementAndGet();
+                if (page < 5) {
+                    engine.enqueue(frontier, new Site("Test", "http://example.com/?page=" + (page + 1), true));
+                    engine.enqueue(frontier, new Site("Test", "http://example.com/?page=" + page, true));
+                }
+            });
+            engine.feed(frontier, fetch);
+            engine.start();
+            assertTrue(engine.awaitCompletion(Duration.ofSeconds(10)));
+        }
+        assertEquals(5, pages.get());
+    }
+
+    @Test
+    void awaitCompletionShouldTimeOut() throws InterruptedException {
+        try (CrawlEngine engine = new CrawlEngine(1)) {
+            Stage<Integer> stage = engine.addStage("slow", 1, 1, item -> Thread.sleep(10_000));
+            engine.start();
+            stage.put(1);
+            assertFalse(engine.awaitCompletion(Duration.ofMillis(100)));
+            assertEquals(1, engine.getPendingTasks());
+        }
+    }
+
+    @Test
+    void drainShouldFinishFetchesInFlightAndStartNoNewOnes() throws InterruptedException {
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        Set<Integer> results = ConcurrentHashMap.newKeySet();
+        try (CrawlEngine engine = new CrawlEngine(2)) {
+            Stage<Integer> sink = engine.addStage("sink", 100, 1, results::add);
+            Stage<Integer> fetch = engine.addStage("fetch", 100, 2, item -> {
+                try {
+                    sink.put(engine.fetch(() -> {
+                        started.incrementAndGet();
+                        Thread.sleep(300);
+                        return item;
+                    }));
+                } catch (CancellationException e) {
+                    skipped.incrementAndGet();
+                }
+            });
+            engine.start();
+            for (int i = 0; i < 20; i++) {
+                fetch.put(i);
+            }
+            assertFalse(engine.awaitCompletion(Duration.ofMillis(100)));
+            engine.drain();
+            assertTrue(engine.isDraining());
+            assertTrue(engine.awaitCompletion(Duration.ofSeconds(5)));
+        }
+        assertEquals(2, started.get());
+        assertEquals(2, results.size());
+        assertEquals(18, skipped.get());
+    }
+
+    @Test
+    void limitsShouldBeResizedWhileRunning() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        try (CrawlEngine engine = new CrawlEngine(8)) {
+            Stage<Integer> stage = engine.addStage("fetch", 100, 1, item -> engine.fetch(() -> {
+                threads.add(Thread.currentThread().toString());
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                return running.decrementAndGet();
+            }));
+            engine.start();
+            engine.setMaxInFlight(2);
+            stage.setWorkers(6);
+            assertEquals(stage, engine.getStage("fetch"));
+            assertEquals(6, stage.getWorkers());
+            for (int i = 0; i < 30; i++) {
+                stage.put(i);
+            }
+            assertTrue(engine.awaitCompletion(Duration.ofSeconds(10)));
+        }
+        assertEquals(2, maxRunning.get());
+        assertTrue(threads.size() > 1);
+    }
+}
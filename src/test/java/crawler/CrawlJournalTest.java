@@ -0,0 +1,91 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.store.CrawlJournal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlJournalTest {
+    @TempDir
+    Path dir;
+
+    private CrawlJournal.State crawlAndStop(Path file) throws IOException {
+        try (CrawlJournal journal = CrawlJournal.create(file, Duration.ofSeconds(60),
+                List.of(new Site("Test", "http://example.com/jobs?page=1", true)))) {
+            journal.queued(new Site("Test", "http://example.com/jobs?page=2", true));
+            journal.queued(new Site("Test", "http://example.com/jobs?page=3", true));
+            journal.handled("http://example.com/jobs?page=1");
+            journal.jobQueued("Test", "http://example.com/job/1");
+            journal.jobQueued("Test", "http://example.com/job/2");
+            journal.jobQueued("Test", "http://example.com/job/3");
+            journal.listingFound("Test", new JobListing("Cook", "http://example.com/job/1", "Happy\tBar", "София", "12 май"));
+            journal.handled("http://example.com/job/2");
+        }
+        return CrawlJournal.replay(file);
+    }
+
+    @Test
+    void replayShouldReturnTheUnfinishedPagesAndTheListingsFound() throws IOException {
+        CrawlJournal.State state = crawlAndStop(dir.resolve("crawl.journal"));
+
+        assertEquals(List.of("http://example.com/jobs?page=2", "http://example.com/jobs?page=3"),
+                state.getPendingPages().stream().map(Site::getUrl).toList());
+        assertEquals(List.of("http://example.com/job/3"), state.getPendingJobs().stream().map(Site::getUrl).toList());
+        assertEquals("Test", state.getPendingJobs().get(0).getName());
+        assertEquals(1, state.getListingCount());
+        JobListing cook = state.getListings().get("Test").get(0);
+        assertEquals("Cook", cook.getTitle());
+        assertEquals("Happy Bar", cook.getCompany());
+        assertEquals("София", cook.getLocation());
+        assertEquals("12 май", cook.getPosted());
+        assertEquals(3, state.getPagesQueued().get("Test"));
+        assertTrue(state.getSeen().contains("http://example.com/job/2"));
+    }
+
+    @Test
+    void tornRecordsShouldBeSkipped() throws IOException {
+        Path file = dir.resolve("crawl.journal");
+        crawlAndStop(file);
+        String line = "D\thttp://example.com/jobs?page=2\t" + "0";
+        Files.writeString(file, line + "\nL\tTest\thttp://exam", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        CrawlJournal.State state = CrawlJournal.replay(file);
+
+        assertEquals(2, state.getPendingPages().size());
+        assertEquals(1, state.getListingCount());
+    }
+
+    @Test
+    void resumedJournalShouldContinueTheInterruptedCrawl() throws IOException {
+        Path file = dir.resolve("crawl.journal");
+        CrawlJournal.State state = crawlAndStop(file);
+        try (CrawlJournal journal = CrawlJournal.resume(file, Duration.ofSeconds(60), state)) {
+            journal.handled("http://example.com/jobs?page=2");
+            journal.listingFound("Test", new JobListing("Driver", "http://example.com/job/3"));
+        }
+
+        CrawlJournal.State resumed = CrawlJournal.replay(file);
+
+        assertEquals(List.of("http://example.com/jobs?page=3"), resumed.getPendingPages().stream().map(Site::getUrl).toList());
+        assertTrue(resumed.getPendingJobs().isEmpty());
+        assertEquals(2, resumed.getListingCount());
+        assertEquals("София", resumed.getListings().get("Test").get(0).getLocation()); // kept by the rewrite on resume
+        assertEquals(3, resumed.getPagesQueued().get("Test"));
+    }
+
+    @Test
+    void missingJournalShouldHaveNothingToResume() throws IOException {
+        assertNull(CrawlJournal.replay(dir.resolve("none.journal")));
+    }
+}
@@ -0,0 +1,51 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.metrics.CrawlMetrics;
+import org.magistraturaSGI.crawler.metrics.LatencyHistogram;
+import org.magistraturaSGI.crawler.metrics.SiteMetrics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlMetricsTest {
+
+    @Test
+    void histogramShouldReportBucketPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3_000_000); // 3 ms
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(900_000_000); // 900 ms
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(4, histogram.getPercentileMillis(50));
+        assertEquals(1024, histogram.getPercentileMillis(95));
+        assertEquals(900.0, histogram.getMaxMillis(), 0.001);
+        assertEquals(92.7, histogram.getMeanMillis(), 0.001);
+    }
+
+    @Test
+    void siteMetricsShouldBeExposedOverJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.magistraturaSGI.crawler:type=Site,name=" + ObjectName.quote("OLX"));
+        try (CrawlMetrics metrics = new CrawlMetrics(true)) {
+            SiteMetrics olx = metrics.site("OLX");
+            olx.fetched(20_000_000, 200, 2048);
+            olx.failed(5_000_000, 429);
+            olx.listingFound();
+
+            assertEquals(2L, server.getAttribute(name, "Fetches"));
+            assertEquals(2048L, server.getAttribute(name, "BytesDownloaded"));
+            assertEquals(1L, server.getAttribute(name, "Errors"));
+            assertEquals(1L, server.getAttribute(new ObjectName("org.magistraturaSGI.crawler:type=Crawl"), "Listings"));
+            assertTrue(metrics.getSummary().contains("OLX 2 req p95 32ms"));
+            assertTrue(metrics.getSummary().contains("1 throttled"));
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -2,9 +2,14 @@ package crawler;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import org.magistraturaSGI.crawler.Crawler;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
 import org.magistraturaSGI.crawler.dataobjects.Site;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -41,6 +46,27 @@ public class CrawlerTest {
         assertEquals("", crawler.getNextPageSelector());
     }
 
+    @Test
+    void findLinksShouldReadListingPage() {
+        Site olx = new Site("OLX", "https://www.olx.bg/rabota/", true);
+        Document page = Jsoup.parse("<ul><li><a href='/rabota/?page=2'>2</a></li></ul>"
+                + "<a href='https://www.olx.bg/ad/job/driver-1.html#x'>Driver</a>"
+                + "<a href='https://www.olx.bg/ad/other/car.html'>Car</a>", olx.getUrl());
+
+        assertEquals("https://www.olx.bg/rabota/?page=2", crawler.findPageLinks(olx, page).getFirst().getUrl());
+        assertEquals(List.of("https://www.olx.bg/ad/job/driver-1.html"), crawler.findJobLinks(olx, page));
+    }
+
+    @Test
+    void findJobListingShouldReadTitle() {
+        Site yox = new Site("Yox", "https://yox.bg/", true);
+        Document page = Jsoup.parse("<h1 data-job-component='title'>Шофьор</h1>", "https://yox.bg/jobs/1");
+
+        JobListing listing = crawler.findJobListing(yox, "https://yox.bg/jobs/1", page);
+        assertEquals("Шофьор", listing.getTitle());
+        assertEquals("https://yox.bg/jobs/1", listing.getUrl());
+    }
+
     @Test
     void runShouldExecuteWithoutExceptions() {
         assertDoesNotThrow(() -> crawler.run());
@@ -0,0 +1,83 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.store.DuplicateIndex;
+import org.magistraturaSGI.crawler.store.ResultStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateIndexTest {
+
+    @Test
+    void copiesOnOtherSitesShouldMatchTheFirstPosting() {
+        DuplicateIndex index = new DuplicateIndex(100, 3);
+        assertNull(index.add("JOBS.BG", new JobListing("Senior Java Developer (Sofia)", "https://jobs.bg/1")));
+        assertEquals("https://jobs.bg/1", index.add("OLX", new JobListing("senior java developer - sofia", "https://olx.bg/1")));
+        assertEquals("https://jobs.bg/1", index.add("RabotniMesta", new JobListing("SENIOR JAVA DEVELOPER, SOFIA", "https://rm.bg/1")));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void postingsOnTheSameSiteOrWithOtherTitlesShouldNotMatch() {
+        DuplicateIndex index = new DuplicateIndex(100, 3);
+        assertNull(index.add("JOBS.BG", new JobListing("Senior Java Developer", "https://jobs.bg/1")));
+        assertNull(index.add("JOBS.BG", new JobListing("Senior Java Developer", "https://jobs.bg/2")));
+        assertNull(index.add("OLX", new JobListing("Шофьор категория C", "https://olx.bg/1")));
+        assertNull(index.add("OLX", new JobListing("Продавач-консултант", "https://olx.bg/2")));
+        assertNull(index.add("OLX", new JobListing("", "https://olx.bg/3")));
+    }
+
+    @Test
+    void oldestListingsShouldBeForgottenOnceFull() {
+        DuplicateIndex index = new DuplicateIndex(2, 3);
+        index.add("JOBS.BG", new JobListing("Куриер", "https://jobs.bg/1", "Спиди АД", "София", ""));
+        index.add("JOBS.BG", new JobListing("Счетоводител", "https://jobs.bg/2", "Орбико", "Варна", ""));
+        index.add("JOBS.BG", new JobListing("Шофьор", "https://jobs.bg/3", "Еконт Експрес", "София", ""));
+
+        assertEquals(2, index.size());
+        assertNull(index.add("OLX", new JobListing("Куриер", "https://olx.bg/1", "Спиди АД", "София", "")));
+        assertEquals("https://jobs.bg/3",
+                index.add("RabotniMesta", new JobListing("Шофьор", "https://rm.bg/1", "Еконт Експрес", "София", "")));
+    }
+
+    @Test
+    void genericTitlesWithoutCompaniesShouldStaySeparate() {
+        DuplicateIndex index = new DuplicateIndex(100, 3);
+        assertNull(index.add("JOBS.BG", new JobListing("Шофьор", "https://jobs.bg/1")));
+        assertNull(index.add("Yox", new JobListing("Шофьор", "https://yox.bg/jobs/9")));
+        assertNull(index.add("JOBS.BG", new JobListing("Шофьор категория C", "https://jobs.bg/2")));
+        assertNull(index.add("RabotniMesta", new JobListing("Шофьор категория C", "https://rm.bg/1")));
+        assertNull(index.add("OLX", new JobListing("Senior Java Developer Sofia", "https://olx.bg/1", "", "София", "")));
+        assertNull(index.add("Yox", new JobListing("Senior Java Developer Sofia", "https://yox.bg/jobs/10", "", "Варна", "")));
+        assertEquals("https://olx.bg/1",
+                index.add("RabotniMesta", new JobListing("Senior Java Developer Sofia", "https://rm.bg/2", "", "София", "")));
+    }
+
+    @Test
+    void sameTitlesFromDifferentCompaniesShouldStaySeparate() {
+        DuplicateIndex index = new DuplicateIndex(100, 3);
+        assertNull(index.add("JOBS.BG", new JobListing("Шофьор", "https://jobs.bg/1", "Спиди АД", "София", "")));
+        assertNull(index.add("RabotniMesta", new JobListing("Шофьор", "https://rm.bg/1", "Еконт Експрес", "София", "")));
+        assertNull(index.add("OLX", new JobListing("Шофьор", "https://olx.bg/1", "Спиди АД", "Пловдив", "")));
+        assertEquals("https://jobs.bg/1",
+                index.add("OLX", new JobListing("Шофьор", "https://olx.bg/2", "СПИДИ АД", "София", "")));
+    }
+
+    @Test
+    void resultStoreShouldListCopiesAsAlternatesOfTheCanonicalPosting() {
+        ResultStore store = new ResultStore();
+        store.add("JOBS.BG", new JobListing("Куриер", "https://jobs.bg/1"));
+        store.addAlternate("https://jobs.bg/1", "https://olx.bg/1");
+        store.addAlternate("https://jobs.bg/1", "https://olx.bg/1");
+        store.addAlternate("https://jobs.bg/1", "https://rm.bg/1");
+
+        JobListing listing = store.iterator().next();
+
+        assertEquals(1, store.size());
+        assertEquals(2, store.getAlternateCount());
+        assertEquals(List.of("https://olx.bg/1", "https://rm.bg/1"), listing.getAlternateUrls());
+    }
+}
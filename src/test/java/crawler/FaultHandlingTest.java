@@ -0,0 +1,83 @@
+package crawler;
+
+import org.jsoup.HttpStatusException;
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.fetch.HostCircuitBreaker;
+import org.magistraturaSGI.crawler.fetch.RetryPolicy;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaultHandlingTest {
+
+    @Test
+    void failuresShouldBeClassified() {
+        assertTrue(RetryPolicy.isTransient(new HttpTimeoutException("timed out")));
+        assertTrue(RetryPolicy.isTransient(new ConnectException("refused")));
+        assertTrue(RetryPolicy.isTransient(new HttpStatusException("busy", 503, "http://a.example/")));
+        assertTrue(RetryPolicy.isTransient(new HttpStatusException("slow down", 429, "http://a.example/")));
+        assertFalse(RetryPolicy.isTransient(new HttpStatusException("gone", 404, "http://a.example/")));
+        assertFalse(RetryPolicy.isTransient(new FileNotFoundException("not archived")));
+        assertFalse(RetryPolicy.isTransient(new IOException("Invalid URL", new IllegalArgumentException())));
+    }
+
+    @Test
+    void backoffShouldGrowWithJitterUpToTheMax() {
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofMillis(1000));
+        for (int i = 0; i < 50; i++) {
+            long first = policy.backoff(1).toMillis();
+            long third = policy.backoff(3).toMillis();
+            long tenth = policy.backoff(10).toMillis();
+            assertTrue(first >= 50 && first <= 100, "first " + first);
+            assertTrue(third >= 200 && third <= 400, "third " + third);
+            assertTrue(tenth >= 500 && tenth <= 1000, "tenth " + tenth);
+        }
+    }
+
+    @Test
+    void circuitShouldOpenAfterFailuresInARow() {
+        HostCircuitBreaker breaker = new HostCircuitBreaker(3, Duration.ofMinutes(1));
+        breaker.onFailure("http://a.example/1");
+        breaker.onFailure("http://a.example/2");
+        breaker.onSuccess("http://a.example/3");
+        breaker.onFailure("http://a.example/4");
+        breaker.onFailure("http://a.example/5");
+        assertTrue(breaker.allow("http://a.example/6"));
+        breaker.onFailure("http://a.example/6");
+        assertTrue(breaker.isOpen("a.example"));
+        assertFalse(breaker.allow("http://a.example/7"));
+        assertTrue(breaker.allow("http://b.example/"));
+    }
+
+    @Test
+    void probeShouldCloseOrReopenTheCircuit() throws InterruptedException {
+        HostCircuitBreaker breaker = new HostCircuitBreaker(1, Duration.ofMillis(50));
+        breaker.onFailure("http://a.example/");
+        assertFalse(breaker.allow("http://a.example/"));
+        Thread.sleep(60);
+        assertTrue(breaker.allow("http://a.example/"));
+        assertFalse(breaker.allow("http://a.example/"), "only one probe at a time");
+        breaker.onFailure("http://a.example/");
+        Thread.sleep(60);
+        assertFalse(breaker.allow("http://a.example/"), "a failed probe doubles the pause");
+        Thread.sleep(60);
+        assertTrue(breaker.allow("http://a.example/"));
+        breaker.onSuccess("http://a.example/");
+        assertFalse(breaker.isOpen("a.example"));
+        assertTrue(breaker.allow("http://a.example/"));
+    }
+
+    @Test
+    void zeroThresholdShouldNeverOpen() {
+        HostCircuitBreaker breaker = new HostCircuitBreaker(0, Duration.ofMinutes(1));
+        for (int i = 0; i < 100; i++) {
+            breaker.onFailure("http://a.example/");
+        }
+        assertTrue(breaker.allow("http://a.example/"));
+    }
+}
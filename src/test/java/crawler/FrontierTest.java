@@ -0,0 +1,98 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.frontier.BloomSeenSet;
+import org.magistraturaSGI.crawler.frontier.ConcurrentSeenSet;
+import org.magistraturaSGI.crawler.frontier.Frontier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrontierTest {
+
+    @Test
+    void pushShouldSkipEquivalentUrls() {
+        Frontier frontier = new Frontier(new ConcurrentSeenSet());
+
+        assertTrue(frontier.push(new Site("OLX", "https://www.olx.bg/rabota/?page=2", true)));
+        assertFalse(frontier.push(new Site("OLX", "https://WWW.OLX.BG/rabota/?page=2#top", true)));
+        assertFalse(frontier.push(new Site("OLX", "https://www.olx.bg/rabota/?page=2&utm_source=feed", true)));
+        assertEquals(1, frontier.size());
+        assertEquals("https://www.olx.bg/rabota/?page=2", frontier.poll().getUrl());
+        assertTrue(frontier.isEmpty());
+    }
+
+    @Test
+    void markSeenShouldOnlyAcceptNewUrls() {
+        Frontier frontier = new Frontier(new ConcurrentSeenSet());
+
+        assertTrue(frontier.markSeen("https://yox.bg/jobs/1"));
+        assertFalse(frontier.markSeen("https://yox.bg/jobs/1#details"));
+        assertTrue(frontier.isSeen("https://YOX.bg/jobs/1"));
+        frontier.clear();
+        assertFalse(frontier.isSeen("https://yox.bg/jobs/1"));
+    }
+
+    @Test
+    void bloomSeenSetShouldNeverForgetUrls() {
+        BloomSeenSet seenSet = new BloomSeenSet(10_000, 0.001);
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!seenSet.add("https://www.jobs.bg/job/" + i)) {
+                falsePositives++;
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(seenSet.contains("https://www.jobs.bg/job/" + i));
+            assertFalse(seenSet.add("https://www.jobs.bg/job/" + i));
+        }
+        assertTrue(falsePositives < 50);
+    }
+
+    @Test
+    void pagesShouldBeTakenByPriorityThenInOrder() {
+        Frontier frontier = new Frontier(new ConcurrentSeenSet());
+        frontier.setPriority(page -> page.getUrl().endsWith("hot") ? 1 : 0);
+
+        frontier.push(new Site("OLX", "https://www.olx.bg/rabota/?page=2", true));
+        frontier.push(new Site("OLX", "https://www.olx.bg/rabota/?page=3", true));
+        frontier.push(new Site("OLX", "https://www.olx.bg/rabota/?sort=hot", true));
+
+        assertEquals("https://www.olx.bg/rabota/?sort=hot", frontier.poll().getUrl());
+        assertEquals("https://www.olx.bg/rabota/?page=2", frontier.poll().getUrl());
+        assertEquals("https://www.olx.bg/rabota/?page=3", frontier.poll().getUrl());
+        assertNull(frontier.poll());
+    }
+
+    @Test
+    void sitesShouldTakeTurns() {
+        Frontier frontier = new Frontier(new ConcurrentSeenSet());
+        for (int page = 1; page <= 3; page++) {
+            frontier.push(new Site("OLX", "https://www.olx.bg/rabota/?page=" + page, true));
+        }
+        frontier.push(new Site("JOBS.BG", "https://www.jobs.bg/front_job_search.php?page=1", true));
+
+        List<String> order = List.of(frontier.poll().getName(), frontier.poll().getName(),
+                frontier.poll().getName(), frontier.poll().getName());
+
+        assertEquals(List.of("OLX", "JOBS.BG", "OLX", "OLX"), order);
+        assertEquals(0, frontier.size());
+    }
+
+    @Test
+    void revisitShouldQueueSeenPagesOnce() {
+        Frontier frontier = new Frontier(new ConcurrentSeenSet());
+        Site page = new Site("OLX", "https://www.olx.bg/rabota/?page=2", true);
+        frontier.push(page);
+
+        assertFalse(frontier.revisit(page));
+        frontier.poll();
+        assertFalse(frontier.push(page));
+        assertTrue(frontier.revisit(page));
+        assertFalse(frontier.revisit(page));
+        assertEquals(1, frontier.size());
+        assertEquals(page.getUrl(), frontier.poll().getUrl());
+    }
+}
@@ -0,0 +1,77 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.fetch.HostRateLimiter;
+import org.magistraturaSGI.crawler.fetch.HttpResponseException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostRateLimiterTest {
+    private static final long FAST = Duration.ofMillis(50).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    @Test
+    void burstShouldPassThenRequestsShouldBePaced() throws InterruptedException {
+        HostRateLimiter limiter = new HostRateLimiter(20, 1, 20, 3, Duration.ofSeconds(1));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Duration.ZERO, limiter.acquire("http://a.example/" + i));
+        }
+        long start = System.nanoTime();
+        limiter.acquire("http://a.example/3");
+        limiter.acquire("http://a.example/4");
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(80).toNanos());
+        assertEquals(Duration.ZERO, limiter.acquire("http://b.example/"));
+    }
+
+    @Test
+    void rateShouldAdaptToLatencyAndThrottling() {
+        HostRateLimiter limiter = new HostRateLimiter(2, 0.5, 3, 1, Duration.ofSeconds(1));
+        for (int i = 0; i < 20; i++) {
+            limiter.onResponse("http://a.example/", FAST, 200, null);
+        }
+        assertEquals(3, limiter.getRate("a.example"), 1e-9);
+        limiter.onResponse("http://a.example/", SLOW, 200, null);
+        assertEquals(2.7, limiter.getRate("a.example"), 1e-9);
+        limiter.onResponse("http://a.example/", FAST, 404, null);
+        assertEquals(2.7, limiter.getRate("a.example"), 1e-9);
+        for (int i = 0; i < 5; i++) {
+            limiter.onResponse("http://a.example/", FAST, 429, Duration.ZERO);
+        }
+        assertEquals(0.5, limiter.getRate("a.example"), 1e-9);
+    }
+
+    @Test
+    void retryAfterShouldPauseTheHost() throws InterruptedException {
+        HostRateLimiter limiter = new HostRateLimiter(100, 1, 100, 4, Duration.ofSeconds(1));
+        limiter.onResponse("http://a.example/", FAST, 503, Duration.ofMillis(300));
+        assertTrue(limiter.acquire("http://a.example/").toMillis() >= 250);
+        assertEquals(Duration.ZERO, limiter.acquire("http://b.example/"));
+    }
+
+    @Test
+    void crawlDelayShouldCapTheRate() {
+        HostRateLimiter limiter = new HostRateLimiter(2, 0.1, 10, 1, Duration.ofSeconds(1));
+        limiter.configureHost("a.example", 5, Duration.ofSeconds(1));
+        assertEquals(1, limiter.getRate("a.example"), 1e-9);
+        limiter.onResponse("http://a.example/", FAST, 200, null);
+        assertEquals(1, limiter.getRate("a.example"), 1e-9);
+    }
+
+    @Test
+    void zeroRateShouldNotLimit() throws InterruptedException {
+        HostRateLimiter limiter = new HostRateLimiter(0, 0, 0, 1, Duration.ofSeconds(1));
+        assertFalse(limiter.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Duration.ZERO, limiter.acquire("http://a.example/"));
+        }
+    }
+
+    @Test
+    void retryAfterShouldBeParsedAsSecondsOrDate() {
+        assertEquals(Duration.ofSeconds(120), HttpResponseException.parseRetryAfter("120"));
+        assertNotNull(HttpResponseException.parseRetryAfter("Wed, 21 Oct 2099 07:28:00 GMT"));
+        assertNull(HttpResponseException.parseRetryAfter("soon"));
+    }
+}
@@ -0,0 +1,100 @@
+package crawler;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.HttpStatusException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.Config;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.fetch.HttpPageFetcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpPageFetcherTest {
+    private HttpServer server;
+    private HttpPageFetcher fetcher;
+    private String baseUrl;
+    private volatile String lastUserAgent;
+
+    @BeforeEach
+    void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gzip", exchange -> {
+            lastUserAgent = exchange.getRequestHeaders().getFirst("User-Agent");
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("<h1>Шофьор</h1>".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, compressed.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                compressed.writeTo(out);
+            }
+        });
+        server.createContext("/large", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[3 * 1024 * 1024]);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        fetcher = new HttpPageFetcher(new Config());
+    }
+
+    @AfterEach
+    void after() {
+        fetcher.close();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchShouldDecompressAndParseBody() throws Exception {
+        FetchedPage page = fetcher.fetch(baseUrl + "/gzip");
+
+        assertEquals(200, page.getStatusCode());
+        assertEquals("UTF-8", page.charset());
+        assertEquals("Шофьор", page.toDocument().select("h1").text());
+        assertEquals("Mozilla 5.0", lastUserAgent);
+    }
+
+    @Test
+    void fetchShouldTruncateAtMaxBodySize() throws Exception {
+        FetchedPage page = fetcher.fetch(baseUrl + "/large");
+        assertEquals(2 * 1024 * 1024, page.getBody().length);
+        assertTrue(page.isTruncated());
+        assertFalse(fetcher.fetch(baseUrl + "/gzip").isTruncated());
+    }
+
+    @Test
+    void fetchShouldReadUpToTheGivenBodySize() throws Exception {
+        FetchedPage whole = fetcher.fetch(baseUrl + "/large", Map.of(), 4 * 1024 * 1024);
+        assertEquals(3 * 1024 * 1024, whole.getBody().length);
+        assertFalse(whole.isTruncated());
+
+        FetchedPage cut = fetcher.fetch(baseUrl + "/gzip", Map.of(), 4);
+        assertEquals(4, cut.getBody().length);
+        assertTrue(cut.isTruncated());
+    }
+
+    @Test
+    void fetchShouldFailOnErrorStatus() {
+        HttpStatusException e = assertThrows(HttpStatusException.class, () -> fetcher.fetch(baseUrl + "/missing"));
+        assertEquals(404, e.getStatusCode());
+    }
+}
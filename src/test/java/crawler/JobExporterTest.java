@@ -0,0 +1,111 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.export.CsvJobExporter;
+import org.magistraturaSGI.crawler.export.JobExporters;
+import org.magistraturaSGI.crawler.export.JsonLinesJobExporter;
+import org.magistraturaSGI.crawler.export.TextJobExporter;
+import org.magistraturaSGI.crawler.interfaces.IJobExporter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void formatShouldFollowFileExtension() throws IOException {
+        try (IJobExporter csv = JobExporters.create(dir.resolve("a.csv.gz"), 10);
+             IJobExporter jsonl = JobExporters.create(dir.resolve("a.jsonl"), 10);
+             IJobExporter txt = JobExporters.create(dir.resolve("a.txt"), 10)) {
+            assertInstanceOf(CsvJobExporter.class, csv);
+            assertInstanceOf(JsonLinesJobExporter.class, jsonl);
+            assertInstanceOf(TextJobExporter.class, txt);
+        }
+    }
+
+    @Test
+    void csvShouldQuoteSpecialCharacters() throws IOException {
+        Path file = dir.resolve("jobs.csv");
+        try (IJobExporter exporter = JobExporters.create(file, 10)) {
+            exporter.write(new JobListing("Developer, \"Java\"", "https://example.com/1"));
+            exporter.write(new JobListing("Tester", "https://example.com/2"));
+        }
+        assertEquals(List.of("title,url,company,location,posted,alternates", "\"Developer, \"\"Java\"\"\",https://example.com/1,,,,",
+                        "Tester,https://example.com/2,,,,"),
+                Files.readAllLines(file));
+    }
+
+    @Test
+    void copiesShouldBeExportedWithTheirListing() throws IOException {
+        JobListing listing = new JobListing("Куриер", "https://jobs.bg/1", "Спиди АД", "София, Люлин", "12.05.2026",
+                List.of("https://olx.bg/1", "https://rm.bg/1"));
+        Path csvFile = dir.resolve("jobs.csv");
+        Path jsonFile = dir.resolve("jobs.jsonl");
+        try (IJobExporter csv = JobExporters.create(csvFile, 10); IJobExporter json = JobExporters.create(jsonFile, 10)) {
+            csv.write(listing);
+            csv.writeAlternates("https://jobs.bg/2", List.of("https://olx.bg/2"));
+            json.write(new JobListing("Шофьор", "https://jobs.bg/2"));
+            json.writeAlternates("https://jobs.bg/2", List.of("https://olx.bg/2"));
+        }
+
+        assertEquals(List.of("title,url,company,location,posted,alternates",
+                "Куриер,https://jobs.bg/1,Спиди АД,\"София, Люлин\",12.05.2026,https://olx.bg/1 https://rm.bg/1",
+                ",https://jobs.bg/2,,,,https://olx.bg/2"), Files.readAllLines(csvFile));
+        assertEquals(List.of("{\"title\":\"Шофьор\",\"url\":\"https://jobs.bg/2\"}",
+                "{\"url\":\"https://jobs.bg/2\",\"alternates\":[\"https://olx.bg/2\"]}"), Files.readAllLines(jsonFile));
+    }
+
+    @Test
+    void jsonLinesShouldEscapeStrings() throws IOException {
+        Path file = dir.resolve("jobs.jsonl");
+        try (IJobExporter exporter = JobExporters.create(file, 10)) {
+            exporter.write(new JobListing("Back\\end \"Dev\"\n", "https://example.com/1"));
+        }
+        assertEquals(List.of("{\"title\":\"Back\\\\end \\\"Dev\\\"\\n\",\"url\":\"https://example.com/1\"}"),
+                Files.readAllLines(file));
+    }
+
+    @Test
+    void gzipOutputShouldBeReadableAfterEachBatch() throws IOException {
+        Path file = dir.resolve("jobs.txt.gz");
+        try (IJobExporter exporter = JobExporters.create(file, 2)) {
+            exporter.write(new JobListing("One", "https://example.com/1"));
+            exporter.write(new JobListing("Two", "https://example.com/2"));
+            exporter.write(new JobListing("Three", "https://example.com/3"));
+            // the file is still open: only the first batch has been flushed
+            assertEquals("Title: One | Found at: https://example.com/1\nTitle: Two | Found at: https://example.com/2\n",
+                    readFlushed(file));
+        }
+        assertTrue(readFlushed(file).endsWith("Title: Three | Found at: https://example.com/3\n"));
+    }
+
+    /**
+     * Reads as much of a gzip file as has been written, as a consumer tailing it would.
+     */
+    private static String readFlushed(Path file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                text.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+            }
+        } catch (EOFException e) {
+            // the stream has no trailer yet
+        }
+        return text.toString();
+    }
+}
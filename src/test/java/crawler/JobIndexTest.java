@@ -0,0 +1,77 @@
+package crawler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.store.JobIndex;
+import org.magistraturaSGI.crawler.store.ResultStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobIndexTest {
+    private ResultStore store;
+    private JobIndex index;
+
+    @BeforeEach
+    void setUp() {
+        store = new ResultStore();
+        index = new JobIndex(store);
+        add("JOBS.BG", new JobListing("Senior Java Developer", "https://jobs.bg/1"));
+        add("OLX", new JobListing("Шофьор категория C, София", "https://olx.bg/1"));
+        add("JOBS.BG", new JobListing("Java Script Developer", "https://jobs.bg/2"));
+        add("RabotniMesta", new JobListing("Шофьор-куриер", "https://rm.bg/1"));
+        add("OLX", new JobListing("Café Barista", "https://olx.bg/2"));
+    }
+
+    private void add(String site, JobListing listing) {
+        index.add(store.add(site, listing));
+    }
+
+    private List<String> urls(String query) {
+        JobIndex.SearchResult result = index.search(query);
+        return result.page(0, 100).stream().map(JobListing::getUrl).toList();
+    }
+
+    @Test
+    void wordsShouldMatchIgnoringCaseAndAccents() {
+        assertEquals(List.of("https://olx.bg/1", "https://rm.bg/1"), urls("ШОФЬОР"));
+        assertEquals(List.of("https://olx.bg/2"), urls("cafe"));
+        assertEquals(List.of("https://jobs.bg/1", "https://jobs.bg/2"), urls("java developer"));
+        assertEquals(List.of(), urls("python"));
+    }
+
+    @Test
+    void prefixesPhrasesAndSitesShouldNarrowTheResults() {
+        assertEquals(List.of("https://olx.bg/1", "https://rm.bg/1"), urls("шоф*"));
+        assertEquals(List.of("https://jobs.bg/1"), urls("\"java developer\""));
+        assertEquals(List.of("https://rm.bg/1"), urls("шофьор site:rabotnimesta"));
+        assertEquals(List.of("https://olx.bg/1", "https://olx.bg/2"), urls("site:OLX"));
+    }
+
+    @Test
+    void resultsShouldBePagedAndSeeNewListings() {
+        for (int i = 0; i < 45; i++) {
+            add("JOBS.BG", new JobListing("Куриер " + i, "https://jobs.bg/c" + i));
+        }
+        JobIndex.SearchResult result = index.search("куриер");
+
+        assertEquals(46, result.getTotal());
+        assertEquals(20, result.page(0, 20).size());
+        assertEquals("https://jobs.bg/c19", result.page(1, 20).get(0).getUrl());
+        assertEquals(6, result.page(2, 20).size());
+        assertTrue(result.page(3, 20).isEmpty());
+        assertEquals(50, index.search("").getTotal());
+    }
+
+    @Test
+    void resultsShouldBeReadFromTheStore() {
+        store.addAlternate("https://olx.bg/2", "https://jobs.bg/99");
+
+        JobListing listing = index.search("barista").page(0, 20).get(0);
+
+        assertEquals("Café Barista", listing.getTitle());
+        assertEquals(List.of("https://jobs.bg/99"), listing.getAlternateUrls());
+    }
+}
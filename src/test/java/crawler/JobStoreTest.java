@@ -0,0 +1,111 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.magistraturaSGI.crawler.dataobjects.CrawlDelta;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.store.JobStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void knownListingsShouldSurviveReopening() throws IOException {
+        Path file = dir.resolve("jobs.tsv");
+        try (JobStore store = new JobStore(file)) {
+            store.beginCrawl();
+            store.add("OLX", new JobListing("Шофьор", "https://www.olx.bg/ad/job/1"));
+            store.add("OLX", new JobListing("Продавач\tконсултант", "https://www.olx.bg/ad/job/2"));
+            assertEquals(new CrawlDelta(2, 0, 0).toString(), store.finishCrawl(List.of("OLX"), true).toString());
+        }
+        try (JobStore store = new JobStore(file)) {
+            assertEquals(2, store.size());
+            JobListing known = store.markSeen("https://www.olx.bg/ad/job/2");
+            assertEquals("Продавач консултант", known.getTitle());
+            assertNull(store.markSeen("https://www.olx.bg/ad/job/3"));
+        }
+    }
+
+    @Test
+    void refetchedListingShouldUpdateItsTitle() throws IOException {
+        Path file = dir.resolve("jobs.tsv");
+        try (JobStore store = new JobStore(file)) {
+            store.beginCrawl();
+            store.add("JOBS.BG", new JobListing("Шофьор", "https://www.jobs.bg/job/1"));
+            store.finishCrawl(List.of("JOBS.BG"), true);
+
+            store.beginCrawl();
+            store.add("JOBS.BG", new JobListing("Шофьор категория C", "https://www.jobs.bg/job/1"));
+            CrawlDelta delta = store.finishCrawl(List.of("JOBS.BG"), true);
+
+            assertEquals(0, delta.getNewListings());
+            assertEquals(1, delta.getUnchangedListings());
+        }
+        try (JobStore store = new JobStore(file)) {
+            assertEquals(1, store.size());
+            assertEquals("Шофьор категория C", store.markSeen("https://www.jobs.bg/job/1").getTitle());
+        }
+    }
+
+    @Test
+    void finishCrawlShouldReportDelta() throws IOException {
+        Path file = dir.resolve("jobs.tsv");
+        try (JobStore store = new JobStore(file)) {
+            store.add("OLX", new JobListing("A", "https://www.olx.bg/ad/job/1"));
+            store.add("OLX", new JobListing("B", "https://www.olx.bg/ad/job/2"));
+            store.add("Yox", new JobListing("C", "https://yox.bg/jobs/3"));
+
+            store.beginCrawl();
+            assertNotNull(store.markSeen("https://www.olx.bg/ad/job/1"));
+            store.add("OLX", new JobListing("D", "https://www.olx.bg/ad/job/4"));
+            CrawlDelta delta = store.finishCrawl(List.of("OLX"), true);
+
+            assertEquals(1, delta.getNewListings());
+            assertEquals(1, delta.getRemovedListings());
+            assertEquals(1, delta.getUnchangedListings());
+        }
+        try (JobStore store = new JobStore(file)) {
+            assertEquals(3, store.size());
+            assertNull(store.markSeen("https://www.olx.bg/ad/job/2"));
+        }
+    }
+
+    @Test
+    void incompleteCrawlShouldKeepListingsNotSeen() throws IOException {
+        try (JobStore store = new JobStore(dir.resolve("jobs.tsv"))) {
+            store.add("OLX", new JobListing("A", "https://www.olx.bg/ad/job/1"));
+            store.beginCrawl();
+            CrawlDelta delta = store.finishCrawl(List.of("OLX"), false);
+
+            assertEquals(1, delta.getRemovedListings());
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void lastCompleteCrawlStartShouldSurviveReopening() throws IOException {
+        Path file = dir.resolve("jobs.tsv");
+        Instant before = Instant.now();
+        try (JobStore store = new JobStore(file)) {
+            assertNull(store.getLastCrawlStart());
+            store.beginCrawl();
+            store.finishCrawl(List.of("OLX"), false);
+            assertNull(store.getLastCrawlStart());
+            store.beginCrawl();
+            store.finishCrawl(List.of("OLX"), true);
+        }
+        try (JobStore store = new JobStore(file)) {
+            assertFalse(store.getLastCrawlStart().isBefore(before.truncatedTo(ChronoUnit.MILLIS)));
+        }
+    }
+}
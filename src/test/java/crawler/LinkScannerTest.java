@@ -0,0 +1,89 @@
+package crawler;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.extract.LinkScanner;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkScannerTest {
+    private static final String PAGE_URL = "https://www.rabotnimesta.bg/работа/?&p=1";
+    private static final String HTML = """
+            <!DOCTYPE html>
+            <html><head><title>Обяви <a href="/обява/0">not a link</a></title>
+            <script>var s = '<a href="/обява/script">';</script>
+            <style>a[href] { color: red }</style></head>
+            <body>
+            <!-- <a href="/обява/comment"> -->
+            <div class=card><A HREF="/обява/1-шофьор">Шофьор</A></div>
+            <div class="card"><a class="x" data-href="/other" href='https://www.rabotnimesta.bg/обява/2?a=1&amp;b=2'>Готвач</a></div>
+            <a href=/обява/3 target=_blank>Unquoted</a>
+            <a
+               href = "  /ОБЯВА/4  " >Spaced</a>
+            <abbr href="/обява/5">not an anchor</abbr>
+            <a name="top">No href</a>
+            <a href="/работа/?&amp;p=2">2</a><a href="/работа/?&amp;p=3">3</a>
+            <a href="https://other.example/обява/6">Elsewhere</a>
+            <textarea><a href="/обява/textarea"></textarea>
+            </body></html>
+            """;
+
+    private static List<String> jsoup(String selector) {
+        Document document = Jsoup.parse(HTML, PAGE_URL);
+        return document.select(selector).stream().map(link -> link.attr("abs:href")).toList();
+    }
+
+    private static List<String> scan(String selector) {
+        return LinkScanner.forSelector(selector).scan(HTML, PAGE_URL);
+    }
+
+    @Test
+    void scannedLinksShouldMatchTheLinksJsoupSelects() {
+        for (String selector : List.of("a[href*=\"/обява/\"]", "a[href*=\"/работа/?&p=\"]", "a[href^=\"https://\"]",
+                "a[href^='/обява/']", "a[href$=\"3\"]", "a[href=\"/обява/4\"]", "a[href]")) {
+            List<String> expected = jsoup(selector);
+            assertFalse(expected.isEmpty(), selector);
+            assertEquals(expected, scan(selector), selector);
+        }
+    }
+
+    @Test
+    void relativeLinksShouldBeResolvedAgainstTheBase() {
+        String html = "<head><base href=\"https://yox.bg/bg/\"></head><a href=\"jobs/1\">1</a><a href=\"//cdn.yox.bg/x\">2</a>";
+        List<String> links = LinkScanner.forSelector("a[href]").scan(html, "https://yox.bg/search?o=0");
+
+        assertEquals(List.of("https://yox.bg/bg/jobs/1", "https://cdn.yox.bg/x"), links);
+        assertEquals(Jsoup.parse(html, "https://yox.bg/search?o=0").select("a[href]").stream()
+                .map(link -> link.attr("abs:href")).toList(), links);
+    }
+
+    @Test
+    void pageShouldBeDecodedWithItsCharset() {
+        Charset cp1251 = Charset.forName("windows-1251");
+        byte[] body = "<meta charset=\"windows-1251\"><a href=\"/обява/7\">x</a>".getBytes(cp1251);
+        FetchedPage page = new FetchedPage(PAGE_URL, 200, Map.of(), body);
+
+        assertEquals(List.of("https://www.rabotnimesta.bg/обява/7"), LinkScanner.forSelector("a[href*=\"/обява/\"]").scan(page));
+    }
+
+    @Test
+    void selectorsThatNeedADomShouldNotBeScanned() {
+        assertNull(LinkScanner.forSelector("li > a[href*=\"/rabota/?page=\"]"));
+        assertNull(LinkScanner.forSelector("a.next"));
+        assertNull(LinkScanner.forSelector("a[href^=\"/x\"], a[href^=\"/y\"]"));
+        assertNull(LinkScanner.forSelector("h2[class*=\"job-view-title\"]"));
+        assertNotNull(LinkScanner.forSelector(" a[href^=\"https://www.jobs.bg/job/\"] "));
+    }
+
+    @Test
+    void unclosedTagShouldEndTheScan() {
+        assertEquals(List.of("https://yox.bg/jobs/1"),
+                LinkScanner.forSelector("a[href]").scan("<a href=\"/jobs/1\">1</a><a href=\"/jobs/2", "https://yox.bg/"));
+    }
+}
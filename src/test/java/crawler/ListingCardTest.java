@@ -0,0 +1,85 @@
+package crawler;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.QueryParser;
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.dataobjects.ListingCard;
+import org.magistraturaSGI.crawler.store.ResultStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingCardTest {
+    private static final String PAGE = """
+            <div class="results">
+              <div class="card">
+                <a href="/jobs/1"><h3>Java Developer</h3></a>
+                <span class="company">Acme</span><span class="city">София</span><time>днес</time>
+              </div>
+              <div class="card">
+                <a href="/jobs/2"><h3>Шофьор кат. C</h3></a>
+                <span class="city">Пловдив</span>
+              </div>
+              <div class="card"><a href="/jobs/3"></a></div>
+              <div class="card"><span class="company">No link</span></div>
+            </div>
+            """;
+
+    private static List<JobListing> read(ListingCard listingCard) {
+        Document document = Jsoup.parse(PAGE, "https://yox.bg/search");
+        return document.select(listingCard.getCard()).stream()
+                .map(card -> listingCard.read(card, QueryParser.parse("a[href*=\"/jobs/\"]")))
+                .toList();
+    }
+
+    @Test
+    void cardsShouldGiveTheListingWithoutItsJobPage() {
+        List<JobListing> listings = read(new ListingCard("div.card", "h3", "span.company", "span.city", "time"));
+
+        JobListing first = listings.get(0);
+        assertEquals("Java Developer", first.getTitle());
+        assertEquals("https://yox.bg/jobs/1", first.getUrl());
+        assertEquals("Acme", first.getCompany());
+        assertEquals("София", first.getLocation());
+        assertEquals("днес", first.getPosted());
+        assertEquals("", listings.get(1).getCompany());
+        assertEquals("Пловдив", listings.get(1).getLocation());
+        assertEquals("", listings.get(2).getTitle()); // its job page has to be fetched
+        assertNull(listings.get(3));
+    }
+
+    @Test
+    void cardWithoutTitleSelectorShouldUseTheLinkText() {
+        List<JobListing> listings = read(new ListingCard("div.card", "", "", "", ""));
+
+        assertEquals("Шофьор кат. C", listings.get(1).getTitle());
+        assertEquals("", listings.get(1).getLocation());
+    }
+
+    @Test
+    void cardThatIsTheLinkShouldBeRead() {
+        Element card = Jsoup.parse("<a class=\"card\" href=\"/jobs/9\"><b>Cook</b></a>", "https://yox.bg/").selectFirst("a");
+        JobListing listing = new ListingCard("a.card", "b", "", "", "").read(card, null);
+
+        assertEquals("Cook", listing.getTitle());
+        assertEquals("https://yox.bg/jobs/9", listing.getUrl());
+    }
+
+    @Test
+    void resultStoreShouldKeepTheCardDetails() {
+        ResultStore store = new ResultStore();
+        store.add("Yox", new JobListing("Java Developer", "https://yox.bg/jobs/1", "Acme", "София", "днес"));
+        store.add("Yox", new JobListing("Cook", "https://yox.bg/jobs/2"));
+
+        var iterator = store.iterator();
+        JobListing first = iterator.next();
+        assertEquals("Acme", first.getCompany());
+        assertEquals("София", first.getLocation());
+        assertEquals("днес", first.getPosted());
+        assertEquals("", iterator.next().getCompany());
+    }
+}
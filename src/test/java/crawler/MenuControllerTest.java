@@ -10,6 +10,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -25,6 +26,7 @@ class MenuControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        MenuController.setCrawler(crawler);
     }
 
     @Test
@@ -40,8 +42,7 @@ class MenuControllerTest {
     void viewConfigShouldUpdateConfig() {
 
         when(crawler.getConfig()).thenReturn(config);
-        InputStream inputStream = new ByteArrayInputStream("1\n5\n0\n".getBytes());
-        System.setIn(inputStream);
+        System.setIn(typed("1\n5\n2\n5\n0\n"));
         MenuController.viewConfig();
 
         verify(config, times(1)).setThreadCount(5);
@@ -51,13 +52,33 @@ class MenuControllerTest {
     @Test
     void viewSitesShouldToggleSearchedStatus()  {
         when(crawler.getConfig()).thenReturn(config);
-        when(config.getSiteList()).thenReturn(List.of(new Site("Test Site", "www.test.com", false)));
-        InputStream inputStream = new ByteArrayInputStream("1\n0\n".getBytes());
-        System.setIn(inputStream);
+        when(config.getSiteList()).thenReturn(new ArrayList<>(List.of(new Site("Test Site", "www.test.com", false))));
+        System.setIn(typed("1\n0\n"));
         MenuController.viewSites();
 
         assertTrue(config.getSiteList().getFirst().isSearched());
     }
 
+    /**
+     * Input that arrives one line per read, as typed at a console, so each Scanner the menus create
+     * reads only the next line instead of buffering the whole script.
+     */
+    private static InputStream typed(String script) {
+        return new ByteArrayInputStream(script.getBytes()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int line = 0;
+                while (pos + line < count && buf[pos + line] != '\n') {
+                    line++;
+                }
+                return super.read(b, off, Math.min(len, line + 1));
+            }
+
+            @Override
+            public synchronized int available() {
+                return 0; // nothing more is ready until it is read, or a reader would take the next lines too
+            }
+        };
+    }
 
 }
\ No newline at end of file
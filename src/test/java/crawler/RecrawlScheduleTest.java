@@ -0,0 +1,67 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.Site;
+import org.magistraturaSGI.crawler.frontier.RecrawlSchedule;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecrawlScheduleTest {
+    private static final Instant START = Instant.parse("2026-01-05T08:00:00Z");
+    private static final Site FIRST = new Site("OLX", "https://www.olx.bg/rabota/", true);
+    private static final Site DEEP = new Site("OLX", "https://www.olx.bg/rabota/?page=9", true);
+
+    @Test
+    void intervalShouldShrinkWithNewJobsAndGrowWithout() {
+        RecrawlSchedule schedule = new RecrawlSchedule(Duration.ofMinutes(5), Duration.ofHours(1));
+        schedule.visited(DEEP, 20, START);
+        assertEquals(Duration.ofMinutes(5), schedule.interval(DEEP.getUrl()));
+
+        Instant now = START;
+        for (int visit = 1; visit <= 3; visit++) {
+            now = now.plus(Duration.ofMinutes(10));
+            schedule.visited(DEEP, 0, now);
+        }
+        assertEquals(Duration.ofMinutes(40), schedule.interval(DEEP.getUrl()));
+        schedule.visited(DEEP, 0, now.plus(Duration.ofMinutes(40)));
+        assertEquals(Duration.ofHours(1), schedule.interval(DEEP.getUrl()));
+
+        schedule.visited(DEEP, 3, now.plus(Duration.ofHours(2)));
+        assertEquals(Duration.ofMinutes(30), schedule.interval(DEEP.getUrl()));
+    }
+
+    @Test
+    void firstPagesAndChangingPagesShouldRankFirst() {
+        RecrawlSchedule schedule = new RecrawlSchedule(Duration.ofMinutes(5), Duration.ofHours(1));
+        Site busy = new Site("OLX", "https://www.olx.bg/rabota/?page=2", true);
+        schedule.addFirstPage(FIRST);
+        for (Site page : List.of(FIRST, busy, DEEP)) {
+            schedule.visited(page, 10, START);
+        }
+        Instant later = START.plus(Duration.ofMinutes(30));
+        schedule.visited(busy, 6, later);
+        schedule.visited(DEEP, 0, later);
+
+        Instant now = later.plus(Duration.ofMinutes(30));
+        assertTrue(schedule.priority(FIRST, now) > schedule.priority(busy, now));
+        assertTrue(schedule.priority(busy, now) > schedule.priority(DEEP, now));
+        assertEquals(List.of(FIRST, busy, DEEP), schedule.due(now));
+    }
+
+    @Test
+    void pagesShouldFallDueAfterTheirInterval() {
+        RecrawlSchedule schedule = new RecrawlSchedule(Duration.ofMinutes(5), Duration.ofHours(1));
+        schedule.addFirstPage(FIRST);
+        assertEquals(Instant.MIN, schedule.nextDue());
+        assertEquals(List.of(FIRST), schedule.due(START));
+
+        schedule.visited(FIRST, 10, START);
+        assertTrue(schedule.due(START.plus(Duration.ofMinutes(4))).isEmpty());
+        assertEquals(START.plus(Duration.ofMinutes(5)), schedule.nextDue());
+        assertEquals(List.of(FIRST), schedule.due(START.plus(Duration.ofMinutes(5))));
+    }
+}
@@ -0,0 +1,58 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.JobListing;
+import org.magistraturaSGI.crawler.store.ResultStore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultStoreTest {
+
+    @Test
+    void listingsShouldBeReadBackUnchanged() {
+        ResultStore store = new ResultStore();
+        store.add("JOBS.BG", new JobListing("Шофьор", "https://www.jobs.bg/job/123"));
+        store.add("RabotniMesta", new JobListing("Продавач-консултант", "https://rabotnimesta.bg/обява/55?x=a/b"));
+        store.add("JOBS.BG", new JobListing("Шофьор", "https://www.jobs.bg/job/124"));
+        store.add("Other", new JobListing("", "example"));
+
+        List<String> read = new ArrayList<>();
+        for (JobListing listing : store) {
+            read.add(listing.getTitle() + " " + listing.getUrl());
+        }
+        assertEquals(List.of("Шофьор https://www.jobs.bg/job/123", "Шофьор https://www.jobs.bg/job/124",
+                "Продавач-консултант https://rabotnimesta.bg/обява/55?x=a/b", " example"), read);
+        assertEquals(4, store.size());
+        assertEquals(2, store.size("JOBS.BG"));
+        assertEquals(3, store.getDistinctTitles());
+        assertEquals(3, store.getUrlPrefixes());
+    }
+
+    @Test
+    void concurrentAppendsShouldAllBeKept() throws InterruptedException {
+        ResultStore store = new ResultStore();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String site = "site" + (t % 3);
+            int thread = t;
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    store.add(site, new JobListing("title" + (i % 10), "https://" + site + "/job/" + thread + "-" + i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Set<String> urls = new HashSet<>();
+        store.forEach(listing -> urls.add(listing.getUrl()));
+        assertEquals(16_000, store.size());
+        assertEquals(16_000, urls.size());
+        assertEquals(10, store.getDistinctTitles());
+    }
+}
@@ -0,0 +1,63 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.SiteProfile;
+import org.magistraturaSGI.crawler.engine.SiteBudget;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SiteBudgetTest {
+
+    private static SiteProfile profile(int maxPages, int maxListings, int maxSizeMB, int maxSeconds) {
+        return SiteProfile.builder().name("Test").maxPages(maxPages).maxListings(maxListings)
+                .maxSizeMB(maxSizeMB).maxSeconds(maxSeconds).build();
+    }
+
+    @Test
+    void pagesShouldBeLimitedWithStartPageCounted() {
+        SiteBudget budget = new SiteBudget(profile(3, 0, 0, 0), System.nanoTime());
+        assertTrue(budget.tryQueuePage());
+        assertTrue(budget.tryQueuePage());
+        assertFalse(budget.tryQueuePage());
+        budget.unqueuePage();
+        assertTrue(budget.tryQueuePage());
+        assertFalse(budget.isExhausted());
+    }
+
+    @Test
+    void listingsShouldExhaustTheBudget() {
+        SiteBudget budget = new SiteBudget(profile(0, 2, 0, 0), System.nanoTime());
+        budget.listingFound();
+        assertFalse(budget.isExhausted());
+        budget.listingFound();
+        assertTrue(budget.isExhausted());
+        assertEquals("MaxListings", budget.getExhaustedBy());
+    }
+
+    @Test
+    void bytesShouldExhaustTheBudget() {
+        SiteBudget budget = new SiteBudget(profile(0, 0, 1, 0), System.nanoTime());
+        budget.fetched(512 * 1024);
+        assertNull(budget.getExhaustedBy());
+        budget.fetched(512 * 1024);
+        assertEquals("MaxSizeMB", budget.getExhaustedBy());
+    }
+
+    @Test
+    void timeShouldExhaustTheBudget() {
+        SiteBudget budget = new SiteBudget(profile(0, 0, 0, 1), System.nanoTime() - 2_000_000_000L);
+        assertTrue(budget.isExhausted());
+        assertEquals("MaxSeconds", budget.getExhaustedBy());
+    }
+
+    @Test
+    void noLimitsShouldNeverExhaust() {
+        SiteBudget budget = new SiteBudget(SiteProfile.EMPTY, System.nanoTime());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(budget.tryQueuePage());
+            budget.listingFound();
+            budget.fetched(1 << 20);
+        }
+        assertFalse(budget.isExhausted());
+    }
+}
@@ -0,0 +1,157 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.frontier.RobotsTxt;
+import org.magistraturaSGI.crawler.frontier.SitemapReader;
+import org.magistraturaSGI.crawler.interfaces.ISitemapListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SitemapTest {
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Collects the entries of a sitemap, stopping after the given number of pages.
+     */
+    private static class Collector implements ISitemapListener {
+        private final List<String> sitemaps = new ArrayList<>();
+        private final List<String> pages = new ArrayList<>();
+        private final List<Instant> lastModified = new ArrayList<>();
+        private final int limit;
+
+        private Collector(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void sitemap(String url) {
+            sitemaps.add(url);
+        }
+
+        @Override
+        public boolean page(String url, Instant modified) {
+            pages.add(url);
+            lastModified.add(modified);
+            return pages.size() < limit;
+        }
+    }
+
+    @Test
+    void gzippedSitemapShouldBeReadEntryByEntry() throws Exception {
+        String sitemap = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+                  <url><loc>https://www.jobs.bg/job/1</loc><lastmod>2024-05-01</lastmod></url>
+                  <url><loc> https://www.jobs.bg/job/2 </loc><lastmod>2024-05-02T10:15:00+03:00</lastmod></url>
+                  <url><loc><![CDATA[https://www.jobs.bg/job/3?a=1&b=2]]></loc><lastmod>yesterday</lastmod></url>
+                </urlset>
+                """;
+        Collector collector = new Collector(Integer.MAX_VALUE);
+
+        int pages = SitemapReader.read(new ByteArrayInputStream(gzip(sitemap)), collector);
+
+        assertEquals(3, pages);
+        assertEquals(List.of("https://www.jobs.bg/job/1", "https://www.jobs.bg/job/2", "https://www.jobs.bg/job/3?a=1&b=2"),
+                collector.pages);
+        assertEquals(Instant.parse("2024-05-01T00:00:00Z"), collector.lastModified.get(0));
+        assertEquals(Instant.parse("2024-05-02T07:15:00Z"), collector.lastModified.get(1));
+        assertNull(collector.lastModified.get(2));
+    }
+
+    @Test
+    void sitemapIndexShouldListItsSitemaps() throws Exception {
+        String index = """
+                <sitemapindex xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+                  <sitemap><loc>https://www.jobs.bg/sitemap-jobs-1.xml.gz</loc><lastmod>2024-05-01</lastmod></sitemap>
+                  <sitemap><loc>https://www.jobs.bg/sitemap-jobs-2.xml.gz</loc></sitemap>
+                </sitemapindex>
+                """;
+        Collector collector = new Collector(Integer.MAX_VALUE);
+
+        assertEquals(0, SitemapReader.read(new ByteArrayInputStream(index.getBytes(StandardCharsets.UTF_8)), collector));
+        assertEquals(List.of("https://www.jobs.bg/sitemap-jobs-1.xml.gz", "https://www.jobs.bg/sitemap-jobs-2.xml.gz"),
+                collector.sitemaps);
+    }
+
+    @Test
+    void largeSitemapShouldStopWhenTheListenerDoes() throws Exception {
+        int[] produced = new int[1];
+        InputStream endless = new InputStream() { // a sitemap that never ends, so it cannot be held in memory
+            private byte[] chunk = "<urlset>".getBytes(StandardCharsets.UTF_8);
+            private int pos;
+
+            @Override
+            public int read() {
+                if (pos == chunk.length) {
+                    chunk = ("<url><loc>https://example.com/job/" + produced[0]++ + "</loc></url>\n").getBytes(StandardCharsets.UTF_8);
+                    pos = 0;
+                }
+                return chunk[pos++];
+            }
+        };
+        Collector collector = new Collector(50_000);
+
+        assertEquals(50_000, SitemapReader.read(endless, collector));
+        assertEquals("https://example.com/job/49999", collector.pages.get(49_999));
+    }
+
+    @Test
+    void entitiesShouldNotBeExpanded() {
+        String sitemap = """
+                <?xml version="1.0"?>
+                <!DOCTYPE urlset [<!ENTITY secret SYSTEM "file:///etc/passwd">]>
+                <urlset><url><loc>https://example.com/&secret;</loc></url></urlset>
+                """;
+        Collector collector = new Collector(Integer.MAX_VALUE);
+
+        assertThrows(IOException.class,
+                () -> SitemapReader.read(new ByteArrayInputStream(sitemap.getBytes(StandardCharsets.UTF_8)), collector));
+        assertTrue(collector.pages.isEmpty());
+    }
+
+    @Test
+    void robotsTxtShouldGiveSitemapsAndTheCrawlDelayOfTheCrawler() {
+        String robots = """
+                User-agent: Googlebot
+                Crawl-delay: 1
+
+                User-agent: *
+                Disallow: /admin
+                Crawl-delay: 2 # seconds
+
+                User-agent: mozilla
+                User-agent: other
+                Crawl-delay: 0.5
+
+                Sitemap: https://www.jobs.bg/sitemap_index.xml
+                sitemap: https://www.jobs.bg/sitemap-jobs.xml.gz
+                """;
+
+        RobotsTxt forCrawler = RobotsTxt.parse(robots, "Mozilla 5.0");
+        RobotsTxt forOthers = RobotsTxt.parse(robots, "JobCrawler/1.0");
+
+        assertEquals(List.of("https://www.jobs.bg/sitemap_index.xml", "https://www.jobs.bg/sitemap-jobs.xml.gz"),
+                forCrawler.getSitemaps());
+        assertEquals(Duration.ofMillis(500), forCrawler.getCrawlDelay());
+        assertEquals(Duration.ofSeconds(2), forOthers.getCrawlDelay());
+        assertEquals(Duration.ZERO, RobotsTxt.parse("User-agent: *\nDisallow:", "Mozilla 5.0").getCrawlDelay());
+    }
+}
@@ -0,0 +1,63 @@
+package crawler;
+
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.dataobjects.FetchedPage;
+import org.magistraturaSGI.crawler.extract.TitleExtractor;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TitleExtractorTest {
+    private static final Evaluator TITLE = QueryParser.parse("h1[class*=\"title\"]");
+    private static final String FILLER = "<p>" + "x".repeat(5_000) + "</p>";
+
+    @Test
+    void titleShouldBeFoundWithinByteLimit() throws IOException {
+        String html = "<html><head><title>Page</title></head><body><h1 class='job-title'>Шофьор</h1>" + FILLER + "</body></html>";
+        assertEquals("Шофьор", new TitleExtractor(1024).extract(page(html, "text/html; charset=utf-8"), TITLE));
+    }
+
+    @Test
+    void titleAfterByteLimitShouldBeFoundInWholePage() throws IOException {
+        String html = "<html><body>" + FILLER + "<h1 class='job-title'>Продавач-консултант</h1></body></html>";
+        assertEquals("Продавач-консултант", new TitleExtractor(1024).extract(page(html, "text/html; charset=utf-8"), TITLE));
+    }
+
+    @Test
+    void titleCutByByteLimitShouldNotBeTruncated() throws IOException {
+        String html = "<html><body><h1 class='job-title'>Senior " + "Java ".repeat(100) + "Developer</h1></body></html>";
+        String title = new TitleExtractor(100).extract(page(html, "text/html"), TITLE);
+        assertTrue(title.endsWith("Developer"));
+    }
+
+    @Test
+    void pageTitleShouldBeUsedWhenSelectorMatchesNothing() throws IOException {
+        String withOg = "<html><head><title>Jobs</title><meta property='og:title' content='Driver'></head><body></body></html>";
+        String withTitle = "<html><head><title>Jobs - Driver</title></head><body></body></html>";
+        TitleExtractor extractor = new TitleExtractor(0);
+
+        assertEquals("Driver", extractor.extract(page(withOg, "text/html"), TITLE));
+        assertEquals("Jobs - Driver", extractor.extract(page(withTitle, "text/html"), TITLE));
+        assertEquals("Jobs - Driver", extractor.extract(page(withTitle, "text/html"), null));
+    }
+
+    @Test
+    void charsetShouldBeReadFromMetaTag() throws IOException {
+        String html = "<html><head><meta charset='windows-1251'></head><body><h1 class='title'>Шофьор</h1></body></html>";
+        FetchedPage page = new FetchedPage("https://example.com/job/1", 200, Map.of("Content-Type", List.of("text/html")),
+                html.getBytes(Charset.forName("windows-1251")));
+        assertEquals("Шофьор", new TitleExtractor(1024).extract(page, TITLE));
+    }
+
+    private static FetchedPage page(String html, String contentType) {
+        return new FetchedPage("https://example.com/job/1", 200, Map.of("Content-Type", List.of(contentType)),
+                html.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,39 @@
+package crawler;
+
+import org.junit.jupiter.api.Test;
+import org.magistraturaSGI.crawler.frontier.UrlNormalizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlNormalizerTest {
+
+    @Test
+    void hostShouldBeLowercasedAndFragmentRemoved() {
+        assertEquals("https://www.jobs.bg/job/123", UrlNormalizer.normalize("HTTPS://WWW.Jobs.BG:443/job/123#apply"));
+    }
+
+    @Test
+    void trackingParametersShouldBeRemoved() {
+        assertEquals("https://yox.bg/search?o=20&k=j",
+                UrlNormalizer.normalize("https://yox.bg/search?utm_source=x&o=20&fbclid=abc&k=j&utm_medium=y"));
+    }
+
+    @Test
+    void cyrillicPathsShouldMatchTheirEncodedForm() {
+        String encoded = UrlNormalizer.normalize("https://www.rabotnimesta.bg/%d1%80%d0%b0%d0%b1%d0%be%d1%82%d0%b0/?&p=2");
+        String raw = UrlNormalizer.normalize("https://www.rabotnimesta.bg/работа/?p=2");
+        assertEquals(raw, encoded);
+        assertEquals("https://www.rabotnimesta.bg/%D1%80%D0%B0%D0%B1%D0%BE%D1%82%D0%B0/?p=2", raw);
+    }
+
+    @Test
+    void encodedUnreservedCharactersShouldBeDecoded() {
+        assertEquals("http://example.com/a-b/c", UrlNormalizer.normalize("http://example.com/a%2Db/%63"));
+        assertEquals("http://example.com/a%2Fb", UrlNormalizer.normalize("http://example.com/a%2fb"));
+    }
+
+    @Test
+    void emptyPathShouldBecomeSlash() {
+        assertEquals("http://example.com/", UrlNormalizer.normalize("http://Example.com"));
+    }
+}